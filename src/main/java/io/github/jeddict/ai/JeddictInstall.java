@@ -79,6 +79,8 @@ public class JeddictInstall extends ModuleInstall {
                 }
                 prefs.remove(DAILY_INPUT_TOKEN_STATS_KEY);
                 prefs.remove(DAILY_OUTPUT_TOKEN_STATS_KEY);
+                prefs.flush();
+                stats.flush();
 
                 LOG.info("Successfully migrated old config file.");
             }
@@ -3,6 +3,8 @@ package io.github.jeddict.ai.agent.pair;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import dev.langchain4j.agentic.Agent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.input.PromptTemplate;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.UserMessage;
 import dev.langchain4j.service.V;
@@ -10,7 +12,10 @@ import io.github.jeddict.ai.lang.Snippet;
 import io.github.jeddict.ai.util.JSONUtil;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_SQL;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_TYPE_DESCRIPTIONS;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import org.apache.commons.lang3.StringUtils;
 
 public interface Ghostwriter extends PairProgrammer {
@@ -27,13 +32,17 @@ location ${SUGGESTION}
 {{format}}
 """;
 
+    //
+    // Stable content first, so that providers caching prompt prefixes can
+    // reuse it while the code is being edited
+    //
     static final String USER_MESSAGE = """
-{{message}}
+Project info: {{project}}
+Project classes: {{classes}}
 Code language: {{language}}
+{{message}}
 Current code: {{code}}
 Current line: {{line}}
-Project classes: {{classes}}
-Project info: {{project}}
 Hint: {{hint}}
 """;
 
@@ -229,6 +238,41 @@ Return a JSON array where each element is an object containing the fields:
     }
 
 
+    /**
+     * Renders the messages of {@link #suggest} for a single best next line
+     * suggestion, so that they can be sent to a streaming model directly;
+     * agents do not stream, while inline hints are rendered as the snippet is
+     * generated.
+     *
+     * @return the system and user messages
+     */
+    default List<ChatMessage> suggestNextLineCodeMessages(
+        final String classes,
+        final String language,
+        final String code,
+        final String line,
+        final String project,
+        final String hint,
+        final TreePath tree
+    ) {
+        log(classes, code, line, project, hint, false);
+
+        final Map<String, Object> variables = new HashMap<>();
+        variables.put("message", (hint != null) ? "" : userMessage(tree));
+        variables.put("language", Objects.toString(language, ""));
+        variables.put("classes", Objects.toString(classes, ""));
+        variables.put("code", Objects.toString(code, ""));
+        variables.put("line", Objects.toString(line, ""));
+        variables.put("hint", Objects.toString(hint, ""));
+        variables.put("project", Objects.toString(project, ""));
+        variables.put("format", OUTPUT_JSON_OBJECT);
+
+        return List.of(
+            dev.langchain4j.data.message.SystemMessage.from(PromptTemplate.from(SYSTEM_MESSAGE).apply(variables).text()),
+            dev.langchain4j.data.message.UserMessage.from(PromptTemplate.from(USER_MESSAGE).apply(variables).text())
+        );
+    }
+
     // --------------------------------------------------------- Utility methods
 
     default String userMessage(final TreePath tree) {
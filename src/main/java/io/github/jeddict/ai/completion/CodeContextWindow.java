@@ -0,0 +1,279 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import io.github.jeddict.ai.response.TokenCounter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+
+/**
+ * Builds the source code sent as <code>{{code}}</code> context of a
+ * completion request within a token budget.
+ * <p>
+ * The whole document is used when it fits the budget. Otherwise, for Java
+ * documents, the bodies of the methods far from the caret are elided so that
+ * the enclosing method is kept in full and the rest of the file is reduced to
+ * its skeleton (package, imports, fields and signatures). If that is still too
+ * large, or the document is not Java, only the lines around the caret are
+ * kept, as many as the budget allows up to the configured number of lines.
+ * Tokens are counted with the shared <code>cl100k_base</code> encoding of
+ * {@link TokenCounter}.
+ */
+public final class CodeContextWindow {
+
+    private static final Logger LOG = Logger.getLogger(CodeContextWindow.class.getName());
+
+    private static final String ELIDED_BODY = "{ ... }";
+
+    private static final Encoding ENCODING
+            = TokenCounter.getInstance().getEncoding(EncodingType.CL100K_BASE);
+
+    private CodeContextWindow() {
+    }
+
+    /**
+     * Returns the document text with the placeholder at the caret, reduced to
+     * fit the given token budget.
+     *
+     * @param doc the document
+     * @param caretOffset the caret offset
+     * @param placeholder the placeholder to insert at the caret
+     * @param parser supplies the parse tree of the document, if any; only
+     * called when the document does not fit the budget
+     * @param maxTokens the token budget; a non positive value disables it
+     * @param contextLines the number of lines around the caret to keep
+     *
+     * @return the code context or null if the document can not be read
+     */
+    public static String build(
+        final Document doc, final int caretOffset, final String placeholder,
+        final Supplier<JavaParseCache.ParseResult> parser, final int maxTokens, final int contextLines
+    ) {
+        try {
+            final long version = DocumentUtilities.getDocumentVersion(doc);
+            final String text = doc.getText(0, doc.getLength());
+            final int caret = Math.max(0, Math.min(caretOffset, text.length()));
+
+            final String full = text.substring(0, caret) + placeholder + text.substring(caret);
+            if (maxTokens <= 0) {
+                return full;
+            }
+            final int fullTokens = ENCODING.countTokensOrdinary(full);
+            if (fullTokens <= maxTokens) {
+                return full;
+            }
+
+            //
+            // Tree positions are only meaningful for the text they were
+            // parsed from
+            //
+            final JavaParseCache.ParseResult parseResult = parser.get();
+            if (parseResult != null && parseResult.getVersion() == version) {
+                return reduce(text, caret, placeholder, fullTokens,
+                        parseResult.getCompilationUnit(), parseResult.getSourcePositions(),
+                        maxTokens, contextLines);
+            }
+            return reduce(text, caret, placeholder, fullTokens, null, null, maxTokens, contextLines);
+        } catch (BadLocationException e) {
+            LOG.log(Level.FINE, "Unable to read the document text", e);
+            return null;
+        }
+    }
+
+    static String build(
+        final String text, final int caret, final String placeholder,
+        final CompilationUnitTree unit, final SourcePositions positions,
+        final int maxTokens, final int contextLines
+    ) {
+        final String full = text.substring(0, caret) + placeholder + text.substring(caret);
+        if (maxTokens <= 0) {
+            return full;
+        }
+        final int fullTokens = ENCODING.countTokensOrdinary(full);
+        if (fullTokens <= maxTokens) {
+            return full;
+        }
+        return reduce(text, caret, placeholder, fullTokens, unit, positions, maxTokens, contextLines);
+    }
+
+    /**
+     * Reduces a document that does not fit the budget, whose text with the
+     * placeholder counts the given number of tokens.
+     */
+    private static String reduce(
+        final String text, final int caret, final String placeholder, final int fullTokens,
+        final CompilationUnitTree unit, final SourcePositions positions,
+        final int maxTokens, final int contextLines
+    ) {
+        final int[] lineStarts = lineStarts(text);
+        final int caretLine = lineOf(lineStarts, caret);
+
+        if (unit != null) {
+            final int around = Math.max(0, contextLines);
+            final int keepStart = lineStarts[Math.max(0, caretLine - around)];
+            final int keepEnd = lineEnd(text, lineStarts, Math.min(lineStarts.length - 1, caretLine + around));
+            final String skeleton = skeleton(text, caret, placeholder, unit, positions, keepStart, keepEnd);
+            final int skeletonTokens = ENCODING.countTokensOrdinary(skeleton);
+            if (skeletonTokens <= maxTokens) {
+                LOG.finest(() -> "Code context reduced from " + fullTokens + " to " + skeletonTokens + " tokens");
+                return skeleton;
+            }
+        }
+
+        final String lines = lines(text, caret, placeholder, lineStarts, caretLine, maxTokens, contextLines);
+        LOG.finest(() -> "Code context reduced from " + fullTokens + " tokens to the lines around the caret");
+        return lines;
+    }
+
+    /**
+     * Replaces with {@value #ELIDED_BODY} the bodies of the methods that do
+     * not overlap the given range, which always contains the caret. Nested
+     * methods (e.g. of anonymous classes) are kept with their enclosing one.
+     */
+    static String skeleton(
+        final String text, final int caret, final String placeholder,
+        final CompilationUnitTree unit, final SourcePositions positions,
+        final int keepStart, final int keepEnd
+    ) {
+        final List<int[]> elided = new ArrayList<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitMethod(MethodTree method, Void p) {
+                final BlockTree body = method.getBody();
+                if (body != null) {
+                    final int start = (int) positions.getStartPosition(unit, body);
+                    final int end = (int) positions.getEndPosition(unit, body);
+                    if (start >= 0 && end > start && end <= text.length()
+                            && (end <= keepStart || start >= keepEnd)) {
+                        elided.add(new int[] { start, end });
+                    }
+                }
+                return null;
+            }
+        }.scan(unit, null);
+
+        final StringBuilder sb = new StringBuilder(text.length());
+        int from = 0;
+        for (int[] range : elided) {
+            append(sb, text, from, range[0], caret, placeholder);
+            sb.append(ELIDED_BODY);
+            from = range[1];
+        }
+        append(sb, text, from, text.length(), caret, placeholder);
+
+        return sb.toString();
+    }
+
+    /**
+     * Keeps the caret line and grows the window one line at a time, preceding
+     * lines first, while it fits the budget and is within the given number of
+     * lines from the caret.
+     */
+    static String lines(
+        final String text, final int caret, final String placeholder,
+        final int[] lineStarts, final int caretLine, final int maxTokens, final int contextLines
+    ) {
+        int first = caretLine, last = caretLine;
+        int tokens = ENCODING.countTokensOrdinary(
+            text.substring(lineStarts[caretLine], caret) + placeholder
+            + text.substring(caret, lineEnd(text, lineStarts, caretLine))
+        );
+
+        boolean up = true, down = true;
+        for (int i = 1; i <= contextLines && (up || down); ++i) {
+            if (up) {
+                up = first > 0;
+                if (up) {
+                    final int t = ENCODING.countTokensOrdinary(line(text, lineStarts, first - 1));
+                    up = tokens + t <= maxTokens;
+                    if (up) {
+                        tokens += t; --first;
+                    }
+                }
+            }
+            if (down) {
+                down = last < lineStarts.length - 1;
+                if (down) {
+                    final int t = ENCODING.countTokensOrdinary(line(text, lineStarts, last + 1));
+                    down = tokens + t <= maxTokens;
+                    if (down) {
+                        tokens += t; ++last;
+                    }
+                }
+            }
+        }
+
+        return text.substring(lineStarts[first], caret) + placeholder
+             + text.substring(caret, lineEnd(text, lineStarts, last));
+    }
+
+    private static void append(
+        final StringBuilder sb, final String text, final int from, final int to,
+        final int caret, final String placeholder
+    ) {
+        if (caret >= from && caret < to || (caret == to && to == text.length())) {
+            sb.append(text, from, caret).append(placeholder).append(text, caret, to);
+        } else {
+            sb.append(text, from, to);
+        }
+    }
+
+    private static int[] lineStarts(final String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                ++count;
+            }
+        }
+        final int[] starts = new int[count];
+        for (int i = 0, line = 1; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                starts[line++] = i + 1;
+            }
+        }
+        return starts;
+    }
+
+    private static int lineOf(final int[] lineStarts, final int offset) {
+        int line = Arrays.binarySearch(lineStarts, offset);
+        return line >= 0 ? line : -line - 2;
+    }
+
+    /**
+     * @return the offset after the end of line of the given line
+     */
+    private static int lineEnd(final String text, final int[] lineStarts, final int line) {
+        return line + 1 < lineStarts.length ? lineStarts[line + 1] : text.length();
+    }
+
+    private static String line(final String text, final int[] lineStarts, final int line) {
+        return text.substring(lineStarts[line], lineEnd(text, lineStarts, line));
+    }
+}
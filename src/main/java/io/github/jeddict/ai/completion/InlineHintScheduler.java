@@ -0,0 +1,163 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.metrics.RequestMetrics.Metric;
+import io.github.jeddict.ai.metrics.RequestMetrics.Series;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Debounced scheduler for inline hint requests.
+ * <p>
+ * A request is started only after the debounce window elapsed without a newer
+ * request, so bursts of typing are coalesced into a single provider call. A
+ * newer request supersedes the previous one: if it is still waiting it is
+ * dropped, if it is already running its thread is interrupted. The interrupt
+ * aborts a blocking call made with the JDK HTTP client, but not a streamed
+ * one, whose tokens are delivered on another thread: requests poll
+ * {@link BooleanSupplier superseded} to cancel their stream and to avoid
+ * rendering a stale suggestion.
+ * <p>
+ * The time a request waits for the processor after its debounce window is
+ * recorded as {@link Metric#QUEUE_WAIT} in {@link RequestMetrics}, its outcome
+ * as {@link Metric#SERVED} or {@link Metric#CANCELLED} with the time it ran,
+ * or as {@link Metric#DROPPED} with the time it waited.
+ */
+public class InlineHintScheduler {
+
+    private static final Logger LOG = Logger.getLogger(InlineHintScheduler.class.getName());
+
+    private static final Series SERIES = Series.of(null, null, null, "inlineHint");
+
+    /**
+     * An inline hint request.
+     */
+    @FunctionalInterface
+    public interface HintRequest {
+
+        /**
+         * @param superseded tells if a newer request replaced this one
+         * @throws Exception in case of errors
+         */
+        void run(BooleanSupplier superseded) throws Exception;
+    }
+
+    /**
+     * Counters of the scheduled requests.
+     *
+     * @param requested the number of scheduled requests
+     * @param served the number of requests that completed while still current
+     * @param cancelled the number of requests interrupted while running
+     * @param dropped the number of requests superseded before starting
+     */
+    public record Stats(long requested, long served, long cancelled, long dropped) {}
+
+    private static final class Ticket {
+
+        private final long id;
+        private final long scheduled = System.nanoTime();
+        private volatile boolean started;
+        private volatile long startedAt;
+        private ScheduledFuture<?> future;
+
+        private Ticket(long id) {
+            this.id = id;
+        }
+    }
+
+    private final RequestProcessor processor = new RequestProcessor(InlineHintScheduler.class.getName(), 1, true);
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Ticket current;
+
+    /**
+     * Schedules the given request after the debounce window, superseding any
+     * pending or running request.
+     *
+     * @param debounceMillis the debounce window in milliseconds
+     * @param request the request to run
+     */
+    public synchronized void schedule(final int debounceMillis, final HintRequest request) {
+        supersede();
+        requested.incrementAndGet();
+
+        final Ticket ticket = new Ticket(generation.incrementAndGet());
+        final BooleanSupplier superseded = () -> generation.get() != ticket.id || Thread.currentThread().isInterrupted();
+        final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, debounceMillis));
+        ticket.future = processor.schedule(() -> {
+            ticket.startedAt = System.nanoTime();
+            ticket.started = true;
+            RequestMetrics.getInstance().record(SERIES, Metric.QUEUE_WAIT,
+                    Math.max(0, TimeUnit.NANOSECONDS.toMillis(ticket.startedAt - due)));
+            try {
+                request.run(superseded);
+                if (!superseded.getAsBoolean()) {
+                    served.incrementAndGet();
+                    RequestMetrics.getInstance().recordSince(SERIES, Metric.SERVED, ticket.startedAt);
+                }
+            } catch (InterruptedException ex) {
+                LOG.finest(() -> "Inline hint request " + ticket.id + " interrupted");
+            } catch (Exception ex) {
+                if (superseded.getAsBoolean()) {
+                    LOG.finest(() -> "Inline hint request " + ticket.id + " aborted: " + ex.getMessage());
+                } else {
+                    LOG.log(Level.WARNING, "Inline hint request failed", ex);
+                }
+            }
+        }, Math.max(0, debounceMillis), TimeUnit.MILLISECONDS);
+        current = ticket;
+    }
+
+    /**
+     * Cancels the pending or running request, if any.
+     */
+    public synchronized void cancel() {
+        supersede();
+        generation.incrementAndGet();
+    }
+
+    public Stats getStats() {
+        return new Stats(requested.get(), served.get(), cancelled.get(), dropped.get());
+    }
+
+    private void supersede() {
+        if (current == null || current.future.isDone()) {
+            current = null;
+            return;
+        }
+        if (current.started) {
+            cancelled.incrementAndGet();
+            RequestMetrics.getInstance().recordSince(SERIES, Metric.CANCELLED, current.startedAt);
+        } else {
+            dropped.incrementAndGet();
+            RequestMetrics.getInstance().recordSince(SERIES, Metric.DROPPED, current.scheduled);
+        }
+        current.future.cancel(true);
+        current = null;
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import io.github.jeddict.ai.util.SourceUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.logging.Logger;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
+
+/**
+ * Cache of the javac parse tree used by the completion queries to locate the
+ * tree at the caret.
+ * <p>
+ * The parsed {@link CompilationUnitTree} is tagged with its document and the
+ * document version, so consecutive queries on an unchanged document (e.g. the
+ * inline hint and the completion popup fired by the same keystroke) share a
+ * single parse. Only the parse of the last document is kept: a parse result
+ * holds on to its javac task, and with it to the whole compiler context, so
+ * it is not worth keeping one for every open document. Only the parse phase
+ * is run: locating the caret path needs source positions, not attribution,
+ * so the expensive and classpath-less {@code analyze()} is skipped.
+ * <p>
+ * When only the kind of the enclosing construct is needed,
+ * {@link #enclosingKind(Document, int)} answers from the lexer token sequence
+ * without invoking javac at all; callers should ask it first.
+ */
+public final class JavaParseCache {
+
+    private static final Logger LOG = Logger.getLogger(JavaParseCache.class.getName());
+
+    private static volatile ParseResult last;
+
+    private JavaParseCache() {
+    }
+
+    /**
+     * Parsed compilation unit of a given document version.
+     */
+    public static final class ParseResult {
+
+        private final Reference<Document> document;
+        private final long version;
+        private final JavacTask task;
+        private final CompilationUnitTree compilationUnit;
+        private final SourcePositions sourcePositions;
+
+        private ParseResult(Document document, long version, JavacTask task, CompilationUnitTree compilationUnit) {
+            this.document = new WeakReference<>(document);
+            this.version = version;
+            this.task = task;
+            this.compilationUnit = compilationUnit;
+            this.sourcePositions = Trees.instance(task).getSourcePositions();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public CompilationUnitTree getCompilationUnit() {
+            return compilationUnit;
+        }
+
+        public SourcePositions getSourcePositions() {
+            return sourcePositions;
+        }
+
+        /**
+         * Finds the tree path enclosing the given offset. The underlying javac
+         * task is shared between queries, hence the lookup is serialized.
+         *
+         * @param offset the caret offset
+         * @return the path at the caret or null if none is found
+         * @throws IOException in case of errors while scanning the tree
+         */
+        public synchronized TreePath findTreePathAtCaret(int offset) throws IOException {
+            return SourceUtil.findTreePathAtCaret(compilationUnit, task, offset);
+        }
+    }
+
+    /**
+     * Returns the parse tree of the current document content, reusing the
+     * cached one when the document has not been modified since it was parsed.
+     *
+     * @param doc the document to parse
+     * @return the parse result or null if the document can not be parsed
+     */
+    public static ParseResult get(Document doc) {
+        //
+        // The version is read before the text: if the document changes in
+        // between, the result is stored with an older version and simply
+        // missed by the next lookup
+        //
+        final long version = DocumentUtilities.getDocumentVersion(doc);
+        final ParseResult cached = last;
+        if (cached != null && cached.document.get() == doc && cached.version == version) {
+            LOG.finest(() -> "Reusing parse tree of version " + version);
+            return cached;
+        }
+
+        final ParseResult result = parse(doc, version);
+        if (result != null) {
+            last = result;
+        }
+        return result;
+    }
+
+    private static ParseResult parse(Document doc, long version) {
+        try {
+            final String sourceCode = doc.getText(0, doc.getLength());
+            JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///Test.java"), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return sourceCode;
+                }
+            };
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            // Redirecting output and error streams to suppress logs
+            PrintWriter nullWriter = new PrintWriter(OutputStream.nullOutputStream());
+            JavacTask task = (JavacTask) compiler.getTask(nullWriter, null, nullWriter::print, null, null, Collections.singletonList(fileObject));
+            Iterator<? extends CompilationUnitTree> units = task.parse().iterator();
+            if (!units.hasNext()) {
+                return null;
+            }
+            return new ParseResult(doc, version, task, units.next());
+        } catch (BadLocationException | IOException ex) {
+            LOG.finest(() -> "Unable to parse document: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Determines the kind of the construct enclosing the given offset using
+     * only the lexer: {@link Tree.Kind#CLASS} when the offset is directly in a
+     * type body, {@link Tree.Kind#BLOCK} when it is in a code block and
+     * {@link Tree.Kind#COMPILATION_UNIT} when it is outside any type.
+     *
+     * @param doc the document
+     * @param offset the caret offset
+     * @return the enclosing kind or null if the document is not a java document
+     */
+    public static Tree.Kind enclosingKind(Document doc, int offset) {
+        if (doc instanceof AbstractDocument) {
+            ((AbstractDocument) doc).readLock();
+        }
+        try {
+            TokenSequence<JavaTokenId> ts = TokenHierarchy.get(doc).tokenSequence(JavaTokenId.language());
+            if (ts == null) {
+                return null;
+            }
+            final Deque<Tree.Kind> scopes = new ArrayDeque<>();
+            boolean typeDeclaration = false;
+            JavaTokenId previous = null;
+            ts.moveStart();
+            while (ts.moveNext() && ts.offset() < offset) {
+                final JavaTokenId id = ts.token().id();
+                switch (id) {
+                    case WHITESPACE, LINE_COMMENT, BLOCK_COMMENT, JAVADOC_COMMENT -> {
+                        continue;
+                    }
+                    case CLASS, INTERFACE, ENUM -> {
+                        // Foo.class literals are not type declarations
+                        typeDeclaration |= previous != JavaTokenId.DOT;
+                    }
+                    case LBRACE -> {
+                        scopes.push(typeDeclaration ? Tree.Kind.CLASS : Tree.Kind.BLOCK);
+                        typeDeclaration = false;
+                    }
+                    case RBRACE -> {
+                        scopes.poll();
+                        typeDeclaration = false;
+                    }
+                    case SEMICOLON -> typeDeclaration = false;
+                    default -> {
+                    }
+                }
+                previous = id;
+            }
+            return scopes.isEmpty() ? Tree.Kind.COMPILATION_UNIT : scopes.peek();
+        } finally {
+            if (doc instanceof AbstractDocument) {
+                ((AbstractDocument) doc).readUnlock();
+            }
+        }
+    }
+}
@@ -15,17 +15,22 @@
  */
 package io.github.jeddict.ai.completion;
 
-import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.JavacTask;
 import com.sun.source.util.TreePath;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import io.github.jeddict.ai.agent.pair.PairProgrammer;
-import io.github.jeddict.ai.lang.JeddictBrain;
+import io.github.jeddict.ai.lang.ChatModelRegistry;
 import io.github.jeddict.ai.lang.Snippet;
 import static io.github.jeddict.ai.scanner.ProjectClassScanner.getClassDataContent;
 import static io.github.jeddict.ai.scanner.ProjectClassScanner.getFileObjectFromEditor;
 import io.github.jeddict.ai.settings.AIClassContext;
 import io.github.jeddict.ai.settings.PreferencesManager;
+import io.github.jeddict.ai.util.JSONUtil;
 import static io.github.jeddict.ai.util.MimeUtil.JAVA_MIME;
 import io.github.jeddict.ai.util.SourceUtil;
 import static io.github.jeddict.ai.util.StringUtil.removeAllSpaces;
@@ -33,23 +38,20 @@ import static io.github.jeddict.ai.util.StringUtil.trimLeadingSpaces;
 import static io.github.jeddict.ai.util.StringUtil.trimTrailingSpaces;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.net.URI;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import javax.swing.SwingUtilities;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
-import javax.tools.JavaCompiler;
-import javax.tools.JavaFileObject;
-import javax.tools.SimpleJavaFileObject;
-import javax.tools.ToolProvider;
 import org.netbeans.api.editor.completion.Completion;
+import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.editor.mimelookup.MimeLookup;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
 import org.netbeans.api.editor.settings.AttributesUtilities;
@@ -132,6 +134,7 @@ public class JeddictCompletionProvider implements CompletionProvider {
 
                                 if (textLocation.equals(caretPosition)) {
                                     doc.insertString(caretPosition, snippet.getSnippet(), null);
+                                    SnippetRanker.getInstance().accepted(snippet.getSnippet());
                                     int lineStart = Utilities.getRowStart(component, caretPosition);
                                     int lineEnd = Utilities.getRowEnd(component, caretPosition + snippet.getSnippet().length());
 
@@ -189,35 +192,110 @@ public class JeddictCompletionProvider implements CompletionProvider {
         return null;
     }
 
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private Future<?> currentTask;
+    private final InlineHintScheduler inlineHintScheduler = new InlineHintScheduler();
+
+    private final SpeculativeHintPrefetcher speculativeHintPrefetcher = new SpeculativeHintPrefetcher();
 
     @Override
     public int getAutoQueryTypes(JTextComponent component, String typedText) {
         if (typedText.length() == 1
                 && typedText.charAt(0) == '\n') {
-            if (currentTask != null && !currentTask.isDone()) {
-                currentTask.cancel(true);
-            }
             boolean inlineHintEnabled = pm.isInlineHintEnabled();
             boolean inlinePromptHintEnabled = pm.isInlinePromptHintEnabled();
             LineScanResult result = inlinePromptHintEnabled ? getPreviousLineUntilSlash(component) : null;
             boolean shouldExecuteQuery = (result == null && inlineHintEnabled) || (result != null && inlinePromptHintEnabled);
-            if (shouldExecuteQuery) {
-                currentTask = executorService.submit(() -> {
+            CompletableFuture<Snippet> speculated = (shouldExecuteQuery && result == null)
+                    ? speculativeHintPrefetcher.take(component.getDocument(), component.getSelectionStart()) : null;
+            if (speculated == null) {
+                speculativeHintPrefetcher.cancel();
+            }
+            if (speculated != null) {
+                //
+                // The suggestion has been requested before Enter was pressed
+                //
+                int caretOffset = component.getSelectionStart();
+                inlineHintScheduler.schedule(0, superseded -> {
+                    Snippet snippet;
+                    try {
+                        snippet = speculated.get();
+                    } catch (InterruptedException x) {
+                        speculated.cancel(false);
+                        throw x;
+                    }
+                    JeddictCompletionQuery query = new JeddictCompletionQuery(-1, caretOffset);
+                    query.setSuperseded(superseded);
+                    query.prepareQuery(component);
+                    if (snippet != null) {
+                        query.highlightMultiline(component, caretOffset, snippet);
+                    } else {
+                        query.query(null, component.getDocument(), caretOffset);
+                    }
+                });
+            } else if (shouldExecuteQuery) {
+                //
+                // A prompt hint is explicitly requested by the user, only plain
+                // inline hints wait for the typing to settle
+                //
+                int debounce = result == null ? pm.getInlineHintDebounce() : 0;
+                inlineHintScheduler.schedule(debounce, superseded -> {
                     JeddictCompletionQuery query = new JeddictCompletionQuery(-1, component.getSelectionStart());
                     if (result != null) {
                         query.setHintContext(pm.getPrompts().get(result.getFirstWord()) + " - " + result.getSecondWord());
                     }
+                    query.setSuperseded(superseded);
                     query.prepareQuery(component);
                     query.query(null, component.getDocument(), component.getSelectionStart());
                 });
+            } else {
+                inlineHintScheduler.cancel();
             }
-
+        } else if (!typedText.isBlank()) {
+            // any further typing makes a pending suggestion stale
+            inlineHintScheduler.cancel();
+            speculate(component, typedText);
         }
         return 0;
     }
 
+    /**
+     * Requests the next line suggestion in the background if the typed text
+     * completed the caret line, see {@link SpeculativeHintPrefetcher}.
+     */
+    private void speculate(JTextComponent component, String typedText) {
+        final String typed = typedText.stripTrailing();
+        final char last = typed.charAt(typed.length() - 1);
+        final Document doc = component.getDocument();
+        final int caretOffset = component.getSelectionStart();
+        if (!pm.isInlineHintEnabled() || !pm.isInlineHintSpeculationEnabled()
+                || (last != ';' && last != '{' && last != '}')
+                || (JAVA_MIME.equals(doc.getProperty("mimeType")) && !isStatementEnd(doc, caretOffset))) {
+            speculativeHintPrefetcher.cancel();
+            return;
+        }
+        speculativeHintPrefetcher.speculate(doc, caretOffset, pm.getInlineHintDebounce(),
+                pm.getInlineHintSpeculationBudget(), (copy, offset, discarded) -> {
+            JeddictCompletionQuery query = new JeddictCompletionQuery(-1, offset);
+            query.setSuperseded(discarded);
+            query.setSpeculative(true);
+            query.prepareQuery(component);
+            query.query(null, copy, offset);
+            return query.getPrepared();
+        });
+    }
+
+    /**
+     * @return true if the token before the caret is a semicolon or a brace of
+     * java code, not of a comment or a string
+     */
+    private static boolean isStatementEnd(Document doc, int caretOffset) {
+        if (caretOffset <= 0) {
+            return false;
+        }
+        JavaToken token = isJavaContext(doc, caretOffset - 1, false);
+        return token.isJavaContext()
+                && (token.getId() == JavaTokenId.SEMICOLON || token.getId() == JavaTokenId.LBRACE || token.getId() == JavaTokenId.RBRACE);
+    }
+
     public LineScanResult getPreviousLineUntilSlash(JTextComponent component) {
         try {
             int selectionStart = component.getCaretPosition();
@@ -311,12 +389,35 @@ public class JeddictCompletionProvider implements CompletionProvider {
         private final int queryType;
         private int caretOffset;
         private String hintContext;
+        private BooleanSupplier superseded = () -> false;
+        private boolean inline;
+        private boolean speculative;
+        private Snippet prepared;
+        private Document document;
+        private int ranked;
 
         private JeddictCompletionQuery(int queryType, int caretOffset) {
             this.queryType = queryType;
             this.caretOffset = caretOffset;
         }
 
+        public void setSuperseded(BooleanSupplier superseded) {
+            this.superseded = superseded;
+        }
+
+        /**
+         * A speculative query runs against a copy of the document and keeps
+         * the inline suggestion in {@link #getPrepared()} instead of painting
+         * it.
+         */
+        public void setSpeculative(boolean speculative) {
+            this.speculative = speculative;
+        }
+
+        public Snippet getPrepared() {
+            return prepared;
+        }
+
         public String getHintContext() {
             return hintContext;
         }
@@ -376,17 +477,10 @@ public class JeddictCompletionProvider implements CompletionProvider {
         }
 
         public String insertPlaceholderAtCaret(Document doc, int caretOffset, String placeholder) {
-            try {
-                caretOffset = caretOffset > doc.getLength() ? doc.getLength() : caretOffset;
-                String docText = doc.getText(0, doc.getLength());
-                String updatedText = docText.substring(0, caretOffset)
-                        + placeholder
-                        + docText.substring(caretOffset);
-                return updatedText;
-            } catch (BadLocationException e) {
-                e.printStackTrace();
-                return null;
-            }
+            final PreferencesManager pm = PreferencesManager.getInstance();
+            final boolean java = JAVA_MIME.equals(doc.getProperty("mimeType"));
+            return CodeContextWindow.build(doc, caretOffset, placeholder, () -> java ? JavaParseCache.get(doc) : null,
+                    pm.getCompletionContextTokens(), pm.getCompletionContextLines());
         }
 
         public String getVariableNameAtCaret(Document doc, int caretOffset) {
@@ -407,32 +501,6 @@ public class JeddictCompletionProvider implements CompletionProvider {
             return null;
         }
 
-        private JavacTask getJavacTask(Document doc) {
-            try {
-                String sourceCode = doc.getText(0, doc.getLength());
-                JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///Test.java"), JavaFileObject.Kind.SOURCE) {
-                    @Override
-                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
-                        return sourceCode;
-                    }
-                };
-                JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-                // Redirecting output and error streams to suppress logs
-                OutputStream nullOutputStream = new OutputStream() {
-                    @Override
-                    public void write(int b) {
-                        // No-op, discard output
-                    }
-                };
-                PrintWriter nullWriter = new PrintWriter(nullOutputStream);
-                JavacTask task = (JavacTask) compiler.getTask(nullWriter, null, nullWriter::print, null, null, Collections.singletonList(fileObject));
-                return task;
-            } catch (BadLocationException ex) {
-                Exceptions.printStackTrace(ex);
-            }
-            return null;
-        }
-
         private JeddictItem createItem(Snippet snippet, String line, String lineTextBeforeCaret, JavaToken javaToken, Tree.Kind kind, Document doc) throws BadLocationException {
             int newcaretOffset = caretOffset;
             if (javaToken.getId() == STRING_LITERAL && kind == Tree.Kind.STRING_LITERAL) {
@@ -501,6 +569,7 @@ public class JeddictCompletionProvider implements CompletionProvider {
             final PreferencesManager pm = PreferencesManager.getInstance();
             final boolean description = pm.isDescriptionEnabled();
 
+            inline = resultSet == null;
             try {
                 FileObject fileObject = getFileObjectFromEditor(doc);
                 if (fileObject == null) {
@@ -517,82 +586,93 @@ public class JeddictCompletionProvider implements CompletionProvider {
                                          : "";
 
                 this.caretOffset = caretOffset;
+                this.document = doc;
                 String mimeType = (String) doc.getProperty("mimeType");
-                JavaToken javaToken = isJavaContext(component.getDocument(), caretOffset, true);
+                JavaToken javaToken = isJavaContext(doc, caretOffset, true);
                 if ((COMPLETION_QUERY_TYPE == queryType || -1 == queryType || COMPLETION_ALL_QUERY_TYPE == queryType)
                         && JAVA_MIME.equals(mimeType)
                         && javaToken.isJavaContext()) {
 
-                    JavacTask task = getJavacTask(doc);
-                    Iterable<? extends CompilationUnitTree> ast = task.parse();
-                    task.analyze();
-                    CompilationUnitTree compilationUnit = ast.iterator().next();
-
                     String line = getLineText(doc, caretOffset);
                     String lineTextBeforeCaret = getLineTextBeforeCaret(doc, caretOffset);
 
-                    final TreePath tree = SourceUtil.findTreePathAtCaret(compilationUnit, task, caretOffset);
-                    final Tree.Kind kind = tree == null ? null : tree.getLeaf().getKind();
+                    AIClassContext activeClassContext = -1 == queryType ? pm.getClassContextInlineHint() : pm.getClassContext();
+
+                    //
+                    // The lexer tells cheaply if the caret is outside any type,
+                    // e.g. among the imports, where the caret path does not
+                    // matter: javac then runs only if the class context needs
+                    // the compilation unit
+                    //
+                    final Tree.Kind enclosingKind = JavaParseCache.enclosingKind(doc, caretOffset);
+                    final boolean inType = enclosingKind != Tree.Kind.COMPILATION_UNIT;
+                    final JavaParseCache.ParseResult parseResult = inType || activeClassContext != AIClassContext.CURRENT_CLASS
+                                                                 ? JavaParseCache.get(doc) : null;
+
+                    final TreePath tree = inType && parseResult != null ? parseResult.findTreePathAtCaret(caretOffset) : null;
+                    //
+                    // If javac can not make sense of the document fall back to
+                    // the enclosing construct as seen by the lexer
+                    //
+                    final Tree.Kind kind = tree != null ? tree.getLeaf().getKind() : enclosingKind;
                     final Tree.Kind parentKind = tree != null && tree.getParentPath() != null ? tree.getParentPath().getLeaf().getKind() : null;
 
-                    AIClassContext activeClassContext = -1 == queryType ? pm.getClassContextInlineHint() : pm.getClassContext();
                     if (kind == Tree.Kind.VARIABLE || kind == Tree.Kind.METHOD || kind == Tree.Kind.STRING_LITERAL) {
                         activeClassContext = pm.getVarContext();
                     }
 
-                    final String classDataContent = getClassDataContent(fileObject, compilationUnit, activeClassContext);
+                    final String classDataContent = parseResult == null ? ""
+                            : getClassDataContent(fileObject, parseResult.getCompilationUnit(), activeClassContext);
 
                     if (tree == null || kind == Tree.Kind.ERRONEOUS || kind == Tree.Kind.COMPILATION_UNIT) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, hintContext, tree, description);
+                        List<Snippet> sugs = suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, tree, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
-                                resultSet.addItem(createItem(snippet, line, lineTextBeforeCaret, javaToken, kind, doc));
+                                addRanked(resultSet, createItem(snippet, line, lineTextBeforeCaret, javaToken, kind, doc));
                             }
                         }
                     } else if (resultSet != null &&
                             ((trimLeadingSpaces(line).length() > 0
                             && trimLeadingSpaces(line).charAt(0) == '@') || kind == Tree.Kind.ANNOTATION)) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> annotationSuggestions = getGhostwriter()
-                                .suggestAnnotations(classDataContent, updateddoc, line, hintContext, projectInfo, description);
+                        List<Snippet> annotationSuggestions = rank(LANGUAGE_JAVA, cached("annotations:" + description, classDataContent, updateddoc, line,
+                                () -> getGhostwriter().suggestAnnotations(classDataContent, updateddoc, line, hintContext, projectInfo, description)));
                         for (Snippet annotationSuggestion : annotationSuggestions) {
-                            resultSet.addItem(createItem(annotationSuggestion, line, lineTextBeforeCaret, javaToken, kind, doc));
+                            addRanked(resultSet, createItem(annotationSuggestion, line, lineTextBeforeCaret, javaToken, kind, doc));
                         }
                     } else if (kind == Tree.Kind.MODIFIERS
                             || kind == Tree.Kind.IDENTIFIER) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, hintContext, tree, description);;
+                        List<Snippet> sugs = suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, tree, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
-                                resultSet.addItem(createItem(snippet, line, lineTextBeforeCaret, javaToken, kind, doc));
+                                addRanked(resultSet, createItem(snippet, line, lineTextBeforeCaret, javaToken, kind, doc));
                             }
                         }
                     } else if (kind == Tree.Kind.CLASS || kind == Tree.Kind.BLOCK || kind == Tree.Kind.EXPRESSION_STATEMENT) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, hintContext, tree, description);
+                        List<Snippet> sugs = suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, tree, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
                                 JeddictItem var = new JeddictItem(null, null, snippet.getSnippet(), snippet.getDescription(), snippet.getImports(), caretOffset, true, false, -1);
-                                resultSet.addItem(var);
+                                addRanked(resultSet, var);
                             }
                         }
                     } else if (kind == Tree.Kind.VARIABLE && resultSet != null) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
                         String currentVarName = getVariableNameAtCaret(doc, caretOffset);
-                        List<String> sugs = getCodeAdvisor().suggestVariableNames(classDataContent, updateddoc, line);
+                        List<String> sugs = cached("variableNames", classDataContent, updateddoc, line,
+                                () -> getCodeAdvisor().suggestVariableNames(classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             JeddictItem var = new JeddictItem(null, null, snippet, "", Collections.emptyList(), caretOffset - currentVarName.length(), true, false, -1);
                             resultSet.addItem(var);
@@ -600,7 +680,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     } else if (kind == Tree.Kind.METHOD && resultSet != null) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
                         String currentVarName = getVariableNameAtCaret(doc, caretOffset);
-                        List<String> sugs = getCodeAdvisor().suggestMethodNames(classDataContent, updateddoc, line);
+                        List<String> sugs = cached("methodNames", classDataContent, updateddoc, line,
+                                () -> getCodeAdvisor().suggestMethodNames(classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             JeddictItem var = new JeddictItem(null, null, snippet, "", Collections.emptyList(), caretOffset - currentVarName.length(), true, false, -1);
                             resultSet.addItem(var);
@@ -608,7 +689,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     } else if (kind == Tree.Kind.METHOD_INVOCATION && resultSet != null) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
                         String currentVarName = getVariableNameAtCaret(doc, caretOffset);
-                        List<String> sugs = getCodeAdvisor().suggestMethodInvocations(ProjectMetadataInfo.get(project), classDataContent, updateddoc, line);
+                        List<String> sugs = cached("methodInvocations", classDataContent, updateddoc, line,
+                                () -> getCodeAdvisor().suggestMethodInvocations(projectInfo, classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             snippet = snippet.replace("<", "&lt;").replace(">", "&gt;");
                             JeddictItem var = new JeddictItem(null, null, snippet, "", Collections.emptyList(), caretOffset - currentVarName.length(), true, false, -1);
@@ -616,7 +698,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                         }
                     } else if (kind == Tree.Kind.STRING_LITERAL && resultSet != null) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<String> sugs = getCodeAdvisor().suggestStringLiterals(classDataContent, updateddoc, line);
+                        List<String> sugs = cached("stringLiterals", classDataContent, updateddoc, line,
+                                () -> getCodeAdvisor().suggestStringLiterals(classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             resultSet.addItem(createItem(new Snippet(snippet), line, lineTextBeforeCaret, javaToken, kind, doc));
                         }
@@ -624,44 +707,41 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             && parentKind != null
                             && parentKind == Tree.Kind.IF) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, hintContext, tree, description);
+                        List<Snippet> sugs = suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, tree, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
                                 JeddictItem var = new JeddictItem(null, null, snippet.getSnippet(), snippet.getDescription(), snippet.getImports(), caretOffset, true, false, -1);
-                                resultSet.addItem(var);
+                                addRanked(resultSet, var);
                             }
                         }
                     } else if (kind == Tree.Kind.MEMBER_SELECT
                             && parentKind != null
                             && parentKind == Tree.Kind.METHOD_INVOCATION) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGESTION}");
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, hintContext, tree, description);
+                        List<Snippet> sugs = suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, tree, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
                                 JeddictItem var = new JeddictItem(null, null, snippet.getSnippet(), snippet.getDescription(), snippet.getImports(), caretOffset, true, false, -1);
-                                resultSet.addItem(var);
+                                addRanked(resultSet, var);
                             }
                         }
                     } else {
                         LOG.finest(() -> "Skipped : " + kind + " " + tree.getLeaf().toString());
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, hintContext, tree, description);
+                        List<Snippet> sugs = suggestNextLineCode(classDataContent, LANGUAGE_JAVA, updateddoc, line, projectInfo, tree, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
                                 JeddictItem var = new JeddictItem(null, null, snippet.getSnippet(), snippet.getDescription(), snippet.getImports(), caretOffset, true, false, -1);
-                                resultSet.addItem(var);
+                                addRanked(resultSet, var);
                             }
                         }
                     }
@@ -674,7 +754,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     List<String> sugs;
                     if (line.trim().startsWith("//")) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_JAVA_COMMENT}");
-                        sugs = getGhostwriter().suggestJavaComment("", updateddoc, line, projectInfo);
+                        sugs = cached("javaComment", "", updateddoc, line,
+                                () -> getGhostwriter().suggestJavaComment("", updateddoc, line, projectInfo));
                         for (String varName : sugs) {
                             int newcaretOffset = caretOffset;
                             if (varName.startsWith(line.trim())) {
@@ -688,8 +769,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                         }
                     } else {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        sugs = getGhostwriter()
-                                .suggestJavadocOrComment("", updateddoc, line, projectInfo);
+                        sugs = cached("javadocOrComment", "", updateddoc, line,
+                                () -> getGhostwriter().suggestJavadocOrComment("", updateddoc, line, projectInfo));
                         for (String snippet : sugs) {
                             int newcaretOffset = caretOffset;
                             if (snippet.trim().startsWith(line.trim())) {
@@ -714,39 +795,53 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     if (sQLEditorSupport != null) {
                         SQLCompletion sqlCompletion = new SQLCompletion(sQLEditorSupport);
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGESTION}");
-                        final List<Snippet> sugs = getGhostwriter().suggestSQLQueries(updateddoc, sqlCompletion.getMetaData(), description);
+                        final List<Snippet> sugs = cached("sqlQueries:" + description, "", updateddoc, line,
+                                () -> getGhostwriter().suggestSQLQueries(updateddoc, sqlCompletion.getMetaData(), description));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
                                 JeddictItem var = createItem(snippet, line, lineTextBeforeCaret, javaToken, null, doc);
-                                resultSet.addItem(var);
+                                addRanked(resultSet, var);
                             }
                         }
                     } else {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, PLACEHOLDER);
-                        List<Snippet> sugs = getGhostwriter()
-                                .suggestNextLineCode(MIME_TYPE_DESCRIPTIONS.get(mimeType), "", updateddoc, line, projectInfo, hintContext, null, description);
+                        List<Snippet> sugs = suggestNextLineCode(MIME_TYPE_DESCRIPTIONS.get(mimeType), "", updateddoc, line, projectInfo, null, description);
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
                                 break;
                             } else {
                                 JeddictItem var = createItem(snippet, line, lineTextBeforeCaret, javaToken, null, doc);
-                                resultSet.addItem(var);
+                                addRanked(resultSet, var);
                             }
                         }
                     }
                 }
             } catch (Exception e) {
-                Exceptions.printStackTrace(e);
+                if (speculative) {
+                    LOG.finest(() -> "Speculative query failed: " + e.getMessage());
+                } else if (!superseded.getAsBoolean()) {
+                    Exceptions.printStackTrace(e);
+                }
             } finally {
-                resultSet.finish();
+                if (resultSet != null) {
+                    resultSet.finish();
+                }
             }
         }
 
         public void highlightMultiline(JTextComponent component, int caretOffset, Snippet snippet) {
+            if (superseded.getAsBoolean()) {
+                LOG.finest(() -> "Discarding superseded suggestion");
+                return;
+            }
+            if (speculative) {
+                prepared = snippet;
+                return;
+            }
             try {
                 Document doc = component.getDocument();
                 int startOffset = component.getCaretPosition();
@@ -763,16 +858,179 @@ public class JeddictCompletionProvider implements CompletionProvider {
             }
         }
 
-        private JeddictBrain newJeddictBrain() {
-            return new JeddictBrain(pm.getModelName(), false, List.of());
+        private List<Snippet> suggestNextLineCode(
+                String classes, String language, String code, String line,
+                String project, TreePath tree, boolean description) {
+            final String operation = "nextLineCode:" + language + ':' + description + ':'
+                    + (tree == null ? null : tree.getLeaf().getKind())
+                    + ':' + (tree == null || tree.getParentPath() == null ? null : tree.getParentPath().getLeaf().getKind());
+            if (inline && !speculative && pm.isInlineHintStreamingEnabled()) {
+                final List<Snippet> streamed = cached("stream:" + operation, classes, code, line,
+                        () -> streamNextLineCode(classes, language, code, line, project, tree));
+                final List<Snippet> ranked = rank(language, streamed);
+                if (ranked.isEmpty() && streamed != null && !streamed.isEmpty() && !superseded.getAsBoolean()) {
+                    // remove the partial ghost text of the dropped suggestion
+                    getPreTextBag(document, component).clear();
+                }
+                return ranked;
+            }
+            return rank(language, cached(operation, classes, code, line,
+                    () -> getGhostwriter().suggestNextLineCode(classes, language, code, line, project, hintContext, tree, description)));
+        }
+
+        /**
+         * Adds an item keeping the order of the ranked suggestions in the
+         * popup.
+         */
+        private void addRanked(CompletionResultSet resultSet, JeddictItem item) {
+            item.setRank(ranked++);
+            resultSet.addItem(item);
+        }
+
+        /**
+         * Drops the suggestions that are not valid code and orders the others,
+         * see {@link SnippetRanker}.
+         */
+        private List<Snippet> rank(String language, List<Snippet> snippets) {
+            return SnippetRanker.getInstance().rank(snippets, LANGUAGE_JAVA.equals(language),
+                    getLineTextBeforeCaret(document, caretOffset), resourceLookup(document));
+        }
+
+        /**
+         * Requests a single suggestion to the streaming model, painting its
+         * snippet as ghost text while it is generated. The suggestion can be
+         * accepted only once complete, when it is returned and highlighted
+         * like a non streamed one. Once the request is superseded the stream
+         * is cancelled, which closes the HTTP exchange.
+         */
+        private List<Snippet> streamNextLineCode(
+                String classes, String language, String code, String line,
+                String project, TreePath tree) {
+            final StreamingChatModel model;
+            try {
+                model = ChatModelRegistry.getInstance().streamingChatModel(pm.getModelName());
+            } catch (IllegalArgumentException x) {
+                LOG.finest(() -> "Streaming not available, falling back to the chat model: " + x.getMessage());
+                return getGhostwriter().suggestNextLineCode(classes, language, code, line, project, hintContext, tree, false);
+            }
+
+            final List<ChatMessage> messages = getGhostwriter()
+                    .suggestNextLineCodeMessages(classes, language, code, line, project, hintContext, tree);
+            final StreamingSnippetParser parser = new StreamingSnippetParser();
+            final CompletableFuture<ChatResponse> response = new CompletableFuture<>();
+
+            component.getDocument().putProperty(HIGHLIGHTED_TEXT_KEY, null);
+            model.chat(messages, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(PartialResponse partial, PartialResponseContext context) {
+                    //
+                    // A stale stream is closed through its handle, which is
+                    // only handed out with the tokens: a request superseded
+                    // before the first token is closed when that arrives
+                    //
+                    if (!append(partial.text())) {
+                        context.streamingHandle().cancel();
+                    }
+                }
+
+                @Override
+                public void onPartialResponse(String partial) {
+                    // called instead by the models that can not be cancelled
+                    append(partial);
+                }
+
+                /**
+                 * @return false if the request has been superseded
+                 */
+                private boolean append(String partial) {
+                    if (response.isCancelled() || superseded.getAsBoolean()) {
+                        response.cancel(false);
+                        return false;
+                    }
+                    if (!response.isDone() && parser.append(partial)) {
+                        highlightPartial(parser.getSnippet());
+                    }
+                    return true;
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completed) {
+                    response.complete(completed);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    response.completeExceptionally(error);
+                }
+            });
+
+            try {
+                return JSONUtil.jsonToSnippets(response.get().aiMessage().text());
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                response.cancel(false);
+                return Collections.emptyList();
+            } catch (CancellationException x) {
+                return Collections.emptyList();
+            } catch (ExecutionException x) {
+                throw (x.getCause() instanceof RuntimeException rx) ? rx : new RuntimeException(x.getCause());
+            }
+        }
+
+        /**
+         * Paints the partial snippet of a streaming suggestion. Unlike
+         * {@link #highlightMultiline} it does not make it acceptable with
+         * Enter and does not clear the bag first, to avoid flickering.
+         */
+        private void highlightPartial(String text) {
+            if (superseded.getAsBoolean()) {
+                return;
+            }
+            try {
+                Document doc = component.getDocument();
+                int startOffset = component.getCaretPosition();
+                OffsetsBag preTextBag = new OffsetsBag(doc);
+                preTextBag.addHighlight(startOffset, startOffset + 1,
+                        AttributesUtilities.createImmutable("virtual-text-prepend", text));
+                getPreTextBag(doc, component).setHighlights(preTextBag);
+            } catch (Exception e) {
+                LOG.finest(() -> "Unable to paint partial suggestion: " + e.getMessage());
+            }
+        }
+
+        private <T> List<T> cached(String operation, String classes, String code, String line, Supplier<List<T>> loader) {
+            return SuggestionCache.getInstance().get(operation, pm.getProvider(), pm.getModelName(), classes, code, line, hintContext, loader);
+        }
+
+        /**
+         * @return tells if a resource is on the boot, compile or source
+         * classpath of the file of the given document, null if the file has no
+         * classpath
+         */
+        private Predicate<String> resourceLookup(Document doc) {
+            final FileObject fileObject = getFileObjectFromEditor(doc);
+            if (fileObject == null) {
+                return null;
+            }
+            final List<ClassPath> classPaths = new ArrayList<>(3);
+            for (String type : new String[] { ClassPath.BOOT, ClassPath.COMPILE, ClassPath.SOURCE }) {
+                final ClassPath classPath = ClassPath.getClassPath(fileObject, type);
+                if (classPath != null) {
+                    classPaths.add(classPath);
+                }
+            }
+            if (classPaths.isEmpty()) {
+                return null;
+            }
+            return resource -> classPaths.stream().anyMatch(classPath -> classPath.findResource(resource) != null);
         }
 
         private Ghostwriter getGhostwriter() {
-            return newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.GHOSTWRITER);
+            return ChatModelRegistry.getInstance().pairProgrammer(pm.getModelName(), PairProgrammer.Specialist.GHOSTWRITER);
         }
 
         private CodeAdvisor getCodeAdvisor() {
-            return newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.ADVISOR);
+            return ChatModelRegistry.getInstance().pairProgrammer(pm.getModelName(), PairProgrammer.Specialist.ADVISOR);
         }
 
         private static boolean isJavaIdentifierPart(String text, boolean allowForDor) {
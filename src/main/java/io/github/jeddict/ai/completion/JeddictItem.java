@@ -58,6 +58,7 @@ public class JeddictItem extends JavaCompletionItem {
     private int assignToVarOffset;
     private CharSequence assignToVarText;
     int caretToEndLength;
+    private int rank;
 
     public JeddictItem(CompilationInfo info, TypeMirror type, String varName, String description, List<String> imports, int substitutionOffset, int caretToEndLength, boolean newVarName, boolean smartType, int assignToVarOffset) {
         super(substitutionOffset);
@@ -88,6 +89,7 @@ public class JeddictItem extends JavaCompletionItem {
     @Override
     public void defaultAction(JTextComponent component) {
         super.defaultAction(component);
+        SnippetRanker.getInstance().accepted(varName);
         try {
             int startPos = substitutionOffset;
             int lengthToReplace = varName.length();
@@ -125,9 +127,17 @@ public class JeddictItem extends JavaCompletionItem {
         }
     }
 
+    /**
+     * @param rank the position of the item among the ranked suggestions,
+     * lower ranks are listed first
+     */
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
     @Override
     public int getSortPriority() {
-        return smartType ? 200 - SMART_TYPE : 200;
+        return (smartType ? 200 - SMART_TYPE : 200) + rank;
     }
 
     @Override
@@ -0,0 +1,300 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Providers;
+import io.github.jeddict.ai.lang.Snippet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local ranking of the completion snippets returned by the model.
+ * <p>
+ * Java candidates that do not parse, neither on their own nor appended to the
+ * text before the caret, are dropped. The remaining ones are ordered by a
+ * score made of the share of their imports found on the classpath, how well
+ * they match the line typed so far and how often snippets starting the same
+ * way have been accepted; ties keep the model order.
+ */
+public class SnippetRanker {
+
+    private static final Logger LOG = Logger.getLogger(SnippetRanker.class.getName());
+
+    private static final int MAX_HISTORY = 256;
+
+    private static final double IMPORTS_WEIGHT = 2, MAX_HISTORY_SCORE = 2;
+
+    private static final Pattern HEAD = Pattern.compile("^@?[\\w$]+(?:\\.[\\w$]+)?");
+
+    private static final Pattern TRAILING_IDENTIFIER = Pattern.compile("[\\w$]+$");
+
+    private record Candidate(Snippet snippet, int index, double score) {}
+
+    private final Map<String, Integer> accepted = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_HISTORY;
+        }
+    };
+
+    private static volatile SnippetRanker instance;
+
+    SnippetRanker() {
+    }
+
+    public static SnippetRanker getInstance() {
+        if (instance == null) {
+            synchronized (SnippetRanker.class) {
+                if (instance == null) {
+                    instance = new SnippetRanker();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param snippets the candidates in model order
+     * @param java true if the candidates are java code that must parse
+     * @param linePrefix the text of the caret line before the caret
+     * @param resourceExists tells if a classpath resource (e.g.
+     * <code>java/util/List.class</code>) exists, null if the classpath is
+     * unknown
+     *
+     * @return the candidates worth showing, best first
+     */
+    public List<Snippet> rank(
+        final List<Snippet> snippets, final boolean java,
+        final String linePrefix, final Predicate<String> resourceExists
+    ) {
+        if (snippets == null || snippets.isEmpty()) {
+            return List.of();
+        }
+        final JavaParser parser = java ? new JavaParser(new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21)) : null;
+        final List<Candidate> candidates = new ArrayList<>(snippets.size());
+        for (int i = 0; i < snippets.size(); ++i) {
+            final Snippet snippet = snippets.get(i);
+            final String code = snippet.getSnippet();
+            if (code == null || code.isBlank()) {
+                continue;
+            }
+            if (parser != null && !parses(parser, code, linePrefix)) {
+                LOG.finest(() -> "Dropping snippet not parsing: " + code);
+                continue;
+            }
+            final double score = IMPORTS_WEIGHT * importScore(snippet.getImports(), resourceExists)
+                    + prefixScore(code, linePrefix) + historyScore(code);
+            candidates.add(new Candidate(snippet, i, score));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed().thenComparingInt(Candidate::index));
+
+        final List<Snippet> ranked = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            ranked.add(candidate.snippet());
+        }
+        return ranked;
+    }
+
+    /**
+     * Records that the user accepted the given snippet.
+     *
+     * @param snippet the accepted code
+     */
+    public synchronized void accepted(final String snippet) {
+        final String head = head(snippet);
+        if (head != null) {
+            accepted.merge(head, 1, Integer::sum);
+        }
+    }
+
+    synchronized double historyScore(final String snippet) {
+        final String head = head(snippet);
+        final Integer count = (head == null) ? null : accepted.get(head);
+        return (count == null) ? 0 : Math.min(MAX_HISTORY_SCORE, Math.log1p(count) / Math.log(2));
+    }
+
+    /**
+     * @return the leading identifier of the given code, qualified by at most
+     * one more segment (e.g. <code>System.out</code> or <code>@Override</code>)
+     */
+    static String head(final String snippet) {
+        if (snippet == null) {
+            return null;
+        }
+        final Matcher matcher = HEAD.matcher(snippet.strip());
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    /**
+     * @return 3 if the snippet repeats the line typed so far, 2 if it starts
+     * with the identifier being typed, 1 if it does ignoring the case, 0
+     * otherwise
+     */
+    static double prefixScore(final String snippet, final String linePrefix) {
+        final String line = (linePrefix == null) ? "" : linePrefix.strip();
+        if (line.isEmpty()) {
+            return 0;
+        }
+        final String code = snippet.strip();
+        if (code.startsWith(line)) {
+            return 3;
+        }
+        final Matcher matcher = TRAILING_IDENTIFIER.matcher(line);
+        if (!matcher.find()) {
+            return 0;
+        }
+        final String identifier = matcher.group();
+        if (code.startsWith(identifier)) {
+            return 2;
+        }
+        return code.regionMatches(true, 0, identifier, 0, identifier.length()) ? 1 : 0;
+    }
+
+    /**
+     * @return the share of the given imports found on the classpath, 1 if
+     * there are none or the classpath is unknown
+     */
+    static double importScore(final List<String> imports, final Predicate<String> resourceExists) {
+        if (imports == null || imports.isEmpty() || resourceExists == null) {
+            return 1;
+        }
+        int resolved = 0;
+        for (String i : imports) {
+            if (resolves(i, resourceExists)) {
+                ++resolved;
+            }
+        }
+        return (double) resolved / imports.size();
+    }
+
+    /**
+     * Looks up the type of a single type, static or on demand import, trying
+     * the enclosing names for nested types and static members.
+     */
+    static boolean resolves(final String declaration, final Predicate<String> resourceExists) {
+        String name = declaration.strip();
+        if (name.startsWith("import ")) {
+            name = name.substring(7).strip();
+        }
+        if (name.startsWith("static ")) {
+            name = name.substring(7).strip();
+        }
+        if (name.endsWith(";")) {
+            name = name.substring(0, name.length() - 1).strip();
+        }
+        if (name.isEmpty()) {
+            return false;
+        }
+        if (name.endsWith(".*")) {
+            final String path = name.substring(0, name.length() - 2).replace('.', '/');
+            return resourceExists.test(path) || resourceExists.test(path + ".class") || resourceExists.test(path + ".java");
+        }
+        for (String path = name.replace('.', '/'); path.indexOf('/') > 0; path = path.substring(0, path.lastIndexOf('/'))) {
+            if (resourceExists.test(path + ".class") || resourceExists.test(path + ".java")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells if the given code parses as class members, statements, switch
+     * cases, the continuation of an if or try statement, an expression or
+     * declarations of a compilation unit, on its own or after the
+     * text before the caret. Brackets left open, or closed without being
+     * opened, are balanced first since a suggestion may start or end a block.
+     */
+    static boolean parses(final JavaParser parser, final String code, final String linePrefix) {
+        final String line = (linePrefix == null) ? "" : linePrefix.strip();
+        if (parsesBalanced(parser, balance(code))) {
+            return true;
+        }
+        return !line.isEmpty() && !code.strip().startsWith(line) && parsesBalanced(parser, balance(line + code));
+    }
+
+    private static boolean parsesBalanced(final JavaParser parser, final String code) {
+        return parser.parse(ParseStart.COMPILATION_UNIT, Providers.provider("class $ {\n" + code + "\n}")).isSuccessful()
+            || parser.parse(ParseStart.BLOCK, Providers.provider("{\n" + code + "\n}")).isSuccessful()
+            || parser.parse(ParseStart.EXPRESSION, Providers.provider(code)).isSuccessful()
+            || parser.parse(ParseStart.COMPILATION_UNIT, Providers.provider(code + "\nclass $ {}")).isSuccessful()
+            || parser.parse(ParseStart.BLOCK, Providers.provider("{\nswitch ($) {\n" + code + "\n}\n}")).isSuccessful()
+            || parser.parse(ParseStart.BLOCK, Providers.provider("{\nif ($) {}\n" + code + "\n}")).isSuccessful()
+            || parser.parse(ParseStart.BLOCK, Providers.provider("{\nif ($) " + code + "\n}")).isSuccessful()
+            || parser.parse(ParseStart.BLOCK, Providers.provider("{\ntry " + code + "\n}")).isSuccessful();
+    }
+
+    /**
+     * @return the given code with the brackets it leaves open closed and the
+     * ones it closes without opening opened, strings, characters and comments
+     * aside
+     */
+    static String balance(final String code) {
+        final Deque<Character> open = new ArrayDeque<>();
+        final StringBuilder openers = new StringBuilder();
+        for (int i = 0; i < code.length(); ++i) {
+            final char c = code.charAt(i);
+            if (c == '"' || c == '\'') {
+                for (++i; i < code.length() && code.charAt(i) != c && code.charAt(i) != '\n'; ++i) {
+                    if (code.charAt(i) == '\\') {
+                        ++i;
+                    }
+                }
+            } else if (c == '/' && i + 1 < code.length() && code.charAt(i + 1) == '/') {
+                i = code.indexOf('\n', i);
+                if (i < 0) {
+                    break;
+                }
+            } else if (c == '/' && i + 1 < code.length() && code.charAt(i + 1) == '*') {
+                i = code.indexOf("*/", i + 2);
+                if (i < 0) {
+                    break;
+                }
+                ++i;
+            } else if (c == '(' || c == '[' || c == '{') {
+                open.push(c);
+            } else if (c == ')' || c == ']' || c == '}') {
+                final char opener = (c == ')') ? '(' : (c == ']') ? '[' : '{';
+                if (open.isEmpty()) {
+                    openers.insert(0, opener);
+                } else if (open.peek() == opener) {
+                    open.pop();
+                }
+            }
+        }
+        if (openers.isEmpty() && open.isEmpty()) {
+            return code;
+        }
+        final StringBuilder balanced = new StringBuilder(openers).append(code).append('\n');
+        while (!open.isEmpty()) {
+            final char opener = open.pop();
+            balanced.append((opener == '(') ? ')' : (opener == '[') ? ']' : '}');
+        }
+        return balanced.toString();
+    }
+}
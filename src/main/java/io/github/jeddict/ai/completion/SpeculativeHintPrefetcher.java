@@ -0,0 +1,330 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import io.github.jeddict.ai.lang.Snippet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import org.netbeans.api.lexer.Language;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Speculative inline hint requests.
+ * <p>
+ * When the caret line looks complete, i.e. the caret is at its end and the
+ * line ends with <code>;</code>, <code>{</code> or <code>}</code>, the next
+ * line suggestion is requested on a low priority thread against a copy of the
+ * document where Enter has already been pressed. If Enter is then pressed on
+ * the very same content, the prepared suggestion is taken over instead of
+ * starting a new request; if it is still in flight it is awaited.
+ * <p>
+ * Any other edit discards the speculation. A discarded speculation that
+ * already reached the provider is a wasted call: at most the given budget of
+ * wasted calls is allowed per minute, beyond that no speculation is started
+ * until the older ones leave the window.
+ */
+public class SpeculativeHintPrefetcher {
+
+    private static final Logger LOG = Logger.getLogger(SpeculativeHintPrefetcher.class.getName());
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String INDENT = "    ";
+
+    /**
+     * A speculative inline hint request.
+     */
+    @FunctionalInterface
+    public interface Prefetch {
+
+        /**
+         * @param doc a copy of the document with Enter pressed at the end of
+         * the caret line
+         * @param caretOffset the caret offset in the copy
+         * @param discarded tells if the speculation has been discarded
+         *
+         * @return the suggestion or null if none
+         *
+         * @throws Exception in case of errors
+         */
+        Snippet run(Document doc, int caretOffset, BooleanSupplier discarded) throws Exception;
+    }
+
+    /**
+     * Counters of the speculative requests.
+     *
+     * @param started the number of requests sent to the provider
+     * @param used the number of speculations taken over by an Enter
+     * @param wasted the number of started speculations discarded
+     * @param skipped the number of speculations not started because the budget
+     * was used up
+     */
+    public record Stats(long started, long used, long wasted, long skipped) {}
+
+    private static final class Speculation {
+
+        private final Document doc;
+        private final String text;
+        private final int offset;
+        private final CompletableFuture<Snippet> result = new CompletableFuture<>();
+        private volatile boolean started;
+        private volatile boolean discarded;
+        private RequestProcessor.Task task;
+
+        private Speculation(Document doc, String text, int offset) {
+            this.doc = doc;
+            this.text = text;
+            this.offset = offset;
+        }
+    }
+
+    private final RequestProcessor processor = new RequestProcessor(SpeculativeHintPrefetcher.class.getName(), 1, true);
+
+    private final Deque<Long> wastedAt = new ArrayDeque<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong wasted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private Speculation current;
+
+    /**
+     * Discards the current speculation and, if the caret line looks complete
+     * and the budget allows it, starts a new one after the given delay.
+     *
+     * @param doc the document
+     * @param caretOffset the caret offset
+     * @param delayMillis the time in milliseconds the typing must pause
+     * @param budget the maximum number of wasted speculations per minute
+     * @param prefetch the request to run
+     *
+     * @return true if a speculation has been scheduled
+     */
+    public synchronized boolean speculate(
+        final Document doc, final int caretOffset, final int delayMillis,
+        final int budget, final Prefetch prefetch
+    ) {
+        discard();
+
+        final String text;
+        try {
+            text = doc.getText(0, doc.getLength());
+        } catch (BadLocationException x) {
+            return false;
+        }
+        if (!isLineComplete(text, caretOffset)) {
+            return false;
+        }
+        if (wastedInLastMinute(System.currentTimeMillis()) >= budget) {
+            skipped.incrementAndGet();
+            LOG.finest(() -> "Speculation budget of " + budget + " per minute used up");
+            return false;
+        }
+
+        final Speculation speculation = new Speculation(doc, text, caretOffset);
+        final BooleanSupplier discarded = () -> speculation.discarded || speculation.result.isCancelled()
+                || Thread.currentThread().isInterrupted();
+        speculation.task = processor.post(() -> {
+            speculation.started = true;
+            started.incrementAndGet();
+            try {
+                final String enter = enter(text, caretOffset);
+                speculation.result.complete(prefetch.run(
+                    copy(doc, text.substring(0, caretOffset) + enter + text.substring(caretOffset)),
+                    caretOffset + enter.length(), discarded
+                ));
+            } catch (InterruptedException x) {
+                LOG.finest("Speculative inline hint request interrupted");
+            } catch (Exception x) {
+                LOG.log(discarded.getAsBoolean() ? Level.FINEST : Level.FINE, "Speculative inline hint request failed", x);
+            } finally {
+                speculation.result.complete(null);
+                LOG.fine(() -> String.valueOf(getStats()));
+            }
+        }, Math.max(0, delayMillis), Thread.MIN_PRIORITY);
+        current = speculation;
+        return true;
+    }
+
+    /**
+     * Takes over the speculation if the given document is the speculated one
+     * after Enter was pressed at the end of the caret line, discards it
+     * otherwise. A speculation still waiting for the typing to pause is
+     * dropped as well, a regular request being as fast.
+     *
+     * @param doc the document
+     * @param caretOffset the caret offset after Enter
+     *
+     * @return the suggestion, possibly still in flight, or null if there is no
+     * matching speculation
+     */
+    public synchronized CompletableFuture<Snippet> take(final Document doc, final int caretOffset) {
+        final Speculation speculation = current;
+        if (speculation == null) {
+            return null;
+        }
+        if (!speculation.started || speculation.doc != doc || !matches(doc, speculation, caretOffset)) {
+            discard();
+            return null;
+        }
+        current = null;
+        used.incrementAndGet();
+        return speculation.result;
+    }
+
+    /**
+     * Discards the current speculation, if any.
+     */
+    public synchronized void cancel() {
+        discard();
+    }
+
+    public Stats getStats() {
+        return new Stats(started.get(), used.get(), wasted.get(), skipped.get());
+    }
+
+    private void discard() {
+        if (current == null) {
+            return;
+        }
+        current.discarded = true;
+        current.task.cancel();
+        if (current.started) {
+            wasted.incrementAndGet();
+            wastedAt.addLast(System.currentTimeMillis());
+        }
+        current = null;
+    }
+
+    private int wastedInLastMinute(final long now) {
+        while (!wastedAt.isEmpty() && wastedAt.peekFirst() <= now - WINDOW_MILLIS) {
+            wastedAt.removeFirst();
+        }
+        return wastedAt.size();
+    }
+
+    private static boolean matches(final Document doc, final Speculation speculation, final int caretOffset) {
+        try {
+            return matches(speculation.text, speculation.offset, doc.getText(0, doc.getLength()), caretOffset);
+        } catch (BadLocationException x) {
+            return false;
+        }
+    }
+
+    /**
+     * @param text the document text
+     * @param offset the caret offset
+     *
+     * @return true if the caret is at the end of a line ending with
+     * <code>;</code>, <code>{</code> or <code>}</code>
+     */
+    static boolean isLineComplete(final String text, final int offset) {
+        if (offset <= 0 || offset > text.length()) {
+            return false;
+        }
+        for (int i = offset; i < text.length() && text.charAt(i) != '\n'; ++i) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        final String line = text.substring(text.lastIndexOf('\n', offset - 1) + 1, offset).strip();
+        if (line.isEmpty() || line.startsWith("//") || line.startsWith("*")) {
+            return false;
+        }
+        final char last = line.charAt(line.length() - 1);
+        return last == ';' || last == '{' || last == '}';
+    }
+
+    /**
+     * @param text the document text
+     * @param offset the caret offset at the end of a line
+     *
+     * @return the text inserted by Enter: a new line indented like the caret
+     * line, one level deeper after an opening brace
+     */
+    static String enter(final String text, final int offset) {
+        final int start = text.lastIndexOf('\n', offset - 1) + 1;
+        int end = start;
+        while (end < offset && (text.charAt(end) == ' ' || text.charAt(end) == '\t')) {
+            ++end;
+        }
+        final String indent = text.substring(start, end);
+        return '\n' + (text.substring(end, offset).stripTrailing().endsWith("{") ? indent + INDENT : indent);
+    }
+
+    /**
+     * Tells if the current text is the speculated one after Enter: the text
+     * before the speculated offset is unchanged, the caret moved to a new line
+     * and the text after it differs only by leading whitespace.
+     *
+     * @param speculated the speculated text
+     * @param offset the speculated caret offset
+     * @param current the current text
+     * @param caretOffset the current caret offset
+     *
+     * @return true if the texts match
+     */
+    static boolean matches(final String speculated, final int offset, final String current, final int caretOffset) {
+        if (caretOffset <= offset || caretOffset > current.length()
+                || !current.regionMatches(0, speculated, 0, offset)) {
+            return false;
+        }
+        int newLines = 0;
+        for (int i = offset; i < caretOffset; ++i) {
+            final char c = current.charAt(i);
+            if (c == '\n') {
+                ++newLines;
+            } else if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        final int i = skipWhitespace(speculated, offset), j = skipWhitespace(current, caretOffset);
+        return newLines == 1 && speculated.length() - i == current.length() - j
+                && current.regionMatches(j, speculated, i, speculated.length() - i);
+    }
+
+    private static int skipWhitespace(final String text, int offset) {
+        while (offset < text.length() && Character.isWhitespace(text.charAt(offset))) {
+            ++offset;
+        }
+        return offset;
+    }
+
+    /**
+     * @return a detached document with the given text and the properties the
+     * completion queries read from the original one
+     */
+    private static Document copy(final Document doc, final String text) throws BadLocationException {
+        final PlainDocument copy = new PlainDocument();
+        copy.insertString(0, text, null);
+        for (Object key : new Object[] { "mimeType", Document.StreamDescriptionProperty, Language.class }) {
+            final Object value = doc.getProperty(key);
+            if (value != null) {
+                copy.putProperty(key, value);
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+/**
+ * Incremental extractor of the first <code>"snippet"</code> value of a JSON
+ * suggestion while the model response is still streaming.
+ * <p>
+ * Chunks are appended as they arrive; the decoded snippet text grows as soon
+ * as its characters are received, regardless of code fences or of the fields
+ * preceding it. Escape sequences split across chunks are held back until
+ * complete. The full response is still parsed with
+ * {@link io.github.jeddict.ai.util.JSONUtil} once the stream is completed.
+ */
+public class StreamingSnippetParser {
+
+    private static final String KEY = "\"snippet\"";
+
+    private enum State { KEY, COLON, VALUE, STRING, DONE }
+
+    private final StringBuilder raw = new StringBuilder();
+    private final StringBuilder snippet = new StringBuilder();
+
+    private State state = State.KEY;
+    private int position;
+
+    /**
+     * Appends a chunk of the response.
+     *
+     * @param chunk the partial response
+     * @return true if the snippet text changed
+     */
+    public boolean append(final CharSequence chunk) {
+        if (chunk == null || chunk.length() == 0 || state == State.DONE) {
+            return false;
+        }
+        raw.append(chunk);
+
+        final int length = snippet.length();
+        while (position < raw.length() && state != State.DONE) {
+            switch (state) {
+                case KEY -> {
+                    final int index = raw.indexOf(KEY, position);
+                    if (index < 0) {
+                        // keep a possibly truncated key for the next chunk
+                        position = Math.max(position, raw.length() - KEY.length() + 1);
+                        return false;
+                    }
+                    position = index + KEY.length();
+                    state = State.COLON;
+                }
+                case COLON -> {
+                    final char c = raw.charAt(position);
+                    if (!Character.isWhitespace(c)) {
+                        // "snippet" was a value, not a key
+                        state = (c == ':') ? State.VALUE : State.KEY;
+                    }
+                    ++position;
+                }
+                case VALUE -> {
+                    final char c = raw.charAt(position);
+                    if (!Character.isWhitespace(c)) {
+                        state = (c == '"') ? State.STRING : State.KEY;
+                    }
+                    ++position;
+                }
+                case STRING -> {
+                    if (!decode()) {
+                        return snippet.length() != length;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        return snippet.length() != length;
+    }
+
+    /**
+     * @return the snippet text received so far
+     */
+    public String getSnippet() {
+        return snippet.toString();
+    }
+
+    /**
+     * @return true once the closing quote of the snippet has been received
+     */
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    /**
+     * Decodes the character at the current position.
+     *
+     * @return false if more input is needed to decode an escape sequence
+     */
+    private boolean decode() {
+        final char c = raw.charAt(position);
+        if (c == '"') {
+            state = State.DONE;
+            ++position;
+            return true;
+        }
+        if (c != '\\') {
+            snippet.append(c);
+            ++position;
+            return true;
+        }
+        if (position + 1 >= raw.length()) {
+            return false;
+        }
+        final char escaped = raw.charAt(position + 1);
+        switch (escaped) {
+            case 'n' -> snippet.append('\n');
+            case 't' -> snippet.append('\t');
+            case 'r' -> snippet.append('\r');
+            case 'b' -> snippet.append('\b');
+            case 'f' -> snippet.append('\f');
+            case 'u' -> {
+                if (position + 6 > raw.length()) {
+                    return false;
+                }
+                try {
+                    snippet.append((char) Integer.parseInt(raw.substring(position + 2, position + 6), 16));
+                } catch (NumberFormatException x) {
+                    snippet.append(raw, position, position + 6);
+                }
+                position += 6;
+                return true;
+            }
+            default -> snippet.append(escaped);
+        }
+        position += 2;
+        return true;
+    }
+}
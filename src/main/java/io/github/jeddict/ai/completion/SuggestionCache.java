@@ -0,0 +1,256 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import io.github.jeddict.ai.lang.Snippet;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * LRU/TTL cache of completion suggestions.
+ * <p>
+ * Suggestions are keyed by a hash of the normalized prompt inputs: the code
+ * around the <code>${SUGGESTION}</code> placeholder, the current line, the
+ * class context, the hint, the provider and the model. Pressing Enter twice at the same spot
+ * or undoing and redoing an edit therefore returns the previous suggestions
+ * without a provider round trip. The cache is bounded both in number of
+ * entries and in retained characters; limits are read from
+ * {@link PreferencesManager} whenever the settings change.
+ */
+public class SuggestionCache {
+
+    private static final Logger LOG = Logger.getLogger(SuggestionCache.class.getName());
+
+    private static final String PLACEHOLDER = "${SUGGESTION}";
+
+    /**
+     * Characters of code before and after the placeholder that take part in
+     * the key; edits farther away do not invalidate the cached suggestions.
+     */
+    private static final int CONTEXT_BEFORE = 2048, CONTEXT_AFTER = 1024;
+
+    public record Stats(long hits, long misses, long evictions, int size, long retainedChars) {
+
+        public double hitRate() {
+            final long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Entry(List<?> value, long weight, long expiresAt) {}
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private int maxEntries;
+    private long ttlMillis;
+    private long maxChars;
+
+    private long retainedChars, hits, misses, evictions;
+
+    private static SuggestionCache instance;
+    private static long revision = Long.MIN_VALUE;
+
+    public SuggestionCache(int maxEntries, long ttlMillis, long maxChars) {
+        configure(maxEntries, ttlMillis, maxChars);
+    }
+
+    public static SuggestionCache getInstance() {
+        final PreferencesManager pm = PreferencesManager.getInstance();
+        synchronized (SuggestionCache.class) {
+            if (instance == null) {
+                instance = new SuggestionCache(pm.getSuggestionCacheSize(),
+                        pm.getSuggestionCacheTtl() * 1000L, pm.getSuggestionCacheMaxChars());
+                revision = pm.getRevision();
+            } else if (revision != pm.getRevision()) {
+                instance.configure(pm.getSuggestionCacheSize(),
+                        pm.getSuggestionCacheTtl() * 1000L, pm.getSuggestionCacheMaxChars());
+                revision = pm.getRevision();
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Updates the cache limits evicting the entries exceeding them. A
+     * non-positive number of entries disables the cache.
+     *
+     * @param maxEntries the maximum number of entries
+     * @param ttlMillis the time to live of an entry in milliseconds
+     * @param maxChars the maximum number of characters retained
+     */
+    public final synchronized void configure(int maxEntries, long ttlMillis, long maxChars) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.maxChars = maxChars;
+        evict();
+    }
+
+    /**
+     * Returns the cached suggestions for the given inputs, calling the loader
+     * on a miss. Empty results are not cached so that a failed or empty
+     * answer is retried next time.
+     *
+     * @param <T> the type of the suggestions
+     * @param operation the kind of suggestion (e.g. the agent method)
+     * @param provider the provider serving the model
+     * @param model the model name
+     * @param classes the class context
+     * @param code the code with the placeholder
+     * @param line the current line
+     * @param hint the hint, if any
+     * @param loader the function requesting the suggestions to the provider
+     *
+     * @return the suggestions
+     */
+    public <T> List<T> get(
+        final String operation, final GenAIProvider provider, final String model, final String classes,
+        final String code, final String line, final String hint,
+        final Supplier<List<T>> loader
+    ) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+        final String key = key(operation, provider, model, classes, code, line, hint);
+
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                ++hits;
+                LOG.finest(() -> "Suggestion cache hit for " + operation);
+                return (List<T>) entry.value;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            ++misses;
+        }
+
+        final List<T> value = loader.get();
+        if (value != null && !value.isEmpty()) {
+            put(key, List.copyOf(value));
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        retainedChars = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size(), retainedChars);
+    }
+
+    private synchronized void put(final String key, final List<?> value) {
+        final Entry previous = entries.put(key, new Entry(value, weight(value), System.currentTimeMillis() + ttlMillis));
+        if (previous != null) {
+            retainedChars -= previous.weight;
+        }
+        retainedChars += weight(value);
+        evict();
+    }
+
+    private void remove(final String key) {
+        final Entry removed = entries.remove(key);
+        if (removed != null) {
+            retainedChars -= removed.weight;
+        }
+    }
+
+    private void evict() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && (entries.size() > Math.max(0, maxEntries) || retainedChars > maxChars)) {
+            final Entry entry = it.next().getValue();
+            it.remove();
+            retainedChars -= entry.weight;
+            ++evictions;
+        }
+        entries.values().removeIf(entry -> {
+            if (entry.expiresAt <= now) {
+                retainedChars -= entry.weight;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static long weight(final List<?> value) {
+        long weight = 0;
+        for (Object o : value) {
+            if (o instanceof Snippet snippet) {
+                weight += length(snippet.getSnippet()) + length(snippet.getDescription());
+                if (snippet.getImports() != null) {
+                    for (String i : snippet.getImports()) {
+                        weight += length(i);
+                    }
+                }
+            } else {
+                weight += length(String.valueOf(o));
+            }
+        }
+        return weight;
+    }
+
+    private static int length(final String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    static String key(
+        final String operation, final GenAIProvider provider, final String model, final String classes,
+        final String code, final String line, final String hint
+    ) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[] { operation, String.valueOf(provider), model, classes, window(code), normalize(line), normalize(hint) }) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    /**
+     * Keeps the code surrounding the placeholder with whitespace collapsed.
+     */
+    static String window(final String code) {
+        if (code == null) {
+            return null;
+        }
+        int index = code.indexOf(PLACEHOLDER);
+        if (index < 0) {
+            return normalize(code);
+        }
+        return normalize(code.substring(Math.max(0, index - CONTEXT_BEFORE),
+                Math.min(code.length(), index + PLACEHOLDER.length() + CONTEXT_AFTER)));
+    }
+
+    static String normalize(final String text) {
+        return text == null ? null : text.strip().replaceAll("\\s+", " ");
+    }
+}
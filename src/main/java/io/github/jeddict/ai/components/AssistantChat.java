@@ -73,19 +73,23 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -140,12 +144,40 @@ public abstract class AssistantChat extends TopComponent {
     public static final ImageIcon logoIcon = new ImageIcon(AssistantChat.class.getResource("/icons/logo28.png"));
 
     private static final String QUESTION_KEY = "QUESTION";
+
+    /**
+     * Client property holding the block shown by a pane
+     */
+    private static final String BLOCK_KEY = "block";
+
+    /**
+     * Released code panes kept for reuse, per mime type
+     */
+    private static final int MAX_POOLED_PANES = 4;
     private final JPanel parentPanel;
+    private final TranscriptVirtualizer virtualizer;
     private Project project;
 
-    private final Map<JEditorPane, JPopupMenu> menus = new HashMap<>();
-    private final Map<JEditorPane, List<JMenuItem>> menuItems = new HashMap<>();
-    private final Map<JEditorPane, List<JMenuItem>> submenuItems = new HashMap<>();
+    //
+    // context menus and code blocks are kept by block, since the panes
+    // showing them come and go with the virtualized transcript
+    //
+    private final Map<Block, JPopupMenu> menus = new HashMap<>();
+    private final Map<Block, List<JMenuItem>> menuItems = new HashMap<>();
+    private final Map<Block, List<JMenuItem>> submenuItems = new HashMap<>();
+    private final Map<Block, String> codeBlocks = new HashMap<>();
+    private final Map<String, Deque<JEditorPane>> codePanes = new HashMap<>();
+    private final MouseListener contextMenuTrigger = new MouseAdapter() {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            showContextMenu(e);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            showContextMenu(e);
+        }
+    };
     private String type = "java";
     private static final PreferencesManager pm = PreferencesManager.getInstance();
 
@@ -176,6 +208,7 @@ public abstract class AssistantChat extends TopComponent {
         }
         parentPanel = new JPanel();
         parentPanel.setLayout(new BoxLayout(parentPanel, BoxLayout.Y_AXIS));
+        virtualizer = new TranscriptVirtualizer(parentPanel);
         add(parentPanel, BorderLayout.CENTER);
     }
     
@@ -588,6 +621,9 @@ public abstract class AssistantChat extends TopComponent {
     public void clear() {
         parentPanel.removeAll();
         menus.clear();
+        menuItems.clear();
+        submenuItems.clear();
+        codeBlocks.clear();
     }
 
     public void updateUserPaneButtons(boolean iconOnly) {
@@ -794,12 +830,47 @@ public abstract class AssistantChat extends TopComponent {
         return editorPane;
     }
 
-    public JEditorPane createCodePane(String mimeType, Block content) {
+    public JComponent createCodePane(String mimeType, Block content) {
         if (mimeType == null || mimeType.isBlank()) {
             mimeType = MIME_PLAIN_TEXT;
         }
+        final String codeType = mimeType;
+        codeBlocks.put(content, codeType);
+        return addBlockSlot(content, block -> acquireCodePane(codeType, block), pane -> releaseCodePane(codeType, pane));
+    }
+
+    /**
+     * @return a code pane showing the given block, taken from the pool if
+     * one has been released
+     */
+    private JEditorPane acquireCodePane(String mimeType, Block block) {
+        Deque<JEditorPane> pool = codePanes.get(mimeType);
+        JEditorPane editorPane = (pool == null) ? null : pool.poll();
+        if (editorPane == null) {
+            editorPane = newCodePane(mimeType);
+        }
+        editorPane.setText(block.getContent());
+        editorPane.setCaretPosition(0);
+        editorPane.putClientProperty(BLOCK_KEY, block);
+        return editorPane;
+    }
+
+    private void releaseCodePane(String mimeType, JComponent pane) {
+        JEditorPane editorPane = (JEditorPane) pane;
+        //
+        // unbound first, so that clearing the text does not reach the block
+        //
+        editorPane.putClientProperty(BLOCK_KEY, null);
+        editorPane.setText("");
+        editorPane.setVisible(true);
+        Deque<JEditorPane> pool = codePanes.computeIfAbsent(mimeType, k -> new ArrayDeque<>());
+        if (pool.size() < MAX_POOLED_PANES) {
+            pool.push(editorPane);
+        }
+    }
 
-        EditorKit editorKit = EditorUtil.createEditorKit(mimeType == null ? ("text/x-" + type) : mimeType);
+    private JEditorPane newCodePane(String mimeType) {
+        EditorKit editorKit = EditorUtil.createEditorKit(mimeType);
 
         JEditorPane editorPane;
         if (editorKit != null) {
@@ -809,60 +880,83 @@ public abstract class AssistantChat extends TopComponent {
             editorPane = createInMemoryEditorCopy(mimeType);
         }
 
-        editorPane.setText(content.getContent());
         editorPane.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                content.setContent(editorPane.getText());
+                update();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                content.setContent(editorPane.getText());
+                update();
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                content.setContent(editorPane.getText());
+                update();
+            }
+
+            private void update() {
+                if (editorPane.getClientProperty(BLOCK_KEY) instanceof Block block) {
+                    block.setContent(editorPane.getText());
+                }
             }
         });
-        editorPane.setCaretPosition(0);
-        addContextMenu(editorPane);
-        addEditorPaneRespectingTextArea(editorPane);
+        editorPane.addMouseListener(contextMenuTrigger);
         return editorPane;
     }
 
-    public SVGPane createSVGPane(Block content) {
-        SVGPane svgPane = new SVGPane();
-        JEditorPane sourcePane = svgPane.createPane(content);
-        addContextMenu(sourcePane);
-        addEditorPaneRespectingTextArea(svgPane);
-        return svgPane;
+    public JComponent createSVGPane(Block content) {
+        return addBlockSlot(content, block -> {
+            SVGPane svgPane = new SVGPane();
+            addContextMenu(block, svgPane.createPane(block));
+            return svgPane;
+        }, null);
     }
 
-    public MermaidPane createMermaidPane(Block content) {
-        MermaidPane pane = new MermaidPane();
-        JEditorPane sourcePane = pane.createPane(content);
-        addContextMenu(sourcePane);
-        addEditorPaneRespectingTextArea(pane);
-        return pane;
+    public JComponent createMermaidPane(Block content) {
+        return addBlockSlot(content, block -> {
+            MermaidPane pane = new MermaidPane();
+            addContextMenu(block, pane.createPane(block));
+            return pane;
+        }, null);
     }
 
-    public MarkdownPane createMarkdownPane(Block content) {
-        MarkdownPane pane = new MarkdownPane();
-        JEditorPane sourcePane = pane.createPane(content, this);
-        addContextMenu(sourcePane);
-        addEditorPaneRespectingTextArea(pane);
-        return pane;
+    public JComponent createMarkdownPane(Block content) {
+        return addBlockSlot(content, block -> {
+            MarkdownPane pane = new MarkdownPane();
+            addContextMenu(block, pane.createPane(block, this));
+            return pane;
+        }, null);
     }
 
-    private void addContextMenu(JEditorPane editorPane) {
-        JPopupMenu contextMenu = new JPopupMenu();
-        menus.put(editorPane, contextMenu);
+    /**
+     * Adds a rendered block as a slot of the virtualized transcript: its pane
+     * is created only while it is near the visible area. The context menu of
+     * the block is created right away, so that the diff and update entries
+     * can be attached before the pane exists.
+     */
+    private JComponent addBlockSlot(Block content, Function<Block, JComponent> factory, Consumer<JComponent> release) {
+        menus.put(content, createContextMenu());
         menuItems.clear();
         submenuItems.clear();
+        TranscriptVirtualizer.Slot slot = virtualizer.slot(content, factory, release);
+        addEditorPaneRespectingTextArea(slot);
+        return slot;
+    }
+
+    private void addContextMenu(Block block, JEditorPane editorPane) {
+        editorPane.putClientProperty(BLOCK_KEY, block);
+        editorPane.addMouseListener(contextMenuTrigger);
+    }
+
+    private JPopupMenu createContextMenu() {
+        JPopupMenu contextMenu = new JPopupMenu();
         JMenuItem copyItem = new JMenuItem("Copy");
         copyItem.addActionListener(e -> {
+            if (!(contextMenu.getInvoker() instanceof JEditorPane editorPane)) {
+                return;
+            }
             if (editorPane.getSelectedText() != null) {
                 // Copy selected text
                 editorPane.copy();
@@ -876,25 +970,55 @@ public abstract class AssistantChat extends TopComponent {
         contextMenu.add(copyItem);
 
         JMenuItem saveAsItem = new JMenuItem("Save As");
-        saveAsItem.addActionListener(e -> saveAs(editorPane.getContentType(), editorPane.getText()));
+        saveAsItem.addActionListener(e -> {
+            if (contextMenu.getInvoker() instanceof JEditorPane editorPane) {
+                saveAs(editorPane.getContentType(), editorPane.getText());
+            }
+        });
         contextMenu.add(saveAsItem);
+        return contextMenu;
+    }
 
-        // Add mouse listener to show context menu
-        editorPane.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mousePressed(MouseEvent e) {
-                if (e.isPopupTrigger()) {
-                    contextMenu.show(e.getComponent(), e.getX(), e.getY());
-                }
+    private void showContextMenu(MouseEvent e) {
+        if (e.isPopupTrigger()
+                && e.getComponent() instanceof JComponent component
+                && component.getClientProperty(BLOCK_KEY) instanceof Block block) {
+            JPopupMenu contextMenu = menus.get(block);
+            if (contextMenu != null) {
+                contextMenu.show(component, e.getX(), e.getY());
+            }
+        }
+    }
+
+    /**
+     * @return the code blocks of the transcript, in order
+     */
+    private List<Block> getCodeBlocks() {
+        List<Block> blocks = new ArrayList<>();
+        for (Component component : parentPanel.getComponents()) {
+            if (component instanceof TranscriptVirtualizer.Slot slot && codeBlocks.containsKey(slot.getBlock())) {
+                blocks.add(slot.getBlock());
             }
+        }
+        return blocks;
+    }
 
-            @Override
-            public void mouseReleased(MouseEvent e) {
-                if (e.isPopupTrigger()) {
-                    contextMenu.show(e.getComponent(), e.getX(), e.getY());
-                }
+    /**
+     * @return the pane showing the given code block, created if the block is
+     * far from the visible area
+     */
+    private JEditorPane getCodePane(Block block) {
+        for (Component component : parentPanel.getComponents()) {
+            if (component instanceof TranscriptVirtualizer.Slot slot && slot.getBlock() == block) {
+                slot.materialize();
+                return (JEditorPane) slot.getPane();
             }
-        });
+        }
+        return null;
+    }
+
+    private static boolean isTextType(String mimeType) {
+        return !mimeType.equals("text/html") && mimeType.startsWith("text");
     }
 
     public void saveAs(String mimeType, String content) {
@@ -1009,13 +1133,19 @@ public abstract class AssistantChat extends TopComponent {
 
     public String getAllCodeEditorText() {
         StringBuilder allText = new StringBuilder();
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane editorPane) {
+        for (Component component : parentPanel.getComponents()) {
+            String text = null;
+            if (component instanceof JEditorPane editorPane) {
                 if (!(editorPane.getEditorKit() instanceof javax.swing.text.html.HTMLEditorKit)) {
-                    allText.append("\n");
-                    allText.append(editorPane.getText());
-                    allText.append("\n");
+                    text = editorPane.getText();
                 }
+            } else if (component instanceof TranscriptVirtualizer.Slot slot && codeBlocks.containsKey(slot.getBlock())) {
+                text = slot.getBlock().getContent();
+            }
+            if (text != null) {
+                allText.append("\n");
+                allText.append(text);
+                allText.append("\n");
             }
         }
         return allText.toString().trim();
@@ -1023,16 +1153,22 @@ public abstract class AssistantChat extends TopComponent {
 
     public String getAllEditorText() {
         StringBuilder allText = new StringBuilder();
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane editorPane) {
-                if (!editorPane.getEditorKit().getContentType().equals("text/html")
-                        && editorPane.getEditorKit().getContentType().startsWith("text")) {
+        for (Component component : parentPanel.getComponents()) {
+            if (component instanceof JEditorPane editorPane) {
+                if (isTextType(editorPane.getEditorKit().getContentType())) {
                     allText.append("<pre><code>");
                     allText.append(editorPane.getText());
                     allText.append("</code></pre>");
                 } else {
                     allText.append(editorPane.getText().replaceAll("(?is)<style[^>]*?>.*?</style>", ""));
                 }
+            } else if (component instanceof TranscriptVirtualizer.Slot slot) {
+                String mimeType = codeBlocks.get(slot.getBlock());
+                if (mimeType != null && isTextType(mimeType)) {
+                    allText.append("<pre><code>");
+                    allText.append(slot.getBlock().getContent());
+                    allText.append("</code></pre>");
+                }
             }
         }
         return allText.toString().trim();
@@ -1040,22 +1176,25 @@ public abstract class AssistantChat extends TopComponent {
 
     public int getAllCodeEditorCount() {
         int count = 0;
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane) {
-                JEditorPane editorPane = (JEditorPane) parentPanel.getComponent(i);
-                if (!editorPane.getEditorKit().getContentType().equals("text/html")
-                        && editorPane.getEditorKit().getContentType().startsWith("text")) {
+        for (Component component : parentPanel.getComponents()) {
+            if (component instanceof JEditorPane editorPane) {
+                if (isTextType(editorPane.getEditorKit().getContentType())) {
                     count++;
                 }
             }
         }
+        for (Block block : getCodeBlocks()) {
+            if (isTextType(codeBlocks.get(block))) {
+                count++;
+            }
+        }
         return count;
     }
 
     public void getParseCodeEditor(List<FileObject> context) {
         StaticJavaParser.getParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
-        Map<JEditorPane, Map<String, String>> editorMethodSignCache = new HashMap<>();
-        Map<JEditorPane, Map<String, String>> editorMethodCache = new HashMap<>();
+        Map<Block, Map<String, String>> editorMethodSignCache = new HashMap<>();
+        Map<Block, Map<String, String>> editorMethodCache = new HashMap<>();
 
         //
         // Parse all files in context and all code blocks in the editors to
@@ -1133,90 +1272,87 @@ public abstract class AssistantChat extends TopComponent {
                 // in fileMethodSignatures and fileMethods) and create context
                 // manues to diff block and file code.
                 //
-                for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-                    if (parentPanel.getComponent(i) instanceof JEditorPane) {
-                        JEditorPane editorPane = (JEditorPane) parentPanel.getComponent(i);
-                        if (editorPane.getEditorKit().getContentType().equals(JAVA_MIME)) {
-                            Map<String, String> cachedMethodSignatures = editorMethodSignCache.computeIfAbsent(editorPane, ep -> {
-                                Map<String, String> snippetSignatures = new HashMap<>();
-                                String editorText = editorPane.getText();
-                                String[] lines = editorText.split("\n");
+                for (Block block : getCodeBlocks()) {
+                    if (JAVA_MIME.equals(codeBlocks.get(block))) {
+                        Map<String, String> cachedMethodSignatures = editorMethodSignCache.computeIfAbsent(block, b -> {
+                            Map<String, String> snippetSignatures = new HashMap<>();
+                            String editorText = block.getContent();
+                            String[] lines = editorText.split("\n");
+                            try {
+                                // check if snippet is method otherwise throw exception
+                                extractMethod(snippetSignatures, editorText);
+                            } catch (Exception e1) {
                                 try {
-                                    // check if snippet is method otherwise throw exception
-                                    extractMethod(snippetSignatures, editorText);
-                                } catch (Exception e1) {
+                                    CompilationUnit aiCu = StaticJavaParser.parse(editorText);
+                                    extractClasses(aiCu, lines, snippetSignatures, editorText);
+                                    extractMethods(aiCu, lines, snippetSignatures);
+                                } catch (Exception e2) {
                                     try {
                                         CompilationUnit aiCu = StaticJavaParser.parse(editorText);
                                         extractClasses(aiCu, lines, snippetSignatures, editorText);
-                                        extractMethods(aiCu, lines, snippetSignatures);
-                                    } catch (Exception e2) {
-                                        try {
-                                            CompilationUnit aiCu = StaticJavaParser.parse(editorText);
-                                            extractClasses(aiCu, lines, snippetSignatures, editorText);
-                                            if (aiCu.getTypes().isNonEmpty()) {
-                                                snippetSignatures.put(aiCu.getType(0).getNameAsString(), editorText);
-                                            }
-                                        } catch (Exception e3) {
-                                            // ignore
+                                        if (aiCu.getTypes().isNonEmpty()) {
+                                            snippetSignatures.put(aiCu.getType(0).getNameAsString(), editorText);
                                         }
+                                    } catch (Exception e3) {
+                                        // ignore
                                     }
                                 }
-                                return snippetSignatures;
-                            });
+                            }
+                            return snippetSignatures;
+                        });
 
-                            Map<String, String> cachedMethods = editorMethodCache.computeIfAbsent(editorPane, ep -> {
-                                Map<String, String> snippetSignatures = new HashMap<>();
-                                String editorText = editorPane.getText();
-                                String[] lines = editorText.split("\n");
+                        Map<String, String> cachedMethods = editorMethodCache.computeIfAbsent(block, b -> {
+                            Map<String, String> snippetSignatures = new HashMap<>();
+                            String editorText = block.getContent();
+                            String[] lines = editorText.split("\n");
+                            try {
+                                extractMethod(snippetSignatures, editorText);
+                            } catch (Exception e) {
                                 try {
-                                    extractMethod(snippetSignatures, editorText);
-                                } catch (Exception e) {
+                                    CompilationUnit aiCu = StaticJavaParser.parse(editorText);
+                                    extractMethods(aiCu, lines, snippetSignatures);
+                                } catch (Exception e1) {
                                     try {
                                         CompilationUnit aiCu = StaticJavaParser.parse(editorText);
-                                        extractMethods(aiCu, lines, snippetSignatures);
-                                    } catch (Exception e1) {
-                                        try {
-                                            CompilationUnit aiCu = StaticJavaParser.parse(editorText);
-                                            if (aiCu.getTypes().isNonEmpty()) {
-                                                snippetSignatures.put(aiCu.getType(0).getNameAsString(), editorText);
-                                            }
-                                        } catch (Exception e2) {
-                                            // ignore
+                                        if (aiCu.getTypes().isNonEmpty()) {
+                                            snippetSignatures.put(aiCu.getType(0).getNameAsString(), editorText);
                                         }
+                                    } catch (Exception e2) {
+                                        // ignore
                                     }
                                 }
-                                return snippetSignatures;
-                            });
-
-                            //
-                            // First check if there is any full signature match
-                            // in fileMethodSignatures and if there is, create a
-                            // context menu to diff it; if no context menu have
-                            // been created on the full signature, check method/class/interface
-                            // names.
-                            // Then create a menu item to diff with the file
-                            //
-                            try {
-                                int menuCreationCount = 0;
-                                for (Map.Entry<String, Integer> signature : fileMethodSignatures.entrySet()) {
-                                    if (createEditorPaneMenus(fileObject, signature.getKey(), signature.getValue(), editorPane, cachedMethodSignatures)) {
-                                        menuCreationCount++;
-                                    }
+                            }
+                            return snippetSignatures;
+                        });
+
+                        //
+                        // First check if there is any full signature match
+                        // in fileMethodSignatures and if there is, create a
+                        // context menu to diff it; if no context menu have
+                        // been created on the full signature, check method/class/interface
+                        // names.
+                        // Then create a menu item to diff with the file
+                        //
+                        try {
+                            int menuCreationCount = 0;
+                            for (Map.Entry<String, Integer> signature : fileMethodSignatures.entrySet()) {
+                                if (createEditorPaneMenus(fileObject, signature.getKey(), signature.getValue(), block, cachedMethodSignatures)) {
+                                    menuCreationCount++;
                                 }
-                                if (menuCreationCount == 0) {
-                                    for (String method : fileMethods.keySet()) {
-                                        if (fileMethods.get(method) == 1) {
-                                            if (createEditorPaneMenus(fileObject, method, -1, editorPane, cachedMethods)) {
-                                                menuCreationCount++;
-                                            }
+                            }
+                            if (menuCreationCount == 0) {
+                                for (String method : fileMethods.keySet()) {
+                                    if (fileMethods.get(method) == 1) {
+                                        if (createEditorPaneMenus(fileObject, method, -1, block, cachedMethods)) {
+                                            menuCreationCount++;
                                         }
                                     }
                                 }
-
-                                createEditorPaneMenus(fileObject, fileObject.getName(), -1, editorPane, cachedMethodSignatures);
-                            } catch (Exception e) {
-                                System.out.println("Error parsing single method declaration from editor content: " + e.getMessage());
                             }
+
+                            createEditorPaneMenus(fileObject, fileObject.getName(), -1, block, cachedMethodSignatures);
+                        } catch (Exception e) {
+                            System.out.println("Error parsing single method declaration from editor content: " + e.getMessage());
                         }
                     }
                 }
@@ -1231,33 +1367,31 @@ public abstract class AssistantChat extends TopComponent {
      */
     public void attachMenusToEditors() {
         // Create the menu to diff with selected text
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane editorPane) {
-                menuItems.computeIfAbsent(editorPane, k -> new ArrayList<>());
-                if (JAVA_MIME.equals(editorPane.getEditorKit().getContentType())) {
-                    JMenuItem diffMethodItem = new JMenuItem("Diff with Selected Snippet");
-                    diffMethodItem.addActionListener(e -> SwingUtilities.invokeLater(() -> {
-                        JTextComponent currenteditor = EditorRegistry.lastFocusedComponent();
-                        String currentSelectedText = currenteditor.getSelectedText();
-                        final StyledDocument currentDocument = (StyledDocument) currenteditor.getDocument();
-                        DataObject currentDO = NbEditorUtilities.getDataObject(currentDocument);
-                        if (currentDO != null) {
-                            FileObject focusedfile = currentDO.getPrimaryFile();
-                            if (focusedfile != null && currentSelectedText != null && !currentSelectedText.trim().isEmpty()) {
-                                diffActionWithSelected(currentSelectedText, focusedfile, editorPane);
-                            } else {
-                                JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
-                            }
+        for (Block block : getCodeBlocks()) {
+            menuItems.computeIfAbsent(block, k -> new ArrayList<>());
+            if (JAVA_MIME.equals(codeBlocks.get(block))) {
+                JMenuItem diffMethodItem = new JMenuItem("Diff with Selected Snippet");
+                diffMethodItem.addActionListener(e -> SwingUtilities.invokeLater(() -> {
+                    JTextComponent currenteditor = EditorRegistry.lastFocusedComponent();
+                    String currentSelectedText = currenteditor.getSelectedText();
+                    final StyledDocument currentDocument = (StyledDocument) currenteditor.getDocument();
+                    DataObject currentDO = NbEditorUtilities.getDataObject(currentDocument);
+                    if (currentDO != null) {
+                        FileObject focusedfile = currentDO.getPrimaryFile();
+                        if (focusedfile != null && currentSelectedText != null && !currentSelectedText.trim().isEmpty()) {
+                            diffActionWithSelected(currentSelectedText, focusedfile, getCodePane(block));
                         } else {
                             JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
                         }
-                    }));
-                    menuItems.get(editorPane).add(diffMethodItem);
-                }
+                    } else {
+                        JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
+                    }
+                }));
+                menuItems.get(block).add(diffMethodItem);
             }
         }
 
-        for (Map.Entry<JEditorPane, List<JMenuItem>> entry : menuItems.entrySet()) {
+        for (Map.Entry<Block, List<JMenuItem>> entry : menuItems.entrySet()) {
             JPopupMenu mainMenu = menus.get(entry.getKey());
             if (mainMenu != null) {
                 for (JMenuItem jMenuItem : entry.getValue()) {
@@ -1266,7 +1400,7 @@ public abstract class AssistantChat extends TopComponent {
             }
         }
 
-        for (Map.Entry<JEditorPane, List<JMenuItem>> entry : submenuItems.entrySet()) {
+        for (Map.Entry<Block, List<JMenuItem>> entry : submenuItems.entrySet()) {
             JMenu methodMenu = new JMenu("Methods");
             for (JMenuItem jMenuItem : entry.getValue()) {
                 methodMenu.add(jMenuItem);
@@ -1331,15 +1465,15 @@ public abstract class AssistantChat extends TopComponent {
         return sb.toString();
     }
 
-    private boolean createEditorPaneMenus(FileObject fileObject, String signature, Integer bodyLength, JEditorPane editorPane, Map<String, String> cachedMethodSignatures) {
+    private boolean createEditorPaneMenus(FileObject fileObject, String signature, Integer bodyLength, Block block, Map<String, String> cachedMethodSignatures) {
         boolean classSignature = fileObject.getName().equals(signature);
         if (cachedMethodSignatures.get(signature) != null
                 && (cachedMethodSignatures.get(signature).length() != bodyLength || bodyLength == -1)) {
-            if (menuItems.get(editorPane) == null) {
-                menuItems.put(editorPane, new ArrayList<>());
+            if (menuItems.get(block) == null) {
+                menuItems.put(block, new ArrayList<>());
             }
-            if (submenuItems.get(editorPane) == null) {
-                submenuItems.put(editorPane, new ArrayList<>());
+            if (submenuItems.get(block) == null) {
+                submenuItems.put(block, new ArrayList<>());
             }
             String menuSubText = (classSignature ? "" : (signature + " in "));
             JMenuItem updateMethodItem = new JMenuItem("Update " + menuSubText + fileObject.getName());
@@ -1353,21 +1487,21 @@ public abstract class AssistantChat extends TopComponent {
                 });
             });
             if (fileObject.getName().equals(signature)) {
-                menuItems.get(editorPane).add(updateMethodItem);
+                menuItems.get(block).add(updateMethodItem);
             } else {
-                submenuItems.get(editorPane).add(updateMethodItem);
+                submenuItems.get(block).add(updateMethodItem);
             }
 
             JMenuItem diffMethodItem = new JMenuItem("Diff " + menuSubText + fileObject.getName());
             diffMethodItem.addActionListener(e -> {
                 SwingUtilities.invokeLater(() -> {
-                    diffAction(classSignature, fileObject, signature, editorPane, cachedMethodSignatures);
+                    diffAction(classSignature, fileObject, signature, getCodePane(block), cachedMethodSignatures);
                 });
             });
             if (fileObject.getName().equals(signature)) {
-                menuItems.get(editorPane).add(diffMethodItem);
+                menuItems.get(block).add(diffMethodItem);
             } else {
-                submenuItems.get(editorPane).add(diffMethodItem);
+                submenuItems.get(block).add(diffMethodItem);
             }
             return true;
         }
@@ -1375,9 +1509,9 @@ public abstract class AssistantChat extends TopComponent {
     }
 
     public int getAllEditorCount() {
-        int count = 0;
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane) {
+        int count = getCodeBlocks().size();
+        for (Component component : parentPanel.getComponents()) {
+            if (component instanceof JEditorPane) {
                 count++;
             }
         }
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+
+/**
+ * Renders a Markdown document one top-level block at a time.
+ * <p>
+ * The document is split into chunks at the blank lines that are neither in a
+ * fenced code block nor followed by an indented continuation line. Each chunk
+ * is rendered on its own and its HTML cached by its source, so after an edit
+ * only the chunks that changed are parsed again. Documents with link
+ * reference definitions, which apply across blocks, are rendered as a whole.
+ */
+public class IncrementalMarkdownRenderer {
+
+    /**
+     * Prefix of the id of the element wrapping the HTML of each chunk
+     */
+    public static final String ID_PREFIX = "md-";
+
+    private static final int MAX_CACHED = 512;
+
+    private static final Pattern REFERENCE_DEFINITION = Pattern.compile("(?m)^ {0,3}\\[[^\\]]+\\]:\\s*\\S");
+
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+
+    /**
+     * The outcome of an update.
+     *
+     * @param html the HTML of every chunk, in order
+     * @param changed the indexes of the chunks whose source changed
+     * @param sameStructure true if the number of chunks did not change, i.e.
+     * the changed chunks can be replaced in place
+     */
+    public record Update(List<String> html, List<Integer> changed, boolean sameStructure) {
+
+        public boolean isUnchanged() {
+            return sameStructure && changed.isEmpty();
+        }
+    }
+
+    private final Function<String, String> renderer;
+
+    private final Map<String, String> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private List<String> chunks = List.of();
+
+    public IncrementalMarkdownRenderer() {
+        final Parser parser = Parser.builder().build();
+        final HtmlRenderer htmlRenderer = HtmlRenderer.builder().build();
+        this.renderer = markdown -> htmlRenderer.render(parser.parse(markdown));
+    }
+
+    IncrementalMarkdownRenderer(final Function<String, String> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Renders the given document, reusing the HTML of the chunks already
+     * rendered.
+     *
+     * @param markdown the document
+     *
+     * @return the HTML of the chunks and which ones changed since the previous
+     * update
+     */
+    public Update update(final String markdown) {
+        final List<String> next = split(markdown);
+        final List<String> html = new ArrayList<>(next.size());
+        final List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < next.size(); ++i) {
+            final String chunk = next.get(i);
+            String rendered = cache.get(chunk);
+            if (rendered == null) {
+                rendered = renderer.apply(chunk);
+                cache.put(chunk, rendered);
+            }
+            html.add(rendered);
+            if (i >= chunks.size() || !chunks.get(i).equals(chunk)) {
+                changed.add(i);
+            }
+        }
+        final boolean sameStructure = next.size() == chunks.size();
+        chunks = next;
+        return new Update(html, changed, sameStructure);
+    }
+
+    /**
+     * @return the HTML of the chunks, each one wrapped in a <code>div</code>
+     * identified by {@link #ID_PREFIX} and its index
+     */
+    public static String body(final List<String> html) {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < html.size(); ++i) {
+            body.append("<div id=\"").append(ID_PREFIX).append(i).append("\">")
+                .append(html.get(i)).append("</div>\n");
+        }
+        return body.toString();
+    }
+
+    /**
+     * @return the top-level chunks of the given document
+     */
+    static List<String> split(final String markdown) {
+        if (markdown == null || markdown.isBlank()) {
+            return List.of();
+        }
+        if (REFERENCE_DEFINITION.matcher(markdown).find()) {
+            return List.of(markdown.strip());
+        }
+        final List<String> chunks = new ArrayList<>();
+        final StringBuilder chunk = new StringBuilder();
+        String fence = null;
+        int blankLines = 0;
+        for (String line : markdown.split("\r?\n", -1)) {
+            if (fence != null) {
+                chunk.append(line).append('\n');
+                if (line.strip().startsWith(fence) && line.strip().replace(fence.substring(0, 1), "").isEmpty()) {
+                    fence = null;
+                }
+                continue;
+            }
+            if (line.isBlank()) {
+                if (chunk.length() > 0) {
+                    ++blankLines;
+                }
+                continue;
+            }
+            final boolean indented = line.startsWith(" ") || line.startsWith("\t");
+            if (blankLines > 0 && !indented) {
+                chunks.add(chunk.toString().stripTrailing());
+                chunk.setLength(0);
+                blankLines = 0;
+            }
+            chunk.append("\n".repeat(blankLines)).append(line).append('\n');
+            blankLines = 0;
+            final Matcher matcher = FENCE.matcher(line);
+            if (matcher.find()) {
+                fence = matcher.group(1);
+            }
+        }
+        if (chunk.length() > 0) {
+            chunks.add(chunk.toString().stripTrailing());
+        }
+        return chunks;
+    }
+}
@@ -30,6 +30,9 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.BorderFactory;
 import javax.swing.JComponent;
 import javax.swing.JEditorPane;
@@ -38,15 +41,17 @@ import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
 import javax.swing.JTabbedPane;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.plaf.basic.BasicTabbedPaneUI;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.EditorKit;
+import javax.swing.text.Element;
+import javax.swing.text.html.HTMLDocument;
 import javax.swing.text.html.HTMLEditorKit;
 import org.apache.batik.swing.JSVGCanvas;
-import org.commonmark.parser.Parser;
-import org.commonmark.renderer.html.HtmlRenderer;
 
 /**
  *
@@ -54,6 +59,10 @@ import org.commonmark.renderer.html.HtmlRenderer;
  */
 public class MarkdownPane extends JTabbedPane {
 
+    private static final Logger LOG = Logger.getLogger(MarkdownPane.class.getName());
+
+    private static final int RENDER_DELAY_MILLIS = 300;
+
     public static JEditorPane createHtmlPane(JEditorPane editorPane, String content, JComponent component) {
         editorPane.setBorder(BorderFactory.createEmptyBorder()); // No border
         editorPane.setMargin(new Insets(1, 0, 1, 0));
@@ -86,11 +95,9 @@ public class MarkdownPane extends JTabbedPane {
         Color backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
         Color textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
         JTabbedPane tabbedPane = this;
-        
-        
-        Parser parser = Parser.builder().build();
-        HtmlRenderer renderer = HtmlRenderer.builder().build();
-        String html = renderer.render(parser.parse(content.getContent()));
+
+        IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer();
+        String html = IncrementalMarkdownRenderer.body(renderer.update(content.getContent()).html());
 
         JEditorPane viewPane = new JEditorPane();
         createHtmlPane(viewPane, html, component);
@@ -101,25 +108,40 @@ public class MarkdownPane extends JTabbedPane {
         editorPane.setEditorKit(editorKit);
         editorPane.setText(content.getContent());
         tabbedPane.addTab("Source", editorPane);
-        
-        final boolean[] reRender = {true};
+
+        //
+        // edits are rendered once the typing pauses, or as soon as the view
+        // is selected; only the blocks that changed are parsed again
+        //
+        final boolean[] reRender = {false};
+        Runnable updateViewer = () -> {
+            if (reRender[0] == true) {
+                reRender[0] = false;
+                updateView(viewPane, renderer.update(editorPane.getText()), component);
+            }
+        };
+        Timer timer = new Timer(RENDER_DELAY_MILLIS, e -> updateViewer.run());
+        timer.setRepeats(false);
         editorPane.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
                 reRender[0]= true;
                 content.setContent(editorPane.getText());
+                timer.restart();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
                 reRender[0]= true;
                 content.setContent(editorPane.getText());
+                timer.restart();
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
                 reRender[0]= true;
                 content.setContent(editorPane.getText());
+                timer.restart();
             }
         });
 
@@ -129,24 +151,40 @@ public class MarkdownPane extends JTabbedPane {
         tabbedPane.setForegroundAt(1, textColor);
         tabbedPane.setUI(new ColoredTabbedPaneUI(backgroundColor));
 
-
-        Runnable updateViewer = () -> {
-            String mdContent = editorPane.getText();
-            if (reRender[0] == true) {
-                reRender[0] = false;
-                String newhtml = renderer.render(parser.parse(mdContent));
-                viewPane.setText(getHTMLContent(getHtmlWrapWidth(component), newhtml));
-            }
-        };
-
         tabbedPane.addChangeListener(e -> {
             if (tabbedPane.getSelectedIndex() == 0) {
+                timer.stop();
                 SwingUtilities.invokeLater(updateViewer);
             }
         });
         return editorPane;
     }
 
+    /**
+     * Replaces the HTML of the changed blocks in place when the blocks are
+     * the same, sets the whole document otherwise.
+     */
+    private static void updateView(JEditorPane viewPane, IncrementalMarkdownRenderer.Update update, JComponent component) {
+        if (update.isUnchanged()) {
+            return;
+        }
+        if (update.sameStructure() && viewPane.getDocument() instanceof HTMLDocument doc) {
+            try {
+                for (int i : update.changed()) {
+                    Element element = doc.getElement(IncrementalMarkdownRenderer.ID_PREFIX + i);
+                    if (element == null) {
+                        throw new BadLocationException("Block not found", i);
+                    }
+                    doc.setInnerHTML(element, update.html().get(i));
+                }
+                return;
+            } catch (BadLocationException | IOException x) {
+                LOG.log(Level.FINEST, "Unable to update the changed blocks, rendering the whole document", x);
+            }
+        }
+        viewPane.setText(getHTMLContent(getHtmlWrapWidth(component), IncrementalMarkdownRenderer.body(update.html())));
+    }
+
     public class ColoredTabbedPaneUI extends BasicTabbedPaneUI {
 
         private final Color tabAreaBackground;
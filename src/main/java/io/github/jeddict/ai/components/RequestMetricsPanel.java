@@ -0,0 +1,107 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.metrics.RollingHistogram;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Table of the {@link RequestMetrics} percentiles, one row per series and
+ * metric.
+ */
+public class RequestMetricsPanel extends JPanel {
+
+    private static final String[] COLUMNS = {
+        "Provider", "Model", "Specialist", "Action", "Metric", "Count", "Mean", "p50", "p90", "p99", "Max", "Unit"
+    };
+
+    private final DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return (column >= 5 && column <= 10) ? Long.class : String.class;
+        }
+    };
+
+    public RequestMetricsPanel(Color bgColor, Color fgColor) {
+        super(new BorderLayout());
+        setBackground(bgColor);
+
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+
+        JLabel label = new JLabel("Last " + RequestMetrics.WINDOW_MINUTES + " minutes");
+        label.setForeground(fgColor);
+        label.setFont(new Font("SansSerif", Font.PLAIN, 12));
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh());
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            RequestMetrics.getInstance().reset();
+            refresh();
+        });
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.setBackground(bgColor);
+        toolbar.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
+        toolbar.add(label);
+        toolbar.add(refreshButton);
+        toolbar.add(resetButton);
+
+        add(toolbar, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        refresh();
+    }
+
+    public final void refresh() {
+        model.setRowCount(0);
+        for (RequestMetrics.Row row : RequestMetrics.getInstance().rows()) {
+            RollingHistogram.Snapshot values = row.values();
+            model.addRow(new Object[] {
+                row.series().provider(),
+                row.series().model(),
+                row.series().specialist(),
+                row.series().action(),
+                row.metric().label,
+                values.count(),
+                Math.round(values.mean()),
+                values.percentile(50),
+                values.percentile(90),
+                values.percentile(99),
+                values.max(),
+                row.metric().unit
+            });
+        }
+    }
+}
@@ -32,12 +32,9 @@ import java.awt.Insets;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Dimension2D;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.function.Consumer;
 import javax.swing.JDialog;
 import javax.swing.JEditorPane;
 import javax.swing.JMenuItem;
@@ -51,22 +48,25 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.plaf.basic.BasicTabbedPaneUI;
 import javax.swing.text.EditorKit;
-import net.sourceforge.plantuml.FileFormat;
-import net.sourceforge.plantuml.FileFormatOption;
-import net.sourceforge.plantuml.SourceStringReader;
-import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
 import org.apache.batik.swing.JSVGCanvas;
 import org.apache.batik.swing.gvt.GVTTreeRendererAdapter;
 import org.apache.batik.swing.gvt.GVTTreeRendererEvent;
-import org.apache.batik.util.XMLResourceDescriptor;
 
 /**
  *
  * @author Gaurav Gupta
  */
 public class SVGPane extends JTabbedPane {
-    
-    
+
+    private static final int RENDER_DELAY_MILLIS = 300;
+
+    private final SVGRenderService renderService = SVGRenderService.getInstance();
+
+    private SVGRenderService.Request pending;
+    private SVGRenderService.Rendering rendering;
+    private String source;
+    private Runnable refresh;
+
     public JEditorPane createPane(final Block content) {
         Color backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
         Color textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
@@ -75,6 +75,21 @@ public class SVGPane extends JTabbedPane {
         JSVGCanvas canvas = new JSVGCanvas();
         canvas.setDocumentState(JSVGCanvas.ALWAYS_DYNAMIC);
         canvas.setDisableInteractions(true);
+        canvas.addGVTTreeRendererListener(new GVTTreeRendererAdapter() {
+            @Override
+            public void gvtRenderingCompleted(GVTTreeRendererEvent e) {
+                SwingUtilities.invokeLater(() -> {
+                    Dimension2D docSize = canvas.getSVGDocumentSize();
+                    if (docSize != null) {
+                        int width = (int) Math.ceil(docSize.getWidth());
+                        int height = (int) Math.ceil(docSize.getHeight());
+                        canvas.setPreferredSize(new Dimension(width, height));
+                        canvas.revalidate();
+                    }
+                });
+            }
+        });
+        addContextMenu(canvas);
         JPanel umlPanel = new JPanel();
         umlPanel.setLayout(new GridBagLayout()); // Center the canvas nicely
         umlPanel.add(canvas);
@@ -86,54 +101,83 @@ public class SVGPane extends JTabbedPane {
         editorPane.setEditorKit(editorKit);
         editorPane.setText(content.getContent());
         tabbedPane.addTab("Source", editorPane);
-        final boolean[] reRender = {true};
+        boolean isDarkTheme = isDarkColor(backgroundColor);
+
+        //
+        // the diagram is rendered off the EDT; edits are debounced and a
+        // render still pending when the source changes again is dropped
+        //
+        Consumer<Integer> updateCanvas = delay -> {
+            String umlContent = editorPane.getText();
+            if (isDarkTheme && umlContent.contains("@startuml")) {
+                umlContent = addDarkTheme(umlContent, backgroundColor, textColor);
+            }
+            if (umlContent.equals(source)) {
+                return;
+            }
+            source = umlContent;
+            cancelPending();
+            pending = renderService.render(umlContent, delay, r -> {
+                pending = null;
+                rendering = r;
+                canvas.setSVGDocument(r.document());
+            });
+        };
         editorPane.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                reRender[0]= true;
                 content.setContent(editorPane.getText());
+                updateCanvas.accept(RENDER_DELAY_MILLIS);
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                reRender[0]= true;
                 content.setContent(editorPane.getText());
+                updateCanvas.accept(RENDER_DELAY_MILLIS);
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                reRender[0]= true;
                 content.setContent(editorPane.getText());
+                updateCanvas.accept(RENDER_DELAY_MILLIS);
             }
         });
-        boolean isDarkTheme = isDarkColor(backgroundColor);
         tabbedPane.setBackgroundAt(0, backgroundColor);
         tabbedPane.setBackgroundAt(1, backgroundColor);
         tabbedPane.setForegroundAt(0, textColor);
         tabbedPane.setForegroundAt(1, textColor);
         tabbedPane.setUI(new ColoredTabbedPaneUI(backgroundColor));
 
-        Runnable updateCanvas = () -> {
-            String umlContent = editorPane.getText();
-            if (reRender[0] == true) {
-                reRender[0] = false;
-                if (isDarkTheme) {
-                    umlContent = addDarkTheme(umlContent, backgroundColor, textColor);
-                }
-                String svgContent = convertPlantUmlToSvg(umlContent);
-                loadSVG(canvas, svgContent);
-                addContextMenu(canvas, svgContent);
-            }
-        };
+        refresh = () -> updateCanvas.accept(0);
+        refresh.run();
+        return editorPane;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (source == null && refresh != null) {
+            refresh.run();
+        }
+    }
 
-        SwingUtilities.invokeLater(updateCanvas);
+    /**
+     * Drops the render still pending, if any, rendering again once shown.
+     */
+    @Override
+    public void removeNotify() {
+        if (pending != null) {
+            cancelPending();
+            source = null;
+        }
+        super.removeNotify();
+    }
 
-        tabbedPane.addChangeListener(e -> {
-            if (tabbedPane.getSelectedIndex() == 0) {
-                SwingUtilities.invokeLater(updateCanvas);
-            }
-        });
-        return editorPane;
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel();
+            pending = null;
+        }
     }
 
     public class ColoredTabbedPaneUI extends BasicTabbedPaneUI {
@@ -271,16 +315,19 @@ public class SVGPane extends JTabbedPane {
         }
     }
 
-    private void addContextMenu(JSVGCanvas canvas, String svgContent) {
+    private void addContextMenu(JSVGCanvas canvas) {
         JPopupMenu popupMenu = new JPopupMenu();
         JMenuItem openInBrowserItem = new JMenuItem("Open in Browser");
 
         openInBrowserItem.addActionListener(e -> {
+            if (rendering == null) {
+                return;
+            }
             try {
                 File tempFile = File.createTempFile("temp_svg_", ".svg");
                 tempFile.deleteOnExit(); // Clean up later
                 try (FileWriter writer = new FileWriter(tempFile)) {
-                    writer.write(svgContent);
+                    writer.write(rendering.svg());
                 }
                 Desktop.getDesktop().browse(tempFile.toURI());
             } catch (Exception ex) {
@@ -308,14 +355,14 @@ public class SVGPane extends JTabbedPane {
 
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
-                    openFullViewPopup(svgContent);
+                if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e) && source != null) {
+                    openFullViewPopup(source);
                 }
             }
         });
     }
 
-    private void openFullViewPopup(String svgContent) {
+    private void openFullViewPopup(String umlContent) {
         JDialog dialog = new JDialog((Frame) null, "Full View", true);
         dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
 
@@ -327,66 +374,14 @@ public class SVGPane extends JTabbedPane {
         dialog.setSize(800, 600); // Or full screen: Toolkit.getDefaultToolkit().getScreenSize()
         dialog.setLocationRelativeTo(null); // Center on screen
 
-        SwingUtilities.invokeLater(() -> loadSVG(fullViewCanvas, svgContent));
+        //
+        // served from the cache of the rendering service, with its own copy of
+        // the document
+        //
+        SVGRenderService.Request request = renderService.render(umlContent, 0, r -> fullViewCanvas.setSVGDocument(r.document()));
 
         dialog.setVisible(true);
-    }
-
-    public void loadSVG(JSVGCanvas svgCanvas, String svgContent) {
-        try {
-            // Convert the SVG string to InputStream
-            InputStream inputStream = new ByteArrayInputStream(svgContent.getBytes("UTF-8"));
-            String parser = XMLResourceDescriptor.getXMLParserClassName();
-            SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(parser);
-
-            // Create the SVGDocument
-            org.w3c.dom.svg.SVGDocument svgDocument = factory.createSVGDocument("http://www.w3.org/2000/svg", inputStream);
-            svgCanvas.setSVGDocument(svgDocument);
-
-            svgCanvas.addGVTTreeRendererListener(new GVTTreeRendererAdapter() {
-                @Override
-                public void gvtRenderingCompleted(GVTTreeRendererEvent e) {
-                    SwingUtilities.invokeLater(() -> {
-                        Dimension2D docSize = svgCanvas.getSVGDocumentSize();
-                        if (docSize != null) {
-                            int width = (int) Math.ceil(docSize.getWidth());
-                            int height = (int) Math.ceil(docSize.getHeight());
-                            svgCanvas.setPreferredSize(new Dimension(width, height));
-                            svgCanvas.revalidate();
-                        }
-                    });
-                }
-            });
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Converts a PlantUML string to SVG format.
-     *
-     * @param plantUmlString The PlantUML string to be converted.
-     * @return The SVG representation of the PlantUML string, or null if
-     * conversion fails.
-     */
-    public String convertPlantUmlToSvg(String plantUmlString) {
-        // Create a ByteArrayOutputStream to hold the SVG output
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            // Create a SourceStringReader with the PlantUML string
-            SourceStringReader reader = new SourceStringReader(plantUmlString);
-
-            // Output the image in SVG format
-            reader.outputImage(outputStream, new FileFormatOption(FileFormat.SVG));
-
-            // Return the SVG as a string
-            String svgContent = outputStream.toString("UTF-8");
-            svgContent = svgContent.replaceAll("text-decoration\\s*=\\s*\"wavy underline\"", "text-decoration=\"underline\"");
-            return svgContent;
-        } catch (IOException e) {
-            e.printStackTrace(); // Handle exceptions appropriately in your application
-        }
-        return null; // Return null if conversion fails
+        request.cancel();
     }
 
 }
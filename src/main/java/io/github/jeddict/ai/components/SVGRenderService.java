@@ -0,0 +1,236 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.dom.util.DOMUtilities;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.openide.util.RequestProcessor;
+import org.w3c.dom.svg.SVGDocument;
+
+/**
+ * Off the EDT rendering of PlantUML diagrams.
+ * <p>
+ * The PlantUML layout and the parsing of the resulting SVG run on a pool of at
+ * most {@link #WORKERS} threads, so that the diagrams of an answer render in
+ * parallel without blocking the UI. Renderings are cached by a hash of the
+ * diagram source; each request gets its own copy of the cached document since
+ * a canvas takes ownership of the document it shows. A request can be delayed,
+ * to debounce the edits of the source, and cancelled once it is stale: a
+ * cancelled request never calls back.
+ */
+public class SVGRenderService {
+
+    private static final Logger LOG = Logger.getLogger(SVGRenderService.class.getName());
+
+    private static final int WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final int MAX_ENTRIES = 32;
+
+    /**
+     * A rendered diagram.
+     *
+     * @param svg the SVG source
+     * @param document the parsed SVG, null if not parsed
+     */
+    public record Rendering(String svg, SVGDocument document) {
+
+        Rendering copy() {
+            return (document == null) ? this
+                    : new Rendering(svg, (SVGDocument) DOMUtilities.deepCloneDocument(document, document.getImplementation()));
+        }
+    }
+
+    public record Stats(long hits, long misses, int size) {}
+
+    /**
+     * A pending rendering request.
+     */
+    public static final class Request {
+
+        private volatile boolean cancelled;
+        private RequestProcessor.Task task;
+
+        /**
+         * Cancels the request; the callback is not called afterwards.
+         */
+        public void cancel() {
+            cancelled = true;
+            task.cancel();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final RequestProcessor processor;
+    private final Function<String, Rendering> renderer;
+    private final int maxEntries;
+
+    private final Map<String, Rendering> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Rendering> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private long hits, misses;
+
+    private static volatile SVGRenderService instance;
+
+    SVGRenderService(final int workers, final int maxEntries, final Function<String, Rendering> renderer) {
+        this.processor = new RequestProcessor(SVGRenderService.class.getName(), workers, true);
+        this.maxEntries = maxEntries;
+        this.renderer = renderer;
+    }
+
+    public static SVGRenderService getInstance() {
+        if (instance == null) {
+            synchronized (SVGRenderService.class) {
+                if (instance == null) {
+                    instance = new SVGRenderService(WORKERS, MAX_ENTRIES, SVGRenderService::renderPlantUml);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Renders the given PlantUML source after the given delay.
+     *
+     * @param source the PlantUML source
+     * @param delayMillis the delay in milliseconds
+     * @param callback called on the EDT with the rendering, unless the request
+     * is cancelled or the rendering fails
+     *
+     * @return the request
+     */
+    public Request render(final String source, final int delayMillis, final Consumer<Rendering> callback) {
+        final Request request = new Request();
+        request.task = processor.create(() -> {
+            if (request.cancelled) {
+                return;
+            }
+            final String key = key(source);
+            Rendering rendering = cached(key);
+            if (rendering == null) {
+                try {
+                    rendering = renderer.apply(source);
+                } catch (RuntimeException x) {
+                    LOG.log(Level.FINE, "Unable to render diagram", x);
+                }
+                if (rendering == null) {
+                    return;
+                }
+                //
+                // cached even if the request has been cancelled in the
+                // meantime: the same source is likely to be requested again
+                //
+                put(key, rendering);
+            }
+            if (request.cancelled) {
+                return;
+            }
+            final Rendering copy = rendering.copy();
+            SwingUtilities.invokeLater(() -> {
+                if (!request.cancelled) {
+                    callback.accept(copy);
+                }
+            });
+        });
+        request.task.schedule(Math.max(0, delayMillis));
+        return request;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, cache.size());
+    }
+
+    private synchronized Rendering cached(final String key) {
+        final Rendering rendering = cache.get(key);
+        if (rendering != null) {
+            ++hits;
+        } else {
+            ++misses;
+        }
+        return rendering;
+    }
+
+    private synchronized void put(final String key, final Rendering rendering) {
+        cache.put(key, rendering);
+    }
+
+    static String key(final String source) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(String.valueOf(source).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    private static Rendering renderPlantUml(final String source) {
+        final String svg = convertPlantUmlToSvg(source);
+        if (svg == null) {
+            return null;
+        }
+        try (InputStream inputStream = new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8))) {
+            final SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(XMLResourceDescriptor.getXMLParserClassName());
+            return new Rendering(svg, factory.createSVGDocument("http://www.w3.org/2000/svg", inputStream));
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "Unable to parse the SVG of a diagram", x);
+            return null;
+        }
+    }
+
+    /**
+     * Converts a PlantUML string to SVG format.
+     *
+     * @param plantUmlString The PlantUML string to be converted.
+     * @return The SVG representation of the PlantUML string, or null if
+     * conversion fails.
+     */
+    static String convertPlantUmlToSvg(final String plantUmlString) {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            final SourceStringReader reader = new SourceStringReader(plantUmlString);
+            reader.outputImage(outputStream, new FileFormatOption(FileFormat.SVG));
+            final String svgContent = outputStream.toString(StandardCharsets.UTF_8);
+            return svgContent.replaceAll("text-decoration\\s*=\\s*\"wavy underline\"", "text-decoration=\"underline\"");
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "Unable to convert a diagram to SVG", x);
+        }
+        return null;
+    }
+}
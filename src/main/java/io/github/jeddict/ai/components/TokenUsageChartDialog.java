@@ -17,17 +17,16 @@ package io.github.jeddict.ai.components;
 
 import io.github.jeddict.ai.response.TokenGranularity;
 import io.github.jeddict.ai.settings.PreferencesManager;
-import io.github.jeddict.ai.settings.ReportManager;
 import io.github.jeddict.ai.util.ColorUtil;
 import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_PLAIN_TEXT;
 import java.awt.*;
 import javax.swing.*;
-import org.json.JSONObject;
 
 public class TokenUsageChartDialog extends JDialog {
 
     private final JTabbedPane tabbedPane = new JTabbedPane();
+    private final RequestMetricsPanel metricsPanel;
 
     public TokenUsageChartDialog(Frame owner) {
         super(owner, "Token Usage Charts", true);
@@ -73,26 +72,16 @@ public class TokenUsageChartDialog extends JDialog {
             TokenGranularity selected = (TokenGranularity) timeframeComboBox.getSelectedItem();
             TokenGranularity current = PreferencesManager.getInstance().getTokenGranularity();
             if (!selected.equals(current)) {
-                int response = JOptionPane.showConfirmDialog(this,
-                        "Changing timeframe will erase existing token usage data.\nContinue?",
-                        "Confirm Timeframe Change",
-                        JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-
-                if (response == JOptionPane.YES_OPTION) {
-                    ReportManager.getInstance().setDailyInputTokenStats(new JSONObject());
-                    ReportManager.getInstance().setDailyOutputTokenStats(new JSONObject());
-                    PreferencesManager.getInstance().setTokenGranularity(selected);
-                    getContentPane().removeAll();
-                    dispose();
-                } else {
-                    timeframeComboBox.setSelectedItem(current);
-                }
+                // the usage log is rolled up at any granularity, nothing is lost
+                PreferencesManager.getInstance().setTokenGranularity(selected);
+                rebuildCharts();
             }
         });
 
         add(topPanel, BorderLayout.NORTH);
 
         TokenUsageChartFactory.resetTheme();
+        metricsPanel = new RequestMetricsPanel(bgColor, fgColor);
         rebuildCharts(); // Initial load
 
         add(tabbedPane, BorderLayout.CENTER);
@@ -118,6 +107,9 @@ public class TokenUsageChartDialog extends JDialog {
         tabbedPane.addTab("Input Tokens", TokenUsageChartFactory.createInputChartPanel());
         tabbedPane.addTab("Output Tokens", TokenUsageChartFactory.createOutputChartPanel());
         tabbedPane.addTab("Combined", TokenUsageChartFactory.createCombinedChartPanel());
+        tabbedPane.addTab("Models", TokenUsageChartFactory.createModelTotalsPanel());
+        metricsPanel.refresh();
+        tabbedPane.addTab("Performance", metricsPanel);
     }
 
     public static void showDialog(Component parentComponent) {
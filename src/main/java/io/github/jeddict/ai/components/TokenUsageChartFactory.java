@@ -16,13 +16,16 @@
 package io.github.jeddict.ai.components;
 
 import io.github.jeddict.ai.response.TokenGranularity;
+import io.github.jeddict.ai.response.TokenUsageLog;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.settings.ReportManager;
 import static io.github.jeddict.ai.util.ColorUtil.isDarkColor;
 import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_PLAIN_TEXT;
 import java.awt.*;
+import java.util.Map;
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -30,7 +33,6 @@ import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.data.category.DefaultCategoryDataset;
-import org.json.JSONObject;
 
 public class TokenUsageChartFactory {
 
@@ -41,50 +43,94 @@ public class TokenUsageChartFactory {
         darkThemeEnabled = isDarkColor(backgroundColor);
     }
 
+    private static final int BUCKETS = 30;
+
+    private static final String[] MODEL_COLUMNS = {
+        "Model", "Requests", "Input Tokens", "Cached Input Tokens", "Cached %", "Output Tokens", "Mean Latency (ms)"
+    };
+
     public static JPanel createInputChartPanel() {
-        JSONObject inputStats = ReportManager.getInstance().getDailyInputTokenStats();
-        return createBarChartPanel(inputStats, "Input Token Usage", "Input Tokens", getInputColor());
+        TokenUsageLog.Rollup usage = rollUp();
+        return createBarChartPanel(usage, usage.input(), "Input Token Usage", "Input Tokens", getInputColor());
     }
 
     public static JPanel createOutputChartPanel() {
-        JSONObject outputStats = ReportManager.getInstance().getDailyOutputTokenStats();
-        return createBarChartPanel(outputStats, "Output Token Usage", "Output Tokens", getOutputColor());
+        TokenUsageLog.Rollup usage = rollUp();
+        return createBarChartPanel(usage, usage.output(), "Output Token Usage", "Output Tokens", getOutputColor());
     }
 
     public static JPanel createCombinedChartPanel() {
-        JSONObject inputStats = ReportManager.getInstance().getDailyInputTokenStats();
-        JSONObject outputStats = ReportManager.getInstance().getDailyOutputTokenStats();
-        return createCombinedBarChartPanel(inputStats, outputStats, "Combined Token Usage");
+        return createCombinedBarChartPanel(rollUp(), "Combined Token Usage");
     }
 
-    private static JPanel createBarChartPanel(JSONObject stats, String title, String label, Color color) {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+    /**
+     * @return the table of the usage per model over the charted period,
+     * including the input tokens read from the provider prompt cache
+     */
+    public static JPanel createModelTotalsPanel() {
         TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
-        long now = System.currentTimeMillis() / granularity.intervalMillis;
-
-        int count = 0;
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int input = 0;
-            try {
-                input = stats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {
+        long since = (System.currentTimeMillis() / granularity.intervalMillis - BUCKETS + 1) * granularity.intervalMillis;
+        Map<String, TokenUsageLog.Totals> totals = ReportManager.getInstance().getTokenUsageLog().totalsByModel(since);
+
+        DefaultTableModel model = new DefaultTableModel(MODEL_COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return (column == 0) ? String.class : Long.class;
             }
-            count = count + input;
+        };
+        for (Map.Entry<String, TokenUsageLog.Totals> entry : totals.entrySet()) {
+            TokenUsageLog.Totals t = entry.getValue();
+            model.addRow(new Object[] {
+                entry.getKey(),
+                (long) t.requests(),
+                t.input(),
+                t.cachedInput(),
+                (t.input() > 0) ? Math.round(100.0 * t.cachedInput() / t.input()) : 0L,
+                t.output(),
+                (t.requests() > 0) ? t.latency() / t.requests() : 0L
+            });
+        }
+
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+
+        JLabel label = new JLabel("Last " + BUCKETS + " " + granularity.name().toLowerCase() + "s");
+        label.setForeground(darkThemeEnabled ? Color.WHITE : Color.BLACK);
+        label.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(darkThemeEnabled ? new Color(40, 40, 40) : Color.WHITE);
+        panel.add(label, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private static TokenUsageLog.Rollup rollUp() {
+        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
+        return ReportManager.getInstance().getTokenUsageLog().rollUp(granularity, BUCKETS, System.currentTimeMillis());
+    }
+
+    private static JPanel createBarChartPanel(TokenUsageLog.Rollup usage, long[] tokens, String title, String label, Color color) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        TokenGranularity granularity = usage.granularity();
+
+        long count = 0;
+        for (long t : tokens) {
+            count += t;
         }
         label = label + "(" + count + ")";
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int tokens = 0;
-            try {
-                tokens = stats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-            String labelStr = granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase() + "-" + (30 - i);
-            dataset.addValue(tokens, label, labelStr);
+        for (int i = 0; i < tokens.length; i++) {
+            dataset.addValue(tokens[i], label, bucketLabel(granularity, i));
         }
 
         JFreeChart chart = ChartFactory.createBarChart(
-                title + " (Last 30 " + granularity.name().toLowerCase() + "s)",
+                title + " (Last " + BUCKETS + " " + granularity.name().toLowerCase() + "s)",
                 granularity.name(), "Tokens", dataset);
 
         customizeChart(chart, color, 0);
@@ -92,48 +138,22 @@ public class TokenUsageChartFactory {
         return new ChartPanel(chart);
     }
 
-    private static JPanel createCombinedBarChartPanel(JSONObject inputStats, JSONObject outputStats, String title) {
+    private static JPanel createCombinedBarChartPanel(TokenUsageLog.Rollup usage, String title) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
-        long now = System.currentTimeMillis() / granularity.intervalMillis;
-
-        int inputCount = 0, outputCount = 0;
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int input = 0;
-            int output = 0;
-            try {
-                input = inputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-            try {
-                output = outputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-
-            inputCount = inputCount + input;
-            outputCount = outputCount + output;
-        }
-        String inputLabel = "Input Tokens (" + inputCount + ")";
-        String outputLabel = "Output Tokens (" + outputCount + ")";
-        
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int input = 0;
-            int output = 0;
-            try {
-                input = inputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-            try {
-                output = outputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-
-            String label = granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase() + "-" + (30 - i);
-
-            dataset.addValue(input, inputLabel, label);
-            dataset.addValue(output, outputLabel, label);
+        TokenGranularity granularity = usage.granularity();
+
+        String inputLabel = "Input Tokens (" + usage.totalInput() + ")";
+        String outputLabel = "Output Tokens (" + usage.totalOutput() + ")";
+
+        for (int i = 0; i < usage.input().length; i++) {
+            String label = bucketLabel(granularity, i);
+
+            dataset.addValue(usage.input()[i], inputLabel, label);
+            dataset.addValue(usage.output()[i], outputLabel, label);
         }
 
         JFreeChart chart = ChartFactory.createBarChart(
-                title + " (Last 30 " + granularity.name().toLowerCase() + "s)",
+                title + " (Last " + BUCKETS + " " + granularity.name().toLowerCase() + "s)",
                 granularity.name(), "Tokens", dataset);
 
         CategoryPlot plot = chart.getCategoryPlot();
@@ -149,6 +169,10 @@ public class TokenUsageChartFactory {
         return new ChartPanel(chart);
     }
 
+    private static String bucketLabel(TokenGranularity granularity, int index) {
+        return granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase() + "-" + (index + 1);
+    }
+
     private static void customizeChart(JFreeChart chart, Color color, int seriesIndex) {
         CategoryPlot plot = chart.getCategoryPlot();
         BarRenderer renderer = (BarRenderer) plot.getRenderer();
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import io.github.jeddict.ai.response.Block;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.KeyboardFocusManager;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ContainerAdapter;
+import java.awt.event.ContainerEvent;
+import java.awt.event.HierarchyEvent;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Virtualized rendering of the blocks of a chat transcript.
+ * <p>
+ * Each block is added to the transcript as a {@link Slot}, a lightweight
+ * placeholder keeping the {@link Block} model and the height of the pane. Only
+ * the slots within one viewport height of the visible area are materialized,
+ * i.e. hold the pane created by their factory; slots more than
+ * {@link #RELEASE_VIEWPORTS} viewport heights away release it again, unless
+ * it has the focus or shows a diff view. The block content is kept up to date
+ * by the panes, so a pane created anew, or taken back from a pool by the
+ * factory, shows the edits made in the released one.
+ * <p>
+ * Updates are coalesced on scroll and resize and keep the first visible
+ * component where it was, so that the view does not jump when the estimated
+ * height of a slot is replaced by the actual one.
+ */
+public class TranscriptVirtualizer {
+
+    private static final Logger LOG = Logger.getLogger(TranscriptVirtualizer.class.getName());
+
+    private static final int UPDATE_DELAY_MILLIS = 50;
+
+    private static final int RELEASE_VIEWPORTS = 3;
+
+    private static final int MIN_HEIGHT = 120, MAX_ESTIMATED_HEIGHT = 800;
+
+    /**
+     * A block of the transcript, holding its pane only while it is near the
+     * visible area.
+     */
+    public static final class Slot extends JPanel {
+
+        private final Block block;
+        private final Function<Block, JComponent> factory;
+        private final Consumer<JComponent> release;
+        private JComponent pane;
+        private int height;
+        private int selectedTab = -1;
+
+        private Slot(Block block, int height, Function<Block, JComponent> factory, Consumer<JComponent> release) {
+            super(new BorderLayout());
+            this.block = block;
+            this.factory = factory;
+            this.release = release;
+            this.height = height;
+            setOpaque(false);
+            setPreferredSize(new Dimension(0, height));
+            //
+            // a view shown next to the pane, e.g. a diff view, is added as
+            // the center too and takes its place in the layout: the pane
+            // gets it back once the view is removed
+            //
+            addContainerListener(new ContainerAdapter() {
+                @Override
+                public void componentRemoved(ContainerEvent e) {
+                    if (pane != null && e.getChild() != pane && pane.getParent() == Slot.this) {
+                        ((BorderLayout) getLayout()).addLayoutComponent(pane, BorderLayout.CENTER);
+                        revalidate();
+                        repaint();
+                    }
+                }
+            });
+        }
+
+        public Block getBlock() {
+            return block;
+        }
+
+        public JComponent getPane() {
+            return pane;
+        }
+
+        public boolean isMaterialized() {
+            return pane != null;
+        }
+
+        @Override
+        public Dimension getMaximumSize() {
+            final Dimension size = super.getMaximumSize();
+            return isMaterialized() ? size : new Dimension(size.width, height);
+        }
+
+        void materialize() {
+            if (pane != null) {
+                return;
+            }
+            pane = factory.apply(block);
+            if (pane instanceof JTabbedPane tabs && selectedTab >= 0 && selectedTab < tabs.getTabCount()) {
+                tabs.setSelectedIndex(selectedTab);
+            }
+            setPreferredSize(null);
+            add(pane, BorderLayout.CENTER);
+            revalidate();
+        }
+
+        void dematerialize() {
+            if (pane == null) {
+                return;
+            }
+            height = Math.max(getHeight(), 1);
+            selectedTab = (pane instanceof JTabbedPane tabs) ? tabs.getSelectedIndex() : -1;
+            remove(pane);
+            if (release != null) {
+                release.accept(pane);
+            }
+            pane = null;
+            setPreferredSize(new Dimension(0, height));
+            revalidate();
+            repaint();
+        }
+
+        /**
+         * @return true unless the slot holds the focus or shows more than its
+         * pane, e.g. a diff view opened next to it
+         */
+        boolean isReleasable(Component focusOwner) {
+            return getComponentCount() == 1
+                && (focusOwner == null || !SwingUtilities.isDescendingFrom(focusOwner, this));
+        }
+    }
+
+    private final JPanel transcript;
+    private final Timer timer;
+    private final ChangeListener viewportListener;
+    private JViewport viewport;
+
+    public TranscriptVirtualizer(final JPanel transcript) {
+        this.transcript = transcript;
+        this.timer = new Timer(UPDATE_DELAY_MILLIS, e -> update());
+        this.timer.setRepeats(false);
+        this.viewportListener = e -> timer.restart();
+        transcript.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0) {
+                attach((JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, transcript));
+            }
+        });
+    }
+
+    /**
+     * Creates the slot of a block. The slot must be added to the transcript
+     * by the caller; its pane is created once it gets near the visible area.
+     *
+     * @param block the block
+     * @param factory creates the pane of the block
+     * @param release called with the pane when it is released, to drop any
+     * reference kept to it
+     *
+     * @return the slot
+     */
+    public Slot slot(final Block block, final Function<Block, JComponent> factory, final Consumer<JComponent> release) {
+        final int lineHeight = transcript.getFontMetrics(transcript.getFont()).getHeight();
+        timer.restart();
+        return new Slot(block, estimateHeight(block.getContent(), lineHeight), factory, release);
+    }
+
+    /**
+     * Materializes the slots near the visible area and releases the panes of
+     * the ones far from it.
+     */
+    public void update() {
+        final Rectangle visible = transcript.getVisibleRect();
+        if (visible.height <= 0) {
+            return;
+        }
+        final Rectangle near = new Rectangle(visible.x, visible.y - visible.height, visible.width, visible.height * 3);
+        final Rectangle kept = new Rectangle(
+            visible.x, visible.y - visible.height * RELEASE_VIEWPORTS,
+            visible.width, visible.height * (2 * RELEASE_VIEWPORTS + 1)
+        );
+        final Component focusOwner = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+
+        Component anchor = null;
+        int anchorOffset = 0;
+        int materialized = 0, released = 0;
+        for (Component component : transcript.getComponents()) {
+            final Rectangle bounds = component.getBounds();
+            if (anchor == null && bounds.y + bounds.height > visible.y) {
+                anchor = component;
+                anchorOffset = bounds.y - visible.y;
+            }
+            if (!(component instanceof Slot slot)) {
+                continue;
+            }
+            if (bounds.intersects(near)) {
+                if (!slot.isMaterialized()) {
+                    slot.materialize();
+                    ++materialized;
+                }
+            } else if (slot.isMaterialized() && !bounds.intersects(kept) && slot.isReleasable(focusOwner)) {
+                slot.dematerialize();
+                ++released;
+            }
+        }
+        if (materialized == 0 && released == 0) {
+            return;
+        }
+        final int created = materialized, dropped = released;
+        LOG.finest(() -> "Transcript slots materialized: " + created + ", released: " + dropped);
+
+        //
+        // lay the transcript out again right away and keep the anchor at the
+        // same place in the viewport; materialized slots may have changed the
+        // heights and thus what is near the visible area, hence a new round
+        //
+        final Container root = (viewport != null) ? viewport.getParent() : transcript;
+        root.validate();
+        if (viewport != null && anchor != null && anchor.getParent() == transcript) {
+            final Point position = viewport.getViewPosition();
+            final int max = Math.max(0, transcript.getHeight() - viewport.getExtentSize().height);
+            final int y = Math.max(0, Math.min(max, anchor.getY() - anchorOffset));
+            if (y != position.y) {
+                viewport.setViewPosition(new Point(position.x, y));
+            }
+        }
+        if (materialized > 0) {
+            timer.restart();
+        }
+    }
+
+    private void attach(final JViewport newViewport) {
+        if (newViewport == viewport) {
+            return;
+        }
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+        }
+        viewport = newViewport;
+        if (viewport != null) {
+            viewport.addChangeListener(viewportListener);
+            timer.restart();
+        }
+    }
+
+    /**
+     * @return the height of a block not shown yet: the height of its lines
+     * plus room for the tabs, within reasonable bounds
+     */
+    static int estimateHeight(final String content, final int lineHeight) {
+        int lines = 1;
+        if (content != null) {
+            for (int i = content.indexOf('\n'); i >= 0; i = content.indexOf('\n', i + 1)) {
+                ++lines;
+            }
+        }
+        return Math.max(MIN_HEIGHT, Math.min(MAX_ESTIMATED_HEIGHT, lines * lineHeight + 2 * lineHeight));
+    }
+}
@@ -46,8 +46,13 @@ import io.github.jeddict.ai.components.CustomScrollBarUI;
 import static io.github.jeddict.ai.components.MarkdownPane.getHtmlWrapWidth;
 import io.github.jeddict.ai.lang.JeddictBrain;
 import io.github.jeddict.ai.lang.JeddictBrainListener;
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.metrics.RequestMetrics.Metric;
+import io.github.jeddict.ai.metrics.RequestMetrics.Series;
 import io.github.jeddict.ai.response.Block;
+import io.github.jeddict.ai.response.ConversationHistory;
 import io.github.jeddict.ai.response.Response;
+import io.github.jeddict.ai.response.TokenCounter;
 import io.github.jeddict.ai.review.Review;
 import static io.github.jeddict.ai.review.ReviewUtil.convertReviewsToHtml;
 import static io.github.jeddict.ai.review.ReviewUtil.parseReviewsFromYaml;
@@ -555,7 +560,11 @@ public class AssistantChatManager extends JavaFix {
     }
 
     private void handleQuestion(String question, Set<FileObject> messageContext, boolean newQuery) {
+        final long submitted = System.nanoTime();
         result = executorService.submit(() -> {
+            RequestMetrics.getInstance().recordSince(
+                Series.of(pm.getProvider(), tc.getModelName(), null, "chat"), Metric.QUEUE_WAIT, submitted
+            );
             try {
                 tc.startLoading();
                 // TODO: to be removed once all agents will use buit-in memory
@@ -568,15 +577,14 @@ public class AssistantChatManager extends JavaFix {
                     currentResponseIndex = currentResponseIndex - 1;
                 }
 
-                final int historySize = pm.getConversationContext();
-                List<Response> prevChatResponses;
-                if (historySize == -1) {
-                    // Entire conversation
-                    prevChatResponses = new ArrayList<>(responseHistory);
-                } else {
-                    int startIndex = Math.max(0, responseHistory.size() - historySize);
-                    prevChatResponses = responseHistory.subList(startIndex, responseHistory.size());
-                }
+                //
+                // the last replies within the token budget; -1 = entire conversation
+                //
+                final ConversationHistory history = new ConversationHistory(
+                        pm.getConversationTokenBudget(), pm.getConversationMaxChars());
+                final List<Response> prevChatResponses = history.select(
+                        responseHistory, pm.getConversationContext(),
+                        TokenCounter.getInstance().getEncoding(pm.getProvider(), tc.getModelName()));
                 Set<FileObject> messageContextCopy = new HashSet<>(messageContext);
                 handler = new JeddictBrainListener(tc) {
                     @Override
@@ -594,6 +602,7 @@ public class AssistantChatManager extends JavaFix {
                         // TODO: to be removed once all agents will use buit-in memory
                         if (responseHistory.isEmpty() || !textResponse.equals(responseHistory.get(responseHistory.size() - 1))) {
                             responseHistory.add(r);
+                            history.trim(responseHistory);
                             currentResponseIndex = responseHistory.size() - 1;
                         }
                         SwingUtilities.invokeLater(() -> {
@@ -15,7 +15,9 @@
  */
 package io.github.jeddict.ai.hints;
 
+import io.github.jeddict.ai.agent.pair.PairProgrammer;
 import io.github.jeddict.ai.completion.Action;
+import io.github.jeddict.ai.lang.ChatModelRegistry;
 import io.github.jeddict.ai.lang.JeddictBrain;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.util.AgentUtil;
@@ -77,6 +79,20 @@ public abstract class BaseAIFix extends JavaFix {
         return new JeddictBrain(pm.getModelName(), false, List.of());
     }
 
+    /**
+     * Returns a memoryless pair programmer for the current model, shared
+     * through {@link ChatModelRegistry} instead of building a new model and
+     * agent proxy for every fix.
+     *
+     * @param <T> the type of the agent
+     * @param specialist the specialist defining the agent
+     *
+     * @return the pooled agent
+     */
+    protected <T> T pairProgrammer(final PairProgrammer.Specialist specialist) {
+        return ChatModelRegistry.getInstance().pairProgrammer(pm.getModelName(), specialist);
+    }
+
     protected String globalRules() {
         return AgentUtil.normalizeRules(pm.getGlobalRules());
     }
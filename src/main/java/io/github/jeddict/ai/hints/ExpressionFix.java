@@ -55,7 +55,7 @@ public class ExpressionFix extends TreePathAIFix {
         final Tree leaf = treePath.getLeaf();
         final com.sun.source.tree.ExpressionStatementTree expressionStatement = (com.sun.source.tree.ExpressionStatementTree) leaf;
 
-        final RefactorSpecialist pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.REFACTOR);
+        final RefactorSpecialist pair = pairProgrammer(PairProgrammer.Specialist.REFACTOR);
 
         String content = pair.enhanceExpressionStatement(
             treePath.getCompilationUnit().toString(),
@@ -146,7 +146,7 @@ public class JavaDocFix extends BaseAIFix {
             String javadocContent;
             DocCommentTree oldDocCommentTree = copy.getDocTrees().getDocCommentTree(treePath);
 
-            final TechWriter pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.TECHWRITER);
+            final TechWriter pair = pairProgrammer(PairProgrammer.Specialist.TECHWRITER);
             final Project project = FileOwnerQuery.getOwner(copy.getFileObject());
 
             SwingUtilities.invokeLater(() -> progress.start());
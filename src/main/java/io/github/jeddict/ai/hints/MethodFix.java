@@ -89,7 +89,7 @@ public class MethodFix extends BaseAIFix {
         String content = null;
         if (leaf.getKind() == METHOD) {
             final Project project = FileOwnerQuery.getOwner(copy.getFileObject());
-            final RefactorSpecialist pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.REFACTOR);
+            final RefactorSpecialist pair = pairProgrammer(PairProgrammer.Specialist.REFACTOR);
             final String classSource = treePath.getParentPath().getLeaf().toString();
             final String methodSource = leaf.toString();
 
@@ -74,7 +74,7 @@ public class RestEndpointFix extends BaseAIFix {
             SwingUtilities.invokeLater(() -> progress.start());
 
             if (leaf.getKind() == CLASS || leaf.getKind() == INTERFACE) {
-                RestSpecialist pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.REST);
+                RestSpecialist pair = pairProgrammer(PairProgrammer.Specialist.REST);
                 final Project project = FileOwnerQuery.getOwner(copy.getFileObject());
 
                 JSONObject json = new JSONObject(
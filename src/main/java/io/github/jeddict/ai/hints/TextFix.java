@@ -60,7 +60,7 @@ public class TextFix extends TreePathAIFix {
             return;
         }
 
-        final Shakespeare pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.SHAKESPEARE);
+        final Shakespeare pair = pairProgrammer(PairProgrammer.Specialist.SHAKESPEARE);
 
         String content;
         if (action == Action.ENHANCE) {
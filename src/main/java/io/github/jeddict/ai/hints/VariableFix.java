@@ -88,7 +88,7 @@ public class VariableFix extends BaseAIFix {
                         prefsManager.getClassContext()
                 );
 
-            final RefactorSpecialist pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.REFACTOR);
+            final RefactorSpecialist pair = pairProgrammer(PairProgrammer.Specialist.REFACTOR);
             final Project project = FileOwnerQuery.getOwner(copy.getFileObject());
             final String classSource = treePath.getParentPath().getLeaf().toString();
 
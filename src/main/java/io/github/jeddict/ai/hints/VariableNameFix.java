@@ -69,7 +69,7 @@ public class VariableNameFix extends TreePathAIFix {
         Tree leaf = path.getLeaf();
         Element elm = copy.getTrees().getElement(path);
         if (elm instanceof VariableElement) {
-            final RefactorSpecialist pair = newJeddictBrain().pairProgrammer(PairProgrammer.Specialist.REFACTOR);
+            final RefactorSpecialist pair = pairProgrammer(PairProgrammer.Specialist.REFACTOR);
             final Project project = FileOwnerQuery.getOwner(copy.getFileObject());
             final String classSource = copy.getCompilationUnit().toString();
             final String methodSource = treePath.getParentPath().getLeaf().toString();
@@ -15,7 +15,9 @@
  */
 package io.github.jeddict.ai.lang;
 
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -180,6 +182,25 @@ public interface ChatModelBaseBuilder<T> {
      */
     ChatModelBaseBuilder<T> allowCodeExecution(final boolean allowCodeExecution);
 
+    /**
+     * Sets whether to mark the stable prefix of the prompt (system messages and
+     * tools) as cacheable, for the APIs that require explicit cache
+     * breakpoints.
+     *
+     * @param promptCaching Whether to cache the prompt prefix
+     * @return The builder instance
+     */
+    ChatModelBaseBuilder<T> promptCaching(final boolean promptCaching);
+
+    /**
+     * Sets the listeners notified of the requests sent to the model and of
+     * its responses.
+     *
+     * @param listeners The listeners
+     * @return The builder instance
+     */
+    ChatModelBaseBuilder<T> listeners(final List<ChatModelListener> listeners);
+
     /**
      * Builds and returns the configured chat model instance.
      *
@@ -16,7 +16,9 @@
 package io.github.jeddict.ai.lang;
 
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -89,6 +91,12 @@ public interface ChatModelBuilder extends ChatModelBaseBuilder<ChatModel> {
     @Override
     ChatModelBuilder allowCodeExecution(final boolean allowCodeExecution);
 
+    @Override
+    ChatModelBuilder promptCaching(final boolean promptCaching);
+
+    @Override
+    ChatModelBuilder listeners(final List<ChatModelListener> listeners);
+
     @Override
     ChatModel build();
 
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.agentic.AgenticServices;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import io.github.jeddict.ai.agent.pair.PairProgrammer;
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Pool of long-lived chat models and memoryless pair programmer agents.
+ * <p>
+ * langchain4j models are thread safe and own their HTTP client and connection
+ * pool, therefore they are shared instead of being built for every request.
+ * Entries are keyed by provider, model name and a hash of the settings used by
+ * {@link JeddictChatModelBuilder}; the pool is flushed only when one of those
+ * settings changes, which is detected through
+ * {@link PreferencesManager#getRevision()}.
+ * <p>
+ * Every pooled model carries a {@link TokenUsageListener}, so the token usage
+ * of all requests, plain, streaming or made by agents, is logged once.
+ */
+public class ChatModelRegistry {
+
+    private static final Logger LOG = Logger.getLogger(ChatModelRegistry.class.getCanonicalName());
+
+    private record ModelKey(GenAIProvider provider, String modelName, int settingsHash) {}
+
+    private record AgentKey(ModelKey model, PairProgrammer.Specialist specialist) {}
+
+    private final Map<ModelKey, ChatModel> chatModels = new ConcurrentHashMap<>();
+    private final Map<ModelKey, StreamingChatModel> streamingChatModels = new ConcurrentHashMap<>();
+    private final Map<AgentKey, Object> pairProgrammers = new ConcurrentHashMap<>();
+
+    private volatile long revision = Long.MIN_VALUE;
+    private volatile int settingsHash;
+
+    private static volatile ChatModelRegistry instance;
+
+    private ChatModelRegistry() {
+    }
+
+    public static ChatModelRegistry getInstance() {
+        if (instance == null) {
+            synchronized (ChatModelRegistry.class) {
+                if (instance == null) {
+                    instance = new ChatModelRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param modelName the model name
+     * @return the shared non streaming model for the current settings
+     */
+    public ChatModel chatModel(final String modelName) {
+        return chatModel(key(modelName));
+    }
+
+    /**
+     * @param modelName the model name
+     * @return the shared streaming model for the current settings
+     */
+    public StreamingChatModel streamingChatModel(final String modelName) {
+        return streamingChatModels.computeIfAbsent(key(modelName),
+                k -> new JeddictChatModelBuilder(k.modelName()).listeners(usageListener(k)).buildStreaming());
+    }
+
+    /**
+     * Returns a shared pair programmer agent without chat memory. Agents with
+     * memory hold conversation state and must be created through
+     * {@link JeddictBrain#pairProgrammer(PairProgrammer.Specialist)} instead.
+     * The latency of the calls is recorded in {@link RequestMetrics}.
+     *
+     * @param <T> the type of the agent
+     * @param modelName the model name
+     * @param specialist the specialist defining the agent
+     *
+     * @return the cached agent for the current settings
+     */
+    public <T> T pairProgrammer(final String modelName, final PairProgrammer.Specialist specialist) {
+        final ModelKey model = key(modelName);
+        return (T) pairProgrammers.computeIfAbsent(new AgentKey(model, specialist),
+                k -> RequestMetrics.getInstance().timed(model.provider(), modelName, specialist,
+                        AgenticServices.agentBuilder(specialist.specialistClass)
+                                .chatModel(chatModel(model))
+                                .build()));
+    }
+
+    /**
+     * Drops all pooled models and agents.
+     */
+    public void clear() {
+        chatModels.clear();
+        streamingChatModels.clear();
+        pairProgrammers.clear();
+    }
+
+    private ChatModel chatModel(final ModelKey key) {
+        return chatModels.computeIfAbsent(key,
+                k -> new JeddictChatModelBuilder(k.modelName()).listeners(usageListener(k)).build());
+    }
+
+    private static List<ChatModelListener> usageListener(final ModelKey key) {
+        return List.of(new TokenUsageListener(key.provider(), key.modelName()));
+    }
+
+    private ModelKey key(final String modelName) {
+        if (modelName == null) {
+            throw new IllegalArgumentException("modelName can not be null");
+        }
+        final PreferencesManager pm = PreferencesManager.getInstance();
+        final long current = pm.getRevision();
+        if (current != revision) {
+            synchronized (this) {
+                if (current != revision) {
+                    final int hash = computeSettingsHash(pm);
+                    if (hash != settingsHash) {
+                        LOG.finest(() -> "Model settings changed, flushing pooled models");
+                        clear();
+                        settingsHash = hash;
+                    }
+                    revision = current;
+                }
+            }
+        }
+        return new ModelKey(pm.getProvider(), modelName, settingsHash);
+    }
+
+    /**
+     * Hashes the settings read by {@link JeddictChatModelBuilder} when
+     * building a model; unrelated preferences do not invalidate the pool.
+     */
+    private int computeSettingsHash(final PreferencesManager pm) {
+        final GenAIProvider provider = pm.getProvider();
+        return Objects.hash(
+                provider,
+                pm.getProviderLocation(provider),
+                pm.getApiKey(provider),
+                pm.getCustomHeaders(),
+                pm.getTemperature(),
+                pm.getTimeout(),
+                pm.getMaxRetries(),
+                pm.getMaxOutputTokens(),
+                pm.getRepeatPenalty(),
+                pm.getSeed(),
+                pm.getMaxTokens(),
+                pm.getMaxCompletionTokens(),
+                pm.getTopK(),
+                pm.getPresencePenalty(),
+                pm.getFrequencyPenalty(),
+                pm.getOrganizationId(),
+                pm.isLogRequestsEnabled(),
+                pm.isLogResponsesEnabled(),
+                pm.isIncludeCodeExecutionOutput(),
+                pm.isAllowCodeExecution(),
+                pm.isPromptCachingEnabled()
+        );
+    }
+}
@@ -16,7 +16,9 @@
 package io.github.jeddict.ai.lang;
 
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -87,6 +89,12 @@ public interface ChatModelStreamingBuilder extends ChatModelBaseBuilder<Streamin
     @Override
     ChatModelStreamingBuilder allowCodeExecution(final boolean allowCodeExecution);
 
+    @Override
+    ChatModelStreamingBuilder promptCaching(final boolean promptCaching);
+
+    @Override
+    ChatModelStreamingBuilder listeners(final List<ChatModelListener> listeners);
+
     @Override
     StreamingChatModel build();
 
@@ -19,6 +19,7 @@ package io.github.jeddict.ai.lang;
  *
  * @author Shiwani Gupta
  */
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agentic.AgenticServices;
 import dev.langchain4j.agentic.agent.AgentBuilder;
 import dev.langchain4j.data.message.AiMessage;
@@ -37,6 +38,10 @@ import dev.langchain4j.service.AiServices;
 import io.github.jeddict.ai.agent.AbstractTool;
 import io.github.jeddict.ai.agent.Assistant;
 import io.github.jeddict.ai.agent.pair.PairProgrammer;
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.metrics.RequestMetrics.Metric;
+import io.github.jeddict.ai.metrics.RequestMetrics.Series;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
 import io.github.jeddict.ai.response.Response;
 import io.github.jeddict.ai.response.TokenHandler;
 import io.github.jeddict.ai.scanner.ProjectMetadataInfo;
@@ -46,8 +51,12 @@ import io.github.jeddict.ai.util.Utilities;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import org.netbeans.api.project.Project;
 
@@ -57,6 +66,8 @@ public class JeddictBrain implements PropertyChangeEmitter {
 
     private static final String SYSTEM_INSTRUCTIONS = "All code must be in fenced ```language blocks; never output unfenced code.";
 
+    private static final RequestMetrics metrics = RequestMetrics.getInstance();
+
     private int memorySize = 0;
 
     public enum EventProperty {
@@ -100,14 +111,17 @@ public class JeddictBrain implements PropertyChangeEmitter {
         }
         this.modelName = modelName;
 
-        final JeddictChatModelBuilder builder =
-            new JeddictChatModelBuilder(this.modelName);
+        //
+        // Models are pooled: building one creates a new HTTP client and
+        // connection pool, which is too expensive to pay on every request
+        //
+        final ChatModelRegistry registry = ChatModelRegistry.getInstance();
 
         if (streaming) {
-            this.streamingChatModel = Optional.of(builder.buildStreaming());
+            this.streamingChatModel = Optional.of(registry.streamingChatModel(this.modelName));
             this.chatModel = Optional.empty();
         } else {
-            this.chatModel = Optional.of(builder.build());
+            this.chatModel = Optional.of(registry.chatModel(this.modelName));
             this.streamingChatModel = Optional.empty();
         }
         this.tools = (tools != null)
@@ -177,29 +191,30 @@ public class JeddictBrain implements PropertyChangeEmitter {
         if (chatModel.isEmpty() && streamingChatModel.isEmpty()) {
             throw new IllegalStateException("AI assistant model not intitalized, this looks like a bug!");
         }
+        final long buildStart = System.nanoTime();
+        final GenAIProvider provider = PreferencesManager.getInstance().getProvider();
+        final Series series = Series.of(provider, modelName, null, agentEnabled ? "agent" : "chat");
 
-        if (project != null) {
-            prompt = prompt + "\n" + ProjectMetadataInfo.get(project);
-        }
-        StringBuilder systemMessage = new StringBuilder();
+        //
+        // Messages go from the most to the least stable content, so that
+        // providers caching prompt prefixes can reuse the system message and
+        // the history: instructions, rules and project metadata first, the
+        // new prompt last
+        //
+        StringBuilder systemMessage = new StringBuilder(SYSTEM_INSTRUCTIONS);
         String globalRules = PreferencesManager.getInstance().getGlobalRules();
         if (globalRules != null) {
-            systemMessage.append(globalRules);
+            systemMessage.append('\n').append(globalRules);
         }
         if (project != null) {
             String projectRules = PreferencesManager.getInstance().getProjectRules(project);
             if (projectRules != null) {
                 systemMessage.append('\n').append(projectRules);
             }
+            systemMessage.append('\n').append(ProjectMetadataInfo.get(project));
         }
-        if (systemMessage.length() > 0) {
-            systemMessage.append('\n');
-        }
-        systemMessage.append(SYSTEM_INSTRUCTIONS);
         List<ChatMessage> messages = new ArrayList<>();
-        if (systemMessage.length() > 0) {
-            messages.add(SystemMessage.from(systemMessage.toString()));
-        }
+        messages.add(SystemMessage.from(systemMessage.toString()));
 
         //
         // add conversation history (multiple responses)
@@ -222,9 +237,16 @@ public class JeddictBrain implements PropertyChangeEmitter {
             messages.add(UserMessage.from(prompt));
         }
         //
-        // TODO: P3 - decouple token counting from saving stats; saving stats should listen to this event
+        // The estimate is shown while waiting; the usage is logged once
+        // completed by the TokenUsageListener of the pooled model
         //
-        fireEvent(EventProperty.CHAT_TOKENS, TokenHandler.saveInputToken(messages));
+        final int inputTokens = TokenHandler.countInputTokens(messages, modelName);
+        fireEvent(EventProperty.CHAT_TOKENS, inputTokens);
+        metrics.recordSince(series, Metric.PROMPT_BUILD, buildStart);
+
+        final long start = System.nanoTime();
+        final AtomicLong firstToken = new AtomicLong();
+        final Map<String, Long> toolStarts = new ConcurrentHashMap<>();
 
         final StringBuilder response = new StringBuilder();
         try {
@@ -238,14 +260,28 @@ public class JeddictBrain implements PropertyChangeEmitter {
 
                     assistant.stream(messages)
                         .onCompleteResponse(complete -> {
+                            recordUsage(provider, series, inputTokens, complete, start, firstToken.get());
                             fireEvent(EventProperty.CHAT_COMPLETED, complete);
                         })
                         .onPartialResponse(partial -> {
+                            recordFirstToken(series, start, firstToken);
                             fireEvent(EventProperty.CHAT_PARTIAL, partial);
                         })
                         .onIntermediateResponse(intermediate -> fireEvent(EventProperty.CHAT_INTERMEDIATE, intermediate))
-                        .beforeToolExecution(execution -> fireEvent(EventProperty.TOOL_BEFORE_EXECUTION, execution))
-                        .onToolExecuted(execution -> fireEvent(EventProperty.TOOL_EXECUTED, execution))
+                        .beforeToolExecution(execution -> {
+                            toolStarts.put(toolId(execution.request()), System.nanoTime());
+                            fireEvent(EventProperty.TOOL_BEFORE_EXECUTION, execution);
+                        })
+                        .onToolExecuted(execution -> {
+                            final Long toolStart = toolStarts.remove(toolId(execution.request()));
+                            if (toolStart != null) {
+                                metrics.recordSince(
+                                    Series.of(provider, modelName, null, execution.request().name()),
+                                    Metric.TOOL_CALL, toolStart
+                                );
+                            }
+                            fireEvent(EventProperty.TOOL_EXECUTED, execution);
+                        })
                         .onError(error -> {
                             fireEvent(EventProperty.CHAT_ERROR, error);
                         })
@@ -254,11 +290,13 @@ public class JeddictBrain implements PropertyChangeEmitter {
                     streamingChatModel.get().chat(messages, new StreamingChatResponseHandler() {
                         @Override
                         public void onPartialResponse(final String partial) {
+                            recordFirstToken(series, start, firstToken);
                             fireEvent(EventProperty.CHAT_PARTIAL, partial);
                         }
 
                         @Override
                         public void onCompleteResponse(final ChatResponse completed) {
+                            recordUsage(provider, series, inputTokens, completed, start, firstToken.get());
                             fireEvent(EventProperty.CHAT_COMPLETED, completed);
                         }
 
@@ -279,16 +317,16 @@ public class JeddictBrain implements PropertyChangeEmitter {
                             .tools(tools.toArray())
                             .build();
                     aiResponse = assistant.chat(messages);
-                    chatResponse = ChatResponse.builder().aiMessage(aiResponse.content()).build();
+                    chatResponse = ChatResponse.builder()
+                            .aiMessage(aiResponse.content())
+                            .tokenUsage(aiResponse.tokenUsage())
+                            .build();
                 } else {
                     chatResponse = model.chat(messages);
                 }
                 fireEvent(EventProperty.CHAT_COMPLETED, chatResponse);
                 response.append(chatResponse.aiMessage().text());
-
-                //
-                // TODO: the token count is in the response
-                CompletableFuture.runAsync(() -> TokenHandler.saveOutputToken(response.toString()));
+                recordUsage(provider, series, inputTokens, chatResponse, start, 0);
             }
         } catch (Exception x) {
             LOG.finest(() -> "Communication error: " + x.getMessage());
@@ -301,6 +339,42 @@ public class JeddictBrain implements PropertyChangeEmitter {
         return response.toString();
     }
 
+    /**
+     * Records the latency and the throughput of a completed request in the
+     * metrics; the usage itself is logged by {@link TokenUsageListener}.
+     *
+     * @param start the time the request was sent, from {@link System#nanoTime()}
+     * @param firstToken the time the first token was received, 0 if not streamed
+     */
+    private void recordUsage(
+        final GenAIProvider provider, final Series series, final int inputTokens, final ChatResponse response,
+        final long start, final long firstToken
+    ) {
+        final long end = System.nanoTime();
+        final long latency = TimeUnit.NANOSECONDS.toMillis(end - start);
+        metrics.record(series, Metric.LATENCY, latency);
+        CompletableFuture.runAsync(() -> {
+            final TokenHandler.Usage usage = TokenHandler.usage(provider, modelName, inputTokens, response);
+            final long generation = end - ((firstToken != 0) ? firstToken : start);
+            if (usage.output() > 0 && generation > 0) {
+                metrics.record(series, Metric.TOKENS_PER_SECOND, usage.output() * TimeUnit.SECONDS.toNanos(1) / generation);
+            }
+            if (usage.input() > 0) {
+                metrics.record(series, Metric.CACHED_INPUT, 100L * usage.cachedInput() / usage.input());
+            }
+        });
+    }
+
+    private void recordFirstToken(final Series series, final long start, final AtomicLong firstToken) {
+        if (firstToken.get() == 0 && firstToken.compareAndSet(0, System.nanoTime())) {
+            metrics.recordSince(series, Metric.FIRST_TOKEN, start);
+        }
+    }
+
+    private static String toolId(final ToolExecutionRequest request) {
+        return (request.id() != null) ? request.id() : request.name();
+    }
+
     /**
      * Creates and configures a pair programmer agent based on the specified specialist.
      *
@@ -318,7 +392,7 @@ public class JeddictBrain implements PropertyChangeEmitter {
             builder.chatMemory(MessageWindowChatMemory.withMaxMessages(memorySize));
         }
 
-        return (T)builder.build();
+        return (T)metrics.timed(PreferencesManager.getInstance().getProvider(), modelName, specialist, builder.build());
     }
 
     public String generateDescription(
@@ -23,16 +23,16 @@ import io.github.jeddict.ai.JeddictUpdateManager;
 import io.github.jeddict.ai.agent.AbstractTool;
 import io.github.jeddict.ai.components.AssistantChat;
 import static io.github.jeddict.ai.lang.JeddictChatModelBuilder.pm;
-import io.github.jeddict.ai.response.TokenHandler;
 import io.github.jeddict.ai.util.Utilities;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.lang.reflect.InvocationTargetException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.Box;
@@ -44,8 +44,8 @@ import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 import org.netbeans.api.progress.ProgressHandle;
-import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 
 /**
  * Purpose of this class is to receive events emitted by the JeddictBrain system
@@ -64,11 +64,23 @@ public abstract class JeddictBrainListener
     private boolean init = true;
     private JTextArea textArea;
     private final ProgressHandle handle;
-    private boolean complete;
+    private volatile boolean complete;
     protected final StringBuilder toolingResponse = new StringBuilder();
 
     private static final Logger LOG = Logger.getLogger(JeddictBrainListener.class.getName());
 
+    /**
+     * Minimum time between two updates of the text area with the streamed
+     * response, about 30 frames per second
+     */
+    public static final int PARTIAL_FLUSH_MILLIS = 33;
+
+    private static final RequestProcessor FLUSHER = new RequestProcessor(JeddictBrainListener.class.getName(), 1);
+
+    private final ConcurrentLinkedQueue<String> pendingPartials = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile long lastFlush = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(PARTIAL_FLUSH_MILLIS);
+
     public JeddictBrainListener(AssistantChat topComponent) {
         this.topComponent = topComponent;
 
@@ -105,33 +117,67 @@ public abstract class JeddictBrainListener
         }
     }
 
+    /**
+     * Queues the given text to be appended to the response text area. The
+     * caller never waits for the EDT: the queued text is appended in batches,
+     * at most once every {@link #PARTIAL_FLUSH_MILLIS} milliseconds.
+     *
+     * @param partialResponse the text received
+     */
     public void onPartialResponse(String partialResponse) {
-        try {
-            LOG.finest(() -> "partial response: " + partialResponse);
-
-            SwingUtilities.invokeAndWait(() -> {
-                if (init) {
-                    topComponent.clear();
-                    textArea = topComponent.createTextAreaPane();
-                    textArea.setText(partialResponse);
-                    init = false;
-                } else {
-                    textArea.append(partialResponse);
-                }
-            });
-        } catch (InterruptedException | InvocationTargetException ex) {
-            Exceptions.printStackTrace(ex);
+        LOG.finest(() -> "partial response: " + partialResponse);
+
+        pendingPartials.offer(partialResponse);
+        if (flushScheduled.compareAndSet(false, true)) {
+            final long wait = PARTIAL_FLUSH_MILLIS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastFlush);
+            if (wait <= 0) {
+                SwingUtilities.invokeLater(this::flushPartials);
+            } else {
+                FLUSHER.post(() -> SwingUtilities.invokeLater(this::flushPartials), (int) wait);
+            }
+        }
+    }
+
+    /**
+     * Appends the queued partial responses to the text area; runs on the EDT.
+     * Once the response is complete the queued text is dropped, the complete
+     * response replacing the streamed one.
+     */
+    private void flushPartials() {
+        //
+        // cleared before draining so that text queued after the last poll
+        // schedules a new flush
+        //
+        flushScheduled.set(false);
+        lastFlush = System.nanoTime();
+        if (complete) {
+            pendingPartials.clear();
+            return;
+        }
+
+        final StringBuilder text = new StringBuilder();
+        String partial;
+        while ((partial = pendingPartials.poll()) != null) {
+            text.append(partial);
+        }
+        if (text.isEmpty()) {
+            return;
+        }
+        if (init) {
+            topComponent.clear();
+            textArea = topComponent.createTextAreaPane();
+            textArea.setText(text.toString());
+            init = false;
+        } else {
+            textArea.append(text.toString());
         }
     }
 
     public void onCompleteResponse(ChatResponse completeResponse) {
         LOG.finest(() -> "complete response received: " + completeResponse);
         complete = true;
+        pendingPartials.clear();
 
-        String response = completeResponse.aiMessage().text();
-        if (response != null && !response.isEmpty()) {
-            CompletableFuture.runAsync(() -> TokenHandler.saveOutputToken(response));
-        }
         SwingUtilities.invokeLater(() -> {
             handle.finish();
         });
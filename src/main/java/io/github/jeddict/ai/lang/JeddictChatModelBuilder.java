@@ -17,6 +17,7 @@ package io.github.jeddict.ai.lang;
 
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import io.github.jeddict.ai.lang.impl.AnthropicBuilder;
 import io.github.jeddict.ai.lang.impl.AnthropicStreamingBuilder;
 import io.github.jeddict.ai.lang.impl.GoogleBuilder;
@@ -46,6 +47,7 @@ import static io.github.jeddict.ai.models.registry.GenAIProvider.OPEN_AI;
 import static io.github.jeddict.ai.models.registry.GenAIProvider.PERPLEXITY;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -61,6 +63,7 @@ public class JeddictChatModelBuilder {
 
     protected static PreferencesManager pm = PreferencesManager.getInstance();
     private String modelName;
+    private List<ChatModelListener> listeners = List.of();
 
     public JeddictChatModelBuilder() {
         this(null);
@@ -70,6 +73,15 @@ public class JeddictChatModelBuilder {
         this.modelName = modelName; // P2 - TODO: can this be null?
     }
 
+    /**
+     * @param listeners the listeners attached to the models built
+     * @return this builder
+     */
+    public JeddictChatModelBuilder listeners(final List<ChatModelListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        return this;
+    }
+
     public ChatModel build() {
         LOG.finest(() -> "Building model " + modelName);
 
@@ -155,7 +167,9 @@ public class JeddictChatModelBuilder {
 
         builder.logRequestsResponses(pm.isLogRequestsEnabled(), pm.isLogResponsesEnabled())
                 .includeCodeExecutionOutput(pm.isIncludeCodeExecutionOutput())
-                .allowCodeExecution(pm.isAllowCodeExecution());
+                .allowCodeExecution(pm.isAllowCodeExecution())
+                .promptCaching(pm.isPromptCachingEnabled());
+        setIfPredicate(builder::listeners, listeners, List::isEmpty);
 
         return builder;
     }
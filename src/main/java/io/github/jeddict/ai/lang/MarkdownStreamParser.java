@@ -19,19 +19,32 @@ import io.github.jeddict.ai.components.AssistantChat;
 import io.github.jeddict.ai.response.Block;
 import static io.github.jeddict.ai.util.EditorUtil.printBlock;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.JComponent;
 import javax.swing.SwingUtilities;
 
+/**
+ * Splits a streamed markdown response into text and code blocks as the
+ * tokens arrive.
+ * <p>
+ * The parser is push based: each token is scanned from where the previous one
+ * stopped, so long lines are not rescanned, and completed blocks are handed to
+ * the EDT right away. Blocks completed while a render is pending are rendered
+ * by the same EDT task, so a burst of tokens costs a single event and no
+ * thread is kept per parser.
+ */
 public class MarkdownStreamParser {
 
     private final StringBuilder lineBuffer = new StringBuilder();
     private final StringBuilder blockBuffer = new StringBuilder();
 
+    /**
+     * Offset of {@link #lineBuffer} up to which no line end has been found
+     */
+    private int scanOffset = 0;
+
     private boolean insideCodeBlock = false;
     private String currentFence = null;
     private String codeType = null;
@@ -42,7 +55,11 @@ public class MarkdownStreamParser {
     private final ConcurrentLinkedQueue<Block> pendingBlocks = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<Block> doneBlocks = new ConcurrentLinkedQueue<>();
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean renderScheduled = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    // accessed on the EDT only
+    private final StringBuilder code = new StringBuilder();
 
     // Listener interface to notify UI about new done blocks
     public interface BlockListener {
@@ -56,33 +73,24 @@ public class MarkdownStreamParser {
     public MarkdownStreamParser(BlockListener listener, AssistantChat topComponent) {
         this.blockListener = listener;
         this.topComponent = topComponent;
-        startBlockProcessor();
     }
 
     public void processToken(String token) {
         lineBuffer.append(token);
 
-        int newlineIndex;
-        while ((newlineIndex = findLineEnd(lineBuffer)) >= 0) {
-            String line = lineBuffer.substring(0, newlineIndex);
-
-            int removeLength = line.endsWith("\r") ? newlineIndex + 2 : newlineIndex + 1;
-            lineBuffer.delete(0, removeLength);
-
-            Block completedBlock = processLine(line);
-            if (completedBlock != null) {
-                pendingBlocks.offer(completedBlock);
-            }
-        }
-    }
-
-    private int findLineEnd(StringBuilder sb) {
-        for (int i = 0; i < sb.length(); i++) {
-            if (sb.charAt(i) == '\n') {
-                return i;
+        int lineStart = 0;
+        for (int i = scanOffset; i < lineBuffer.length(); i++) {
+            if (lineBuffer.charAt(i) == '\n') {
+                int lineEnd = (i > lineStart && lineBuffer.charAt(i - 1) == '\r') ? i - 1 : i;
+                Block completedBlock = processLine(lineBuffer.substring(lineStart, lineEnd));
+                if (completedBlock != null) {
+                    dispatch(completedBlock);
+                }
+                lineStart = i + 1;
             }
         }
-        return -1;
+        lineBuffer.delete(0, lineStart);
+        scanOffset = lineBuffer.length();
     }
 
     private Block processLine(String line) {
@@ -120,52 +128,59 @@ public class MarkdownStreamParser {
         return null;
     }
 
+    /**
+     * Completes the last line and block of the response.
+     */
     public void flush() {
+        if (lineBuffer.length() > 0) {
+            Block completedBlock = processLine(lineBuffer.toString());
+            lineBuffer.setLength(0);
+            scanOffset = 0;
+            if (completedBlock != null) {
+                dispatch(completedBlock);
+            }
+        }
         if (blockBuffer.length() > 0) {
             Block block = new Block(insideCodeBlock ? codeType : "text", blockBuffer.toString().trim());
             blockBuffer.setLength(0);
-            pendingBlocks.offer(block);
+            dispatch(block);
         }
     }
 
-    private void startBlockProcessor() {
-        StringBuilder code = new StringBuilder();
-        executor.submit(() -> {
-            try {
-                while (!Thread.currentThread().isInterrupted()) {
-                    Block block = pendingBlocks.poll();
-                    if (block != null) {
-                        // Here you can add processing logic if needed
-                        SwingUtilities.invokeLater(() -> {
-                            JComponent comp = printBlock(code, null, block, null, topComponent);
-                            comp.requestFocusInWindow();
-                            comp.scrollRectToVisible(comp.getVisibleRect());
-                            doneBlocks.offer(block);
-                            if (blockListener != null) {
-                                blockListener.onBlockDone(block);
-                            }
-                        });
-
-                    } else {
-                        // No blocks, sleep briefly to avoid busy wait
-                        TimeUnit.MILLISECONDS.sleep(50);
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+    private void dispatch(Block block) {
+        pendingBlocks.offer(block);
+        if (renderScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::renderPendingBlocks);
+        }
     }
 
-    public void shutdown() {
-        executor.shutdownNow();
-        try {
-            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                System.err.println("MarkdownStreamParser executor did not terminate in time.");
+    private void renderPendingBlocks() {
+        //
+        // cleared before draining so that a block queued after the last poll
+        // schedules a new render
+        //
+        renderScheduled.set(false);
+        JComponent last = null;
+        Block block;
+        while (!closed && (block = pendingBlocks.poll()) != null) {
+            last = printBlock(code, null, block, null, topComponent);
+            doneBlocks.offer(block);
+            if (blockListener != null) {
+                blockListener.onBlockDone(block);
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
         }
+        if (last != null) {
+            last.requestFocusInWindow();
+            last.scrollRectToVisible(last.getVisibleRect());
+        }
+    }
+
+    /**
+     * Stops rendering blocks; the ones not rendered yet are discarded.
+     */
+    public void shutdown() {
+        closed = true;
+        pendingBlocks.clear();
     }
 
     // Optional getters if needed
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import io.github.jeddict.ai.response.TokenHandler;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the token usage of every response of a pooled model, with the counts
+ * reported by the provider when available; see
+ * {@link TokenHandler#saveTokenUsage}.
+ */
+final class TokenUsageListener implements ChatModelListener {
+
+    private static final String START = TokenUsageListener.class.getName() + ".start";
+
+    private final GenAIProvider provider;
+    private final String modelName;
+
+    TokenUsageListener(final GenAIProvider provider, final String modelName) {
+        this.provider = provider;
+        this.modelName = modelName;
+    }
+
+    @Override
+    public void onRequest(final ChatModelRequestContext context) {
+        context.attributes().put(START, System.nanoTime());
+    }
+
+    @Override
+    public void onResponse(final ChatModelResponseContext context) {
+        final long latency = (context.attributes().get(START) instanceof Long start)
+                           ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) : 0;
+        final ChatResponse response = context.chatResponse();
+        final List<ChatMessage> messages = context.chatRequest().messages();
+        //
+        // the prompt is counted locally only if the provider did not report it
+        //
+        CompletableFuture.runAsync(() -> {
+            final TokenUsage usage = response.tokenUsage();
+            final int estimate = (usage == null || usage.inputTokenCount() == null)
+                               ? TokenHandler.countInputTokens(provider, messages, modelName) : -1;
+            TokenHandler.saveTokenUsage(provider, modelName, estimate, response, latency);
+        });
+    }
+}
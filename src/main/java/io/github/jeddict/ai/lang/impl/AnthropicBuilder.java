@@ -17,8 +17,10 @@ package io.github.jeddict.ai.lang.impl;
 
 import dev.langchain4j.model.anthropic.AnthropicChatModel;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import io.github.jeddict.ai.lang.ChatModelBuilder;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -154,6 +156,19 @@ public class AnthropicBuilder implements ChatModelBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelBuilder promptCaching(final boolean promptCaching) {
+        builder.cacheSystemMessages(promptCaching)
+                .cacheTools(promptCaching);
+        return this;
+    }
+
+    @Override
+    public ChatModelBuilder listeners(final List<ChatModelListener> listeners) {
+        builder.listeners(listeners);
+        return this;
+    }
+
     @Override
     public ChatModel build() {
         return builder.build();
@@ -17,8 +17,10 @@ package io.github.jeddict.ai.lang.impl;
 
 import dev.langchain4j.model.anthropic.AnthropicStreamingChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import io.github.jeddict.ai.lang.ChatModelStreamingBuilder;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -148,6 +150,19 @@ public class AnthropicStreamingBuilder implements ChatModelStreamingBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelStreamingBuilder promptCaching(final boolean promptCaching) {
+        builder.cacheSystemMessages(promptCaching)
+                .cacheTools(promptCaching);
+        return this;
+    }
+
+    @Override
+    public ChatModelStreamingBuilder listeners(final List<ChatModelListener> listeners) {
+        builder.listeners(listeners);
+        return this;
+    }
+
     @Override
     public StreamingChatModel build() {
         return builder.build();
@@ -16,9 +16,11 @@
 package io.github.jeddict.ai.lang.impl;
 
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import io.github.jeddict.ai.lang.ChatModelBuilder;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -153,6 +155,18 @@ public class GoogleBuilder implements ChatModelBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelBuilder promptCaching(final boolean promptCaching) {
+        //NOOP - prompt prefixes are cached automatically by the API
+        return this;
+    }
+
+    @Override
+    public ChatModelBuilder listeners(final List<ChatModelListener> listeners) {
+        builder.listeners(listeners);
+        return this;
+    }
+
     @Override
     public ChatModel build() {
         return builder.build();
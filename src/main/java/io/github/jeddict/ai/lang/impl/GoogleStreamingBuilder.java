@@ -16,9 +16,11 @@
 package io.github.jeddict.ai.lang.impl;
 
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import dev.langchain4j.model.googleai.GoogleAiGeminiStreamingChatModel;
 import io.github.jeddict.ai.lang.ChatModelStreamingBuilder;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -147,6 +149,18 @@ public class GoogleStreamingBuilder implements ChatModelStreamingBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelStreamingBuilder promptCaching(final boolean promptCaching) {
+        //NOOP - prompt prefixes are cached automatically by the API
+        return this;
+    }
+
+    @Override
+    public ChatModelStreamingBuilder listeners(final List<ChatModelListener> listeners) {
+        builder.listeners(listeners);
+        return this;
+    }
+
     @Override
     public StreamingChatModel build() {
         return builder.build();
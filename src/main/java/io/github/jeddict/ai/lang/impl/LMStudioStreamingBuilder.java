@@ -18,10 +18,12 @@ package io.github.jeddict.ai.lang.impl;
 import dev.langchain4j.http.client.jdk.JdkHttpClient;
 import dev.langchain4j.http.client.jdk.JdkHttpClientBuilder;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import io.github.jeddict.ai.lang.ChatModelStreamingBuilder;
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -160,6 +162,18 @@ public class LMStudioStreamingBuilder implements ChatModelStreamingBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelStreamingBuilder promptCaching(final boolean promptCaching) {
+        //NOOP
+        return this;
+    }
+
+    @Override
+    public ChatModelStreamingBuilder listeners(final List<ChatModelListener> listeners) {
+        builder.listeners(listeners);
+        return this;
+    }
+
     @Override
     public StreamingChatModel build() {
         return builder.build();
@@ -16,9 +16,13 @@
 package io.github.jeddict.ai.lang.impl;
 
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.localai.LocalAiChatModel;
 import io.github.jeddict.ai.lang.ChatModelBuilder;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +32,7 @@ import java.util.Map;
 public class LocalAiBuilder implements ChatModelBuilder {
 
     private final LocalAiChatModel.LocalAiChatModelBuilder builder;
+    private List<ChatModelListener> listeners = List.of();
 
     public LocalAiBuilder() {
         builder = LocalAiChatModel.builder();
@@ -154,8 +159,39 @@ public class LocalAiBuilder implements ChatModelBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelBuilder promptCaching(final boolean promptCaching) {
+        //NOOP
+        return this;
+    }
+
+    @Override
+    public ChatModelBuilder listeners(final List<ChatModelListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        return this;
+    }
+
     @Override
     public ChatModel build() {
-        return builder.build();
+        final ChatModel model = builder.build();
+        if (listeners.isEmpty()) {
+            return model;
+        }
+        //
+        // LocalAiChatModel does not notify listeners: the default chat() of
+        // ChatModel does it around doChat(), which delegates to the model
+        //
+        final List<ChatModelListener> modelListeners = listeners;
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(final ChatRequest request) {
+                return model.chat(request);
+            }
+
+            @Override
+            public List<ChatModelListener> listeners() {
+                return modelListeners;
+            }
+        };
     }
 }
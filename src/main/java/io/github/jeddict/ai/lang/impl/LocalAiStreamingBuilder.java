@@ -16,9 +16,13 @@
 package io.github.jeddict.ai.lang.impl;
 
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.localai.LocalAiStreamingChatModel;
 import io.github.jeddict.ai.lang.ChatModelStreamingBuilder;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +32,7 @@ import java.util.Map;
 public class LocalAiStreamingBuilder implements ChatModelStreamingBuilder {
 
     private final LocalAiStreamingChatModel.LocalAiStreamingChatModelBuilder builder;
+    private List<ChatModelListener> listeners = List.of();
 
     public LocalAiStreamingBuilder() {
         builder = LocalAiStreamingChatModel.builder();
@@ -146,8 +151,40 @@ public class LocalAiStreamingBuilder implements ChatModelStreamingBuilder {
         return this;
     }
 
+    @Override
+    public ChatModelStreamingBuilder promptCaching(final boolean promptCaching) {
+        //NOOP
+        return this;
+    }
+
+    @Override
+    public ChatModelStreamingBuilder listeners(final List<ChatModelListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        return this;
+    }
+
     @Override
     public StreamingChatModel build() {
-        return builder.build();
+        final StreamingChatModel model = builder.build();
+        if (listeners.isEmpty()) {
+            return model;
+        }
+        //
+        // LocalAiStreamingChatModel does not notify listeners: the default
+        // chat() of StreamingChatModel does it around doChat(), which
+        // delegates to the model
+        //
+        final List<ChatModelListener> modelListeners = listeners;
+        return new StreamingChatModel() {
+            @Override
+            public void doChat(final ChatRequest request, final StreamingChatResponseHandler handler) {
+                model.chat(request, handler);
+            }
+
+            @Override
+            public List<ChatModelListener> listeners() {
+                return modelListeners;
+            }
+        };
     }
 }
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.metrics;
+
+import io.github.jeddict.ai.agent.pair.PairProgrammer;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency and throughput of the AI requests.
+ * <p>
+ * Every {@link Metric} is recorded in a {@link RollingHistogram} covering the
+ * last {@link #WINDOW_MINUTES} minutes, one per {@link Series}, i.e. per
+ * provider, model, pair programmer specialist and action. The metrics are
+ * shown in the token usage dialog and exposed through JMX as
+ * {@value #OBJECT_NAME}.
+ */
+public class RequestMetrics implements RequestMetricsMBean {
+
+    private static final Logger LOG = Logger.getLogger(RequestMetrics.class.getName());
+
+    public static final String OBJECT_NAME = "io.github.jeddict.ai:type=RequestMetrics";
+
+    public static final int WINDOW_MINUTES = 60;
+
+    private static final int SLICES = 4;
+
+    /**
+     * Value used for a dimension that does not apply
+     */
+    public static final String NONE = "-";
+
+    public enum Metric {
+        PROMPT_BUILD("Prompt build", "ms"),
+        CONTEXT("Context gathering", "ms"),
+        QUEUE_WAIT("Queue wait", "ms"),
+        FIRST_TOKEN("Time to first token", "ms"),
+        TOKENS_PER_SECOND("Throughput", "tokens/s"),
+        CACHED_INPUT("Cached input", "%"),
+        LATENCY("Total latency", "ms"),
+        TOOL_CALL("Tool call", "ms"),
+        SERVED("Served", "ms"),
+        CANCELLED("Cancelled while running", "ms"),
+        DROPPED("Dropped before starting", "ms");
+
+        public final String label;
+        public final String unit;
+
+        Metric(final String label, final String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * The dimensions a metric is broken down by.
+     */
+    public record Series(String provider, String model, String specialist, String action) {
+
+        public static Series of(
+            final GenAIProvider provider, final String model,
+            final PairProgrammer.Specialist specialist, final String action
+        ) {
+            return new Series(
+                (provider != null) ? provider.name() : NONE,
+                (model != null && !model.isBlank()) ? model : NONE,
+                (specialist != null) ? specialist.name() : NONE,
+                (action != null && !action.isBlank()) ? action : NONE
+            );
+        }
+
+        @Override
+        public String toString() {
+            return provider + '/' + model + '/' + specialist + '/' + action;
+        }
+    }
+
+    /**
+     * The values of a metric of a series over the rolling window.
+     */
+    public record Row(Series series, Metric metric, RollingHistogram.Snapshot values) {}
+
+    private record Key(Series series, Metric metric) {}
+
+    private final Map<Key, RollingHistogram> histograms = new ConcurrentHashMap<>();
+
+    private static volatile RequestMetrics instance;
+
+    RequestMetrics() {
+    }
+
+    public static RequestMetrics getInstance() {
+        if (instance == null) {
+            synchronized (RequestMetrics.class) {
+                if (instance == null) {
+                    instance = new RequestMetrics();
+                    instance.register();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param series the series
+     * @param metric the metric
+     * @param value the value in the unit of the metric, negative values are
+     * ignored
+     */
+    public void record(final Series series, final Metric metric, final long value) {
+        histograms.computeIfAbsent(new Key(series, metric),
+                k -> new RollingHistogram(SLICES, TimeUnit.MINUTES.toMillis(WINDOW_MINUTES) / SLICES))
+                .record(value, System.currentTimeMillis());
+    }
+
+    /**
+     * Records the milliseconds elapsed since the given time.
+     *
+     * @param series the series
+     * @param metric the metric
+     * @param startNanos the start as returned by {@link System#nanoTime()}
+     */
+    public void recordSince(final Series series, final Metric metric, final long startNanos) {
+        record(series, metric, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Runs the given task recording how long it took.
+     *
+     * @param <T> the type of the result
+     * @param series the series
+     * @param metric the metric
+     * @param task the task
+     *
+     * @return the result of the task
+     */
+    public <T> T time(final Series series, final Metric metric, final Supplier<T> task) {
+        final long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            recordSince(series, metric, start);
+        }
+    }
+
+    /**
+     * Wraps a pair programmer agent so that the {@link Metric#LATENCY} of each
+     * call is recorded with the name of the method as action.
+     *
+     * @param <T> the type of the agent
+     * @param provider the provider
+     * @param model the model name
+     * @param specialist the specialist of the agent
+     * @param agent the agent
+     *
+     * @return the timed agent
+     */
+    public <T> T timed(
+        final GenAIProvider provider, final String model,
+        final PairProgrammer.Specialist specialist, final T agent
+    ) {
+        final Map<Method, Series> series = new ConcurrentHashMap<>();
+        final InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return invoke(agent, method, args);
+            }
+            final long start = System.nanoTime();
+            try {
+                return invoke(agent, method, args);
+            } finally {
+                recordSince(
+                    series.computeIfAbsent(method, m -> Series.of(provider, model, specialist, m.getName())),
+                    Metric.LATENCY, start
+                );
+            }
+        };
+        return (T) Proxy.newProxyInstance(
+            specialist.specialistClass.getClassLoader(), new Class<?>[] { specialist.specialistClass }, handler
+        );
+    }
+
+    /**
+     * @return the values of every series and metric, ordered by series and
+     * metric
+     */
+    public List<Row> rows() {
+        final long now = System.currentTimeMillis();
+        final List<Row> rows = new ArrayList<>();
+        histograms.forEach((key, histogram) -> {
+            final RollingHistogram.Snapshot values = histogram.snapshot(now);
+            if (values.count() > 0) {
+                rows.add(new Row(key.series(), key.metric(), values));
+            }
+        });
+        rows.sort(Comparator.comparing((Row row) -> row.series().toString()).thenComparing(Row::metric));
+        return rows;
+    }
+
+    @Override
+    public String[] getSummary() {
+        return rows().stream().map(row -> String.format(
+            "%s %s: count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d %s",
+            row.series(), row.metric(), row.values().count(), row.values().mean(),
+            row.values().percentile(50), row.values().percentile(90), row.values().percentile(99),
+            row.values().max(), row.metric().unit
+        )).toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getSeries() {
+        return rows().stream().map(row -> row.series().toString()).distinct().toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getMetrics() {
+        final Metric[] metrics = Metric.values();
+        final String[] names = new String[metrics.length];
+        for (int i = 0; i < metrics.length; ++i) {
+            names[i] = metrics[i].name();
+        }
+        return names;
+    }
+
+    @Override
+    public long getPercentile(final String series, final String metric, final double percentile) {
+        for (Row row : rows()) {
+            if (row.series().toString().equals(series) && row.metric().name().equals(metric)) {
+                return row.values().percentile(percentile);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+    }
+
+    private void register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            //
+            // a reloaded module replaces the instance of the previous one
+            //
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception x) {
+            LOG.log(Level.FINE, "Unable to register " + OBJECT_NAME, x);
+        }
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException x) {
+            throw x.getCause();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.metrics;
+
+/**
+ * JMX view of {@link RequestMetrics}, registered as
+ * {@value RequestMetrics#OBJECT_NAME}.
+ */
+public interface RequestMetricsMBean {
+
+    /**
+     * @return one line per series and metric with count, mean, p50, p90, p99
+     * and max over the rolling window
+     */
+    String[] getSummary();
+
+    /**
+     * @return the series with at least one value, as
+     * <code>provider/model/specialist/action</code>
+     */
+    String[] getSeries();
+
+    /**
+     * @return the names of the metrics
+     */
+    String[] getMetrics();
+
+    /**
+     * @param series a series as returned by {@link #getSeries()}
+     * @param metric a metric as returned by {@link #getMetrics()}
+     * @param percentile the percentile, between 0 and 100
+     *
+     * @return the value of the given percentile, 0 if there are no values
+     */
+    long getPercentile(String series, String metric, double percentile);
+
+    /**
+     * Drops all recorded values.
+     */
+    void reset();
+}
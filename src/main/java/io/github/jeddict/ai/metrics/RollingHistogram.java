@@ -0,0 +1,176 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of the values recorded in a rolling time window.
+ * <p>
+ * Like an HDR histogram, values are counted in log-linear buckets: every power
+ * of two is split in {@link #SUB_BUCKETS} buckets of the same width, so any
+ * percentile is reported with a relative error below 1/{@value #SUB_BUCKETS}
+ * using a fixed amount of memory. Values up to 2 * {@value #SUB_BUCKETS} are
+ * counted exactly.
+ * <p>
+ * The window is made of slices of equal duration; when a slice is reused for
+ * a new period its counts are reset, so the oldest slice expires as a whole.
+ */
+public class RollingHistogram {
+
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /**
+     * Largest value counted; larger values are counted as this one
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    /**
+     * Counts merged from the slices of the window.
+     *
+     * @param count the number of values
+     * @param sum the sum of the values
+     * @param max the largest value
+     * @param counts the count of every bucket
+     */
+    public record Snapshot(long count, long sum, long max, long[] counts) {
+
+        public double mean() {
+            return (count == 0) ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100
+         * @return the value below which the given percentage of values falls,
+         * 0 if empty
+         */
+        public long percentile(final double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; ++i) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, highestEquivalent(i));
+                }
+            }
+            return max;
+        }
+    }
+
+    private final long sliceMillis;
+
+    //
+    // guarded by this; a slice is allocated on first use
+    //
+    private final long[][] counts;
+    private final long[] periods;
+    private final long[] sums;
+    private final long[] maxs;
+    private final long[] totals;
+
+    /**
+     * @param slices the number of slices of the window
+     * @param sliceMillis the duration of a slice in milliseconds
+     */
+    public RollingHistogram(final int slices, final long sliceMillis) {
+        if (slices <= 0 || sliceMillis <= 0) {
+            throw new IllegalArgumentException("slices and sliceMillis must be greater than 0");
+        }
+        this.sliceMillis = sliceMillis;
+        this.counts = new long[slices][];
+        this.periods = new long[slices];
+        this.sums = new long[slices];
+        this.maxs = new long[slices];
+        this.totals = new long[slices];
+    }
+
+    /**
+     * @param value the value, negative values are ignored
+     * @param now the current time in milliseconds
+     */
+    public synchronized void record(final long value, final long now) {
+        if (value < 0) {
+            return;
+        }
+        final long v = Math.min(value, MAX_VALUE);
+        final int slice = slice(now);
+        counts[slice][index(v)] += 1;
+        sums[slice] += v;
+        maxs[slice] = Math.max(maxs[slice], v);
+        totals[slice] += 1;
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return the counts of the window ending now
+     */
+    public synchronized Snapshot snapshot(final long now) {
+        final long period = now / sliceMillis;
+        final long[] merged = new long[BUCKETS];
+        long count = 0, sum = 0, max = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] == null || periods[i] <= period - counts.length || periods[i] > period) {
+                continue;
+            }
+            for (int b = 0; b < BUCKETS; ++b) {
+                merged[b] += counts[i][b];
+            }
+            count += totals[i];
+            sum += sums[i];
+            max = Math.max(max, maxs[i]);
+        }
+        return new Snapshot(count, sum, max, merged);
+    }
+
+    private int slice(final long now) {
+        final long period = now / sliceMillis;
+        final int slice = (int) Math.floorMod(period, (long) counts.length);
+        if (counts[slice] == null) {
+            counts[slice] = new long[BUCKETS];
+        } else if (periods[slice] != period) {
+            Arrays.fill(counts[slice], 0);
+            sums[slice] = 0;
+            maxs[slice] = 0;
+            totals[slice] = 0;
+        }
+        periods[slice] = period;
+        return slice;
+    }
+
+    static int index(final long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BITS) * SUB_BUCKETS + (int) (value >>> (exponent - SUB_BITS));
+    }
+
+    static long highestEquivalent(final int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import com.knuddels.jtokkit.api.Encoding;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Token budgeted view of a chat history.
+ * <p>
+ * The turns replayed with a request are chosen from the most recent one
+ * backwards until the token budget, measured with the model tokenizer, is
+ * used up. The {@link #VERBATIM_TURNS} most recent turns are sent as they are;
+ * in older turns code blocks are replaced by the signatures they declare.
+ * <p>
+ * The history kept by a chat is capped as well: once its text exceeds the
+ * given number of characters, the oldest turns are evicted and replaced by an
+ * {@link EvictedTurns} marker, so that browsing the history shows where it
+ * starts. Turns are never compacted in place, since the history is also what
+ * the user browses; compaction only applies to the replayed copies.
+ */
+public class ConversationHistory {
+
+    public static final int VERBATIM_TURNS = 2;
+
+    /**
+     * Tokens added by the chat format to a user and an assistant message
+     */
+    private static final int TURN_OVERHEAD = 8;
+
+    private static final int MAX_SIGNATURES = 20;
+
+    private static final Pattern DECLARATION = Pattern.compile(
+        "^(?:@\\w+(?:\\([^)]*\\))?\\s+)*"
+        + "(?:(?:public|protected|private|static|abstract|final|sealed|default|synchronized|native|export|async|override|open|data)\\s+)*"
+        + "(?:class|interface|enum|record|struct|trait|impl|def|fun|func|function)\\b.*"
+        + "|^(?:@\\w+(?:\\([^)]*\\))?\\s+)*"
+        + "(?:(?:public|protected|private|static|abstract|final|default|synchronized|native)\\s+)*"
+        + "[\\w$<>\\[\\],.? ]+\\s+[\\w$]+\\s*\\([^;]*$"
+    );
+
+    private static final Pattern STATEMENT = Pattern.compile(
+        "^(?:return|new|throw|else|if|for|while|switch|case|catch|try|do|yield|assert)\\b.*"
+    );
+
+    private static final Pattern OMITTED = Pattern.compile("^\\.\\.\\. \\d+ lines omitted$");
+
+    /**
+     * Stands for the turns evicted from the start of a history; it is shown
+     * when browsing back to the start of the history and never replayed.
+     */
+    public static final class EvictedTurns extends Response {
+
+        private final int count;
+
+        EvictedTurns(final int count) {
+            super(null, "_" + count + " earlier " + (count == 1 ? "turn was" : "turns were")
+                    + " removed from this conversation to limit memory use._", null);
+            this.count = count;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private final int tokenBudget;
+    private final long maxRetainedChars;
+
+    /**
+     * @param tokenBudget the maximum number of tokens of history sent with a
+     * request, 0 or less for no limit
+     * @param maxRetainedChars the maximum number of characters of a chat
+     * history before the oldest turns are evicted, 0 or less for no limit
+     */
+    public ConversationHistory(final int tokenBudget, final long maxRetainedChars) {
+        this.tokenBudget = tokenBudget;
+        this.maxRetainedChars = maxRetainedChars;
+    }
+
+    /**
+     * Selects the turns to replay with the next request.
+     *
+     * @param history the chat history, oldest first
+     * @param maxTurns the maximum number of turns, -1 for the whole history
+     * @param encoding the tokenizer of the model
+     *
+     * @return the selected turns, oldest first; older turns are compacted copies
+     */
+    public List<Response> select(final List<Response> history, final int maxTurns, final Encoding encoding) {
+        final TokenCounter counter = TokenCounter.getInstance();
+        final int turns = (maxTurns < 0) ? history.size() : Math.min(maxTurns, history.size());
+        final List<Response> selected = new ArrayList<>(turns);
+
+        long remaining = (tokenBudget > 0) ? tokenBudget : Long.MAX_VALUE;
+        for (int i = 0; i < turns; ++i) {
+            final Response turn = history.get(history.size() - 1 - i);
+            if (turn instanceof EvictedTurns) {
+                break;
+            }
+            Response candidate = (i < VERBATIM_TURNS) ? turn : compact(turn);
+            int tokens = count(candidate, counter, encoding);
+            if (tokens > remaining && candidate == turn) {
+                candidate = compact(turn);
+                tokens = count(candidate, counter, encoding);
+            }
+            if (tokens > remaining) {
+                break;
+            }
+            remaining -= tokens;
+            selected.add(candidate);
+        }
+        Collections.reverse(selected);
+        return selected;
+    }
+
+    /**
+     * Evicts the oldest turns, but the {@link #VERBATIM_TURNS} most recent
+     * ones, until the history fits the retained characters limit. Evicted
+     * turns are replaced by a single {@link EvictedTurns} marker at the start
+     * of the history.
+     *
+     * @param history the chat history, oldest first
+     *
+     * @return the number of entries the history shrank by
+     */
+    public int trim(final List<Response> history) {
+        if (maxRetainedChars <= 0) {
+            return 0;
+        }
+        final int first = (!history.isEmpty() && history.get(0) instanceof EvictedTurns) ? 1 : 0;
+        long chars = 0;
+        for (int i = first; i < history.size(); ++i) {
+            chars += length(history.get(i));
+        }
+        int evicted = 0;
+        while (chars > maxRetainedChars && history.size() - first - evicted > VERBATIM_TURNS) {
+            chars -= length(history.get(first + evicted));
+            ++evicted;
+        }
+        if (evicted == 0) {
+            return 0;
+        }
+        final int previously = (first > 0) ? ((EvictedTurns) history.get(0)).getCount() : 0;
+        final List<Response> head = history.subList(0, first + evicted);
+        head.clear();
+        history.add(0, new EvictedTurns(previously + evicted));
+        return first + evicted - 1;
+    }
+
+    /**
+     * @param response a turn
+     * @return a copy of the given turn with code blocks replaced by their
+     * signatures
+     */
+    public static Response compact(final Response response) {
+        final Response compacted = new Response(response.getQuery(), null, response.getMessageContext());
+        compacted.setBlocks(compact(response.getBlocks()));
+        return compacted;
+    }
+
+    static List<Block> compact(final List<Block> blocks) {
+        final List<Block> compacted = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            compacted.add("text".equals(block.getType()) ? block : new Block(block.getType(), signatures(block.getContent())));
+        }
+        return compacted;
+    }
+
+    /**
+     * @param code source code
+     * @return the declarations found in the given code followed by the number
+     * of lines left out
+     */
+    static String signatures(final String code) {
+        if (code == null || code.isEmpty()) {
+            return "";
+        }
+        final StringBuilder signatures = new StringBuilder();
+        final String[] lines = code.split("\n");
+        if (OMITTED.matcher(lines[lines.length - 1]).matches()) {
+            return code; // already compacted
+        }
+        int kept = 0;
+        for (String line : lines) {
+            final String trimmed = line.strip();
+            if (kept < MAX_SIGNATURES && !trimmed.isEmpty()
+                    && !STATEMENT.matcher(trimmed).matches() && DECLARATION.matcher(trimmed).matches()) {
+                String signature = line.stripTrailing();
+                if (signature.endsWith("{")) {
+                    signature = signature.substring(0, signature.length() - 1).stripTrailing();
+                }
+                signatures.append(signature).append('\n');
+                ++kept;
+            }
+        }
+        if (kept == lines.length) {
+            return code; // nothing to leave out
+        }
+        return signatures.append("... ").append(lines.length - kept).append(" lines omitted\n").toString();
+    }
+
+    private static int count(final Response turn, final TokenCounter counter, final Encoding encoding) {
+        final String query = (turn.getQuery() != null) ? turn.getQuery() : "";
+        return counter.count(query, encoding) + counter.count(turn.toString(), encoding) + TURN_OVERHEAD;
+    }
+
+    private static long length(final Response turn) {
+        long length = (turn.getQuery() != null) ? turn.getQuery().length() : 0;
+        for (Block block : turn.getBlocks()) {
+            length += (block.getContent() != null) ? block.getContent().length() : 0;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageType;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared tokenizer used to estimate the tokens of prompts and responses.
+ * <p>
+ * Building the BPE tables of an encoding is expensive, therefore the encodings
+ * are loaded once, lazily, and shared; they are thread safe. The encoding of a
+ * model is resolved once per provider and model name: recent OpenAI models use
+ * <code>o200k_base</code>, any other model <code>cl100k_base</code>. Anthropic
+ * and Google do not publish their tokenizers, for them the count is an
+ * approximation.
+ * <p>
+ * Messages are counted one by one, without serializing the conversation.
+ */
+public class TokenCounter {
+
+    /**
+     * Tokens added by the chat format to every message (role and delimiters)
+     */
+    private static final int MESSAGE_OVERHEAD = 3;
+
+    private static final List<String> O200K_MODELS = List.of(
+        "gpt-4o", "gpt-4.1", "gpt-4.5", "gpt-5", "chatgpt-4o", "o1", "o3", "o4"
+    );
+
+    private final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+    private final Map<EncodingType, Encoding> encodings = new ConcurrentHashMap<>();
+    private final Map<ModelKey, Encoding> models = new ConcurrentHashMap<>();
+    private final Map<ChatMessageType, Integer> roles = new EnumMap<>(ChatMessageType.class);
+
+    private record ModelKey(GenAIProvider provider, String modelName) {}
+
+    private static volatile TokenCounter instance;
+
+    private TokenCounter() {
+        for (ChatMessageType type : ChatMessageType.values()) {
+            roles.put(type, getEncoding(EncodingType.CL100K_BASE).countTokens(type.name().toLowerCase()) + MESSAGE_OVERHEAD);
+        }
+    }
+
+    public static TokenCounter getInstance() {
+        if (instance == null) {
+            synchronized (TokenCounter.class) {
+                if (instance == null) {
+                    instance = new TokenCounter();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param type the encoding type
+     * @return the shared encoding of the given type
+     */
+    public Encoding getEncoding(final EncodingType type) {
+        return encodings.computeIfAbsent(type, registry::getEncoding);
+    }
+
+    /**
+     * @param provider the provider, may be null
+     * @param modelName the model name, may be null
+     * @return the encoding that best matches the given model
+     */
+    public Encoding getEncoding(final GenAIProvider provider, final String modelName) {
+        if (modelName == null || modelName.isBlank()) {
+            return getEncoding(EncodingType.CL100K_BASE);
+        }
+        return models.computeIfAbsent(new ModelKey(provider, modelName),
+                (key) -> getEncoding(encodingType(key.provider(), key.modelName())));
+    }
+
+    /**
+     * @param text the text
+     * @param encoding the encoding
+     * @return the number of tokens of the given text
+     */
+    public int count(final String text, final Encoding encoding) {
+        return (text == null || text.isEmpty()) ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Counts the tokens of a conversation message by message.
+     *
+     * @param messages the messages
+     * @param encoding the encoding
+     * @return the number of tokens of the given messages
+     */
+    public int count(final List<ChatMessage> messages, final Encoding encoding) {
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            tokens += roles.getOrDefault(message.type(), MESSAGE_OVERHEAD);
+            if (message instanceof SystemMessage system) {
+                tokens += count(system.text(), encoding);
+            } else if (message instanceof UserMessage user) {
+                for (Content content : user.contents()) {
+                    if (content instanceof TextContent text) {
+                        tokens += count(text.text(), encoding);
+                    }
+                }
+            } else if (message instanceof AiMessage ai) {
+                tokens += count(ai.text(), encoding);
+                if (ai.hasToolExecutionRequests()) {
+                    for (ToolExecutionRequest request : ai.toolExecutionRequests()) {
+                        tokens += count(request.name(), encoding) + count(request.arguments(), encoding);
+                    }
+                }
+            } else if (message instanceof ToolExecutionResultMessage result) {
+                tokens += count(result.text(), encoding);
+            } else {
+                tokens += count(message.toString(), encoding);
+            }
+        }
+        return tokens;
+    }
+
+    static EncodingType encodingType(final GenAIProvider provider, final String modelName) {
+        //
+        // routers prefix the model with its vendor, e.g. openai/gpt-4o
+        //
+        final String name = modelName.substring(modelName.lastIndexOf('/') + 1).toLowerCase();
+        if (provider != GenAIProvider.ANTHROPIC && provider != GenAIProvider.GOOGLE) {
+            for (String prefix : O200K_MODELS) {
+                if (name.startsWith(prefix)) {
+                    return EncodingType.O200K_BASE;
+                }
+            }
+        }
+        return EncodingType.CL100K_BASE;
+    }
+}
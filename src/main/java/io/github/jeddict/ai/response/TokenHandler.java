@@ -15,13 +15,17 @@
  */
 package io.github.jeddict.ai.response;
 
-import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
 import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.anthropic.AnthropicTokenUsage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.settings.ReportManager;
-import java.util.Iterator;
 import java.util.List;
-import org.json.JSONObject;
+import java.util.Objects;
 
 /**
  * Tracks and manages token usage for input and output prompts with configurable granularity.
@@ -32,101 +36,131 @@ public class TokenHandler {
     private static final PreferencesManager preferencesManager = PreferencesManager.getInstance();
     private static final ReportManager reportManager = ReportManager.getInstance();
 
-    public static int saveInputToken(List<ChatMessage> messages) {
-        if (messages == null || messages.isEmpty()) {
-            return -1;
-        }
-
-        StringBuilder serialized = new StringBuilder();
-        for (ChatMessage msg : messages) {
-            serialized.append(msg.type().name().toLowerCase())
-                      .append(": ")
-                      .append(msg.toString())
-                      .append("\n");
-        }
-
-        String content = serialized.toString();
-        int tokenCount = countTokens(content);
-        saveTokenUsage(reportManager.getDailyInputTokenStats(), tokenCount, true);
-        return tokenCount;
+    private static final TokenCounter tokenCounter = TokenCounter.getInstance();
+
+    /**
+     * The token usage recorded for a request.
+     *
+     * @param input the input tokens, including the cached ones
+     * @param cachedInput the input tokens read from the provider prompt cache
+     * @param output the output tokens
+     */
+    public record Usage(int input, int cachedInput, int output) {}
+
+    /**
+     * Estimates the tokens of a prompt before it is sent; the estimate is
+     * used for the statistics only if the provider does not report the usage.
+     *
+     * @param messages the prompt messages
+     * @param modelName the model name
+     *
+     * @return the estimated number of tokens, -1 if there are no messages
+     */
+    public static int countInputTokens(List<ChatMessage> messages, String modelName) {
+        return countInputTokens(preferencesManager.getProvider(), messages, modelName);
     }
 
-    public static void saveOutputToken(String response) {
-        if (response == null || response.isEmpty()) {
-            return;
+    /**
+     * @param provider the provider serving the model
+     * @param messages the prompt messages
+     * @param modelName the model name
+     *
+     * @return the estimated number of tokens, -1 if there are no messages
+     */
+    public static int countInputTokens(GenAIProvider provider, List<ChatMessage> messages, String modelName) {
+        if (messages == null || messages.isEmpty()) {
+            return -1;
         }
-
-        int tokenCount = countTokens(response);
-        saveTokenUsage(reportManager.getDailyOutputTokenStats(), tokenCount, false);
+        return tokenCounter.count(messages, encoding(provider, modelName));
     }
 
-    private static int countTokens(String text) {
-        return Encodings.newDefaultEncodingRegistry()
-                .getEncoding("cl100k_base")
-                .map(enc -> enc.encode(text).size())
-                .orElse(0);
+    /**
+     * Records the token usage of a completed request in the
+     * {@link TokenUsageLog}, see {@link #usage}.
+     *
+     * @param provider the provider serving the model
+     * @param modelName the model name
+     * @param estimatedInputTokens the estimate returned by {@link #countInputTokens}
+     * @param response the response
+     * @param latency the time from the request to the response in milliseconds
+     *
+     * @return the usage recorded
+     */
+    public static Usage saveTokenUsage(GenAIProvider provider, String modelName, int estimatedInputTokens, ChatResponse response, long latency) {
+        final Usage usage = usage(provider, modelName, estimatedInputTokens, response);
+        reportManager.getTokenUsageLog().append(
+            System.currentTimeMillis(), modelKey(provider, modelName),
+            usage.input(), usage.cachedInput(), usage.output(), (int) Math.min(Integer.MAX_VALUE, latency)
+        );
+        return usage;
     }
 
-    private static void saveTokenUsage(JSONObject usage, int tokens, boolean isInput) {
-        TokenGranularity granularity = preferencesManager.getTokenGranularity();
-        String key = String.valueOf(granularity.getCurrentBucketKey());
-        usage.put(key, usage.optInt(key, 0) + tokens);
-
-        if (isInput) {
-            reportManager.setDailyInputTokenStats(usage);
+    /**
+     * Returns the token usage of a completed request. The counts reported by
+     * the provider are used when available; otherwise the input estimate and
+     * a local count of the response text are used. Cached input tokens are
+     * known only from the usage reported by Anthropic and OpenAI compatible
+     * providers.
+     *
+     * @param provider the provider serving the model
+     * @param modelName the model name
+     * @param estimatedInputTokens the estimate returned by {@link #countInputTokens}
+     * @param response the response
+     *
+     * @return the usage
+     */
+    public static Usage usage(GenAIProvider provider, String modelName, int estimatedInputTokens, ChatResponse response) {
+        final TokenUsage usage = (response != null) ? response.tokenUsage() : null;
+
+        int inputTokens = Math.max(0, estimatedInputTokens);
+        int cachedInputTokens = 0;
+        int outputTokens;
+        if (usage != null && usage.inputTokenCount() != null) {
+            inputTokens = usage.inputTokenCount();
+        }
+        if (usage instanceof AnthropicTokenUsage anthropic) {
+            //
+            // Anthropic reports cache reads and writes apart from the input
+            //
+            cachedInputTokens = Objects.requireNonNullElse(anthropic.cacheReadInputTokens(), 0);
+            inputTokens += cachedInputTokens + Objects.requireNonNullElse(anthropic.cacheCreationInputTokens(), 0);
+        } else if (usage instanceof OpenAiTokenUsage openAi && openAi.inputTokensDetails() != null) {
+            cachedInputTokens = Objects.requireNonNullElse(openAi.inputTokensDetails().cachedTokens(), 0);
+        }
+        if (usage != null && usage.outputTokenCount() != null) {
+            outputTokens = usage.outputTokenCount();
         } else {
-            reportManager.setDailyOutputTokenStats(usage);
+            outputTokens = (response != null && response.aiMessage() != null)
+                         ? tokenCounter.count(response.aiMessage().text(), encoding(provider, modelName))
+                         : 0;
         }
+        return new Usage(inputTokens, cachedInputTokens, outputTokens);
     }
 
-    public static int getLastNInputUsage(int n) {
-        return getLastNUsage(reportManager.getDailyInputTokenStats(), n);
-    }
-
-    public static int getLastNOutputUsage(int n) {
-        return getLastNUsage(reportManager.getDailyOutputTokenStats(), n);
+    private static Encoding encoding(GenAIProvider provider, String modelName) {
+        return tokenCounter.getEncoding(provider, modelName);
     }
 
-    private static int getLastNUsage(JSONObject usage, int n) {
-        TokenGranularity granularity = preferencesManager.getTokenGranularity();
-        long now = System.currentTimeMillis() / granularity.intervalMillis;
-        int total = 0;
-
-        for (int i = 0; i < n; i++) {
-            String key = String.valueOf(now - i);
-            total += usage.optInt(key, 0);
-        }
-
-        return total;
+    /**
+     * @param provider the provider
+     * @param modelName the model name
+     *
+     * @return the name of the given model in the {@link TokenUsageLog}
+     */
+    public static String modelKey(GenAIProvider provider, String modelName) {
+        return ((provider != null) ? provider.name() : GenAIProvider.OTHER.name()) + '/' + modelName;
     }
 
-    public static void cleanOldInputEntries() {
-        cleanOldEntries(reportManager.getDailyInputTokenStats(), true);
+    public static long getLastNInputUsage(int n) {
+        return getLastNUsage(n).totalInput();
     }
 
-    public static void cleanOldOutputEntries() {
-        cleanOldEntries(reportManager.getDailyOutputTokenStats(), false);
+    public static long getLastNOutputUsage(int n) {
+        return getLastNUsage(n).totalOutput();
     }
 
-    private static void cleanOldEntries(JSONObject usage, boolean isInput) {
+    private static TokenUsageLog.Rollup getLastNUsage(int n) {
         TokenGranularity granularity = preferencesManager.getTokenGranularity();
-        long cutoff = (System.currentTimeMillis() / granularity.intervalMillis) - 30;
-
-        Iterator<String> keys = usage.keys();
-        while (keys.hasNext()) {
-            String key = keys.next();
-            try {
-                if (Long.parseLong(key) < cutoff) {
-                    keys.remove();
-                }
-            } catch (NumberFormatException ignored) {
-            }
-        }
-
-        if (isInput) {
-            reportManager.setDailyInputTokenStats(usage);
-        } else {
-            reportManager.setDailyOutputTokenStats(usage);
-        }
+        return reportManager.getTokenUsageLog().rollUp(granularity, n, System.currentTimeMillis());
     }
 }
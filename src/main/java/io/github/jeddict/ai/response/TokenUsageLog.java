@@ -0,0 +1,435 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only log of the token usage of each request.
+ * <p>
+ * Every request is recorded with its time, model, input, cached input and
+ * output tokens and latency. On disk the log is a binary file that is only
+ * ever appended to: model names are written once and then referred to by
+ * index, and a usage record takes 29 bytes. In memory the most recent {@link #CAPACITY}
+ * records are kept in a ring buffer of primitive arrays, from which usage is
+ * rolled up at any {@link TokenGranularity} by scanning only the records of
+ * the requested period.
+ * <p>
+ * The log is read as a stream when loaded. A record truncated by a crash is
+ * dropped, and a log grown past {@link #COMPACTION_FACTOR} times the records
+ * kept in memory is rewritten with those only.
+ */
+public class TokenUsageLog {
+
+    private static final Logger LOG = Logger.getLogger(TokenUsageLog.class.getName());
+
+    public static final int CAPACITY = 1 << 16;
+
+    public static final String UNKNOWN_MODEL = "unknown";
+
+    private static final int MAGIC = 0x4A54554C; // JTUL
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte MODEL_RECORD = 1;
+    private static final byte USAGE_RECORD = 2;
+
+    /**
+     * The log is compacted when loaded with more than this many times the
+     * records kept in memory
+     */
+    private static final int COMPACTION_FACTOR = 2;
+
+    /**
+     * Usage per bucket of the requested period, oldest first.
+     */
+    public record Rollup(TokenGranularity granularity, long firstBucket, long[] input, long[] output, int[] requests) {
+
+        public long totalInput() {
+            long total = 0;
+            for (long tokens : input) {
+                total += tokens;
+            }
+            return total;
+        }
+
+        public long totalOutput() {
+            long total = 0;
+            for (long tokens : output) {
+                total += tokens;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Cumulated usage of a model.
+     *
+     * @param cachedInput the input tokens read from the provider prompt cache
+     */
+    public record Totals(long input, long output, int requests, long latency, long cachedInput) {
+
+        Totals add(int input, int output, int latency, int cachedInput) {
+            return new Totals(this.input + input, this.output + output, requests + 1,
+                    this.latency + latency, this.cachedInput + cachedInput);
+        }
+    }
+
+    private final Path file;
+
+    private final List<String> models = new ArrayList<>();
+    private final Map<String, Integer> modelIds = new HashMap<>();
+
+    //
+    // ring buffer, guarded by this
+    //
+    private final long[] timestamps;
+    private final int[] modelOf;
+    private final int[] inputs;
+    private final int[] cachedInputs;
+    private final int[] outputs;
+    private final int[] latencies;
+    private int next;
+    private int size;
+
+    public TokenUsageLog(final Path file) {
+        this(file, CAPACITY);
+    }
+
+    TokenUsageLog(final Path file, final int capacity) {
+        this.file = file;
+        this.timestamps = new long[capacity];
+        this.modelOf = new int[capacity];
+        this.inputs = new int[capacity];
+        this.cachedInputs = new int[capacity];
+        this.outputs = new int[capacity];
+        this.latencies = new int[capacity];
+        load();
+    }
+
+    /**
+     * Records the usage of a request.
+     *
+     * @param timestamp the completion time in milliseconds
+     * @param model the provider and model name
+     * @param input the input tokens, including the cached ones
+     * @param cachedInput the input tokens read from the provider prompt cache
+     * @param output the output tokens
+     * @param latency the request latency in milliseconds
+     */
+    public synchronized void append(
+        final long timestamp, final String model,
+        final int input, final int cachedInput, final int output, final int latency
+    ) {
+        final String name = (model == null || model.isBlank()) ? UNKNOWN_MODEL : model;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (!Files.exists(file)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                //
+                // a new file must define again the models already known
+                //
+                for (String m : models) {
+                    out.writeByte(MODEL_RECORD);
+                    out.writeUTF(m);
+                }
+            }
+            Integer id = modelIds.get(name);
+            if (id == null) {
+                id = models.size();
+                models.add(name);
+                modelIds.put(name, id);
+                out.writeByte(MODEL_RECORD);
+                out.writeUTF(name);
+            }
+            out.writeByte(USAGE_RECORD);
+            out.writeLong(timestamp);
+            out.writeInt(id);
+            out.writeInt(input);
+            out.writeInt(output);
+            out.writeInt(latency);
+            out.writeInt(cachedInput);
+        } catch (IOException x) {
+            throw new IllegalStateException(x); // not thrown by in-memory streams
+        }
+        add(timestamp, modelIds.get(name), input, output, latency, cachedInput);
+
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                bytes.writeTo(out);
+            }
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "Unable to write token usage to " + file, x);
+        }
+    }
+
+    /**
+     * Rolls up the usage of the last buckets of the given granularity.
+     *
+     * @param granularity the bucket size
+     * @param buckets the number of buckets, the last one containing now
+     * @param now the current time in milliseconds
+     *
+     * @return the usage per bucket
+     */
+    public synchronized Rollup rollUp(final TokenGranularity granularity, final int buckets, final long now) {
+        final long last = now / granularity.intervalMillis;
+        final long first = last - buckets + 1;
+        final long[] input = new long[buckets];
+        final long[] output = new long[buckets];
+        final int[] requests = new int[buckets];
+
+        for (int i = 0; i < size; ++i) {
+            final int index = Math.floorMod(next - 1 - i, timestamps.length);
+            final long bucket = timestamps[index] / granularity.intervalMillis;
+            if (bucket < first) {
+                break; // records are in time order
+            }
+            if (bucket <= last) {
+                input[(int) (bucket - first)] += inputs[index];
+                output[(int) (bucket - first)] += outputs[index];
+                requests[(int) (bucket - first)] += 1;
+            }
+        }
+        return new Rollup(granularity, first, input, output, requests);
+    }
+
+    /**
+     * @param since the start time in milliseconds
+     * @return the usage since the given time keyed by model, most used first
+     */
+    public synchronized Map<String, Totals> totalsByModel(final long since) {
+        final Totals[] totals = new Totals[models.size()];
+        for (int i = 0; i < size; ++i) {
+            final int index = Math.floorMod(next - 1 - i, timestamps.length);
+            if (timestamps[index] < since) {
+                break;
+            }
+            final int model = modelOf[index];
+            totals[model] = ((totals[model] != null) ? totals[model] : new Totals(0, 0, 0, 0, 0))
+                    .add(inputs[index], outputs[index], latencies[index], cachedInputs[index]);
+        }
+        final Map<String, Totals> result = new LinkedHashMap<>();
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < totals.length; ++i) {
+            if (totals[i] != null) {
+                order.add(i);
+            }
+        }
+        order.sort((a, b) -> Long.compare(
+                totals[b].input() + totals[b].output(), totals[a].input() + totals[a].output()));
+        for (int i : order) {
+            result.put(models.get(i), totals[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of records in memory
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void add(
+        final long timestamp, final int model,
+        final int input, final int output, final int latency, final int cachedInput
+    ) {
+        timestamps[next] = timestamp;
+        modelOf[next] = model;
+        inputs[next] = input;
+        cachedInputs[next] = cachedInput;
+        outputs[next] = output;
+        latencies[next] = latency;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    private void load() {
+        final long length;
+        long valid = 0;
+        long records = 0;
+        boolean otherVersion = false;
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+             DataInputStream in = new DataInputStream(counter)) {
+            length = Files.size(file);
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    otherVersion = true;
+                } else {
+                    valid = counter.position;
+                    int type;
+                    while ((type = in.read()) >= 0) {
+                        if (type == MODEL_RECORD) {
+                            final String name = in.readUTF();
+                            modelIds.put(name, models.size());
+                            models.add(name);
+                        } else if (type == USAGE_RECORD) {
+                            final long timestamp = in.readLong();
+                            final int model = in.readInt();
+                            final int input = in.readInt();
+                            final int output = in.readInt();
+                            final int latency = in.readInt();
+                            final int cachedInput = in.readInt();
+                            if (model < 0 || model >= models.size()) {
+                                throw new IOException("invalid model index " + model);
+                            }
+                            add(timestamp, model, input, output, latency, cachedInput);
+                            ++records;
+                        } else {
+                            throw new IOException("invalid record type " + type);
+                        }
+                        valid = counter.position;
+                    }
+                }
+            } catch (EOFException x) {
+                // truncated record
+            } catch (IOException x) {
+                LOG.log(Level.FINE, "Ignoring the token usage log after an invalid record", x);
+            }
+        } catch (NoSuchFileException x) {
+            return;
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "Unable to read the token usage log " + file, x);
+            return;
+        }
+        if (otherVersion) {
+            return;
+        }
+        final long loaded = records;
+        LOG.finest(() -> "Loaded " + size + " of " + loaded + " token usage records from " + file);
+
+        try {
+            if (records > COMPACTION_FACTOR * timestamps.length) {
+                //
+                // the log is only appended to: once it holds many more records
+                // than kept in memory it is rewritten with the retained ones
+                //
+                LOG.fine(() -> "Compacting " + file + " from " + loaded + " to " + size + " records");
+                compact();
+            } else if (valid < length) {
+                //
+                // records appended after an incomplete one would never be read
+                //
+                final long end = valid;
+                LOG.fine(() -> "Dropping " + (length - end) + " bytes at the end of " + file);
+                if (end < HEADER_SIZE) {
+                    Files.delete(file);
+                } else {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(end);
+                    }
+                }
+            }
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "Unable to repair the token usage log " + file, x);
+        }
+    }
+
+    /**
+     * Rewrites the log with the records in memory; the file is written aside
+     * and moved in place, therefore it is never left truncated.
+     */
+    private void compact() throws IOException {
+        final Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (String model : models) {
+                    out.writeByte(MODEL_RECORD);
+                    out.writeUTF(model);
+                }
+                for (int i = size; i > 0; --i) {
+                    final int index = Math.floorMod(next - i, timestamps.length);
+                    out.writeByte(USAGE_RECORD);
+                    out.writeLong(timestamps[index]);
+                    out.writeInt(modelOf[index]);
+                    out.writeInt(inputs[index]);
+                    out.writeInt(outputs[index]);
+                    out.writeInt(latencies[index]);
+                    out.writeInt(cachedInputs[index]);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException x) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long position;
+
+        private CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                ++position;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+}
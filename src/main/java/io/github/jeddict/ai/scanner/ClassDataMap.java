@@ -0,0 +1,272 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Class signatures of a project keyed by source file, with secondary indexes
+ * by simple name, fully qualified name and package.
+ * <p>
+ * The signatures are kept in a private map and only changed through
+ * {@link #put}, {@link #putIfAbsent}, {@link #remove} and {@link #clear},
+ * which maintain the indexes, so that resolving the classes referenced by a
+ * file costs in the number of referenced types instead of the project size.
+ * Updates of the same file are serialized on a lock stripe while reads never
+ * block: an index may briefly point to a file whose signature is being
+ * replaced, therefore lookups check the current signature before returning
+ * it.
+ */
+public class ClassDataMap {
+
+    private final Map<FileObject, ClassData> classes = new ConcurrentHashMap<>();
+    private final Map<FileObject, ClassData> view = Collections.unmodifiableMap(classes);
+
+    private final Map<String, Set<FileObject>> bySimpleName = new ConcurrentHashMap<>();
+    private final Map<String, Set<FileObject>> byQualifiedName = new ConcurrentHashMap<>();
+    private final Map<String, Set<FileObject>> byPackage = new ConcurrentHashMap<>();
+
+    private final Object[] stripes = new Object[16];
+
+    public ClassDataMap() {
+        for (int i = 0; i < stripes.length; ++i) {
+            stripes[i] = new Object();
+        }
+    }
+
+    public ClassData get(FileObject file) {
+        return classes.get(file);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    public void forEach(BiConsumer<FileObject, ClassData> action) {
+        classes.forEach(action);
+    }
+
+    /**
+     * @return a read-only live view of the signatures keyed by file
+     */
+    public Map<FileObject, ClassData> asMap() {
+        return view;
+    }
+
+    public ClassData put(FileObject file, ClassData classData) {
+        synchronized (stripe(file)) {
+            final ClassData previous = classes.put(file, classData);
+            unindex(file, previous);
+            index(file, classData);
+            return previous;
+        }
+    }
+
+    public ClassData putIfAbsent(FileObject file, ClassData classData) {
+        synchronized (stripe(file)) {
+            final ClassData previous = classes.putIfAbsent(file, classData);
+            if (previous == null) {
+                index(file, classData);
+            }
+            return previous;
+        }
+    }
+
+    public ClassData remove(FileObject file) {
+        synchronized (stripe(file)) {
+            final ClassData previous = classes.remove(file);
+            unindex(file, previous);
+            return previous;
+        }
+    }
+
+    public void clear() {
+        classes.clear();
+        bySimpleName.clear();
+        byQualifiedName.clear();
+        byPackage.clear();
+    }
+
+    /**
+     * Resolves the given type references, e.g. as returned by
+     * {@link ProjectClassScanner#getReferencedClasses}, to the project classes.
+     * Type arguments, arrays, wildcards and nested types are resolved too:
+     * <code>Map&lt;String, List&lt;Foo.Bar&gt;&gt;</code> matches
+     * <code>Map</code>, <code>String</code>, <code>List</code> and
+     * <code>Foo</code>.
+     *
+     * @param types the type references
+     * @return the matching classes keyed by file, in reference order
+     */
+    public Map<FileObject, ClassData> resolve(final Collection<String> types) {
+        final Map<FileObject, ClassData> result = new LinkedHashMap<>();
+        if (types == null) {
+            return result;
+        }
+        for (String type : types) {
+            for (String name : typeNames(type)) {
+                //
+                // a qualified name that matches needs no guessing; otherwise
+                // the name may be relative to an import or be a nested type,
+                // the outermost type is then looked up by its simple name
+                //
+                if (name.indexOf('.') < 0) {
+                    collect(bySimpleName.get(name), name, false, result);
+                } else if (!collect(byQualifiedName.get(name), name, true, result)) {
+                    final String outer = outermostType(name);
+                    collect(bySimpleName.get(outer), outer, false, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param packageName the package name
+     * @return the classes of the given package keyed by file
+     */
+    public Map<FileObject, ClassData> inPackage(final String packageName) {
+        final Map<FileObject, ClassData> result = new LinkedHashMap<>();
+        final Set<FileObject> files = byPackage.get(packageName == null ? "" : packageName);
+        if (files != null) {
+            for (FileObject file : files) {
+                final ClassData classData = get(file);
+                if (classData != null && packageName(classData).equals(packageName == null ? "" : packageName)) {
+                    result.put(file, classData);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits a type reference into the qualified names it mentions, dropping
+     * type arguments brackets, wildcards, annotations and array dimensions.
+     */
+    static Set<String> typeNames(final String type) {
+        final Set<String> names = new LinkedHashSet<>();
+        if (type == null) {
+            return names;
+        }
+        final StringBuilder name = new StringBuilder();
+        boolean annotation = false;
+        for (int i = 0; i <= type.length(); ++i) {
+            final char c = (i < type.length()) ? type.charAt(i) : ' ';
+            if (Character.isJavaIdentifierPart(c) || (c == '.' && name.length() > 0)) {
+                name.append(c);
+                continue;
+            }
+            if (name.length() > 0) {
+                final String n = (name.charAt(name.length() - 1) == '.')
+                               ? name.substring(0, name.length() - 1) : name.toString();
+                if (!annotation && !n.isEmpty() && !"extends".equals(n) && !"super".equals(n)) {
+                    names.add(n);
+                }
+                name.setLength(0);
+            }
+            annotation = (c == '@');
+        }
+        return names;
+    }
+
+    /**
+     * @return the first segment of the given dotted name starting with an
+     * upper case letter, by convention the outermost type, or the last
+     * segment if there is none
+     */
+    static String outermostType(final String name) {
+        int from = 0;
+        while (from < name.length()) {
+            int dot = name.indexOf('.', from);
+            if (dot < 0) {
+                dot = name.length();
+            }
+            if (Character.isUpperCase(name.charAt(from))) {
+                return name.substring(from, dot);
+            }
+            from = dot + 1;
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return true if any class matched
+     */
+    private boolean collect(
+        final Set<FileObject> files, final String name, final boolean qualified,
+        final Map<FileObject, ClassData> result
+    ) {
+        if (files == null) {
+            return false;
+        }
+        boolean found = false;
+        for (FileObject file : files) {
+            final ClassData classData = get(file);
+            if (classData != null
+                    && name.equals(qualified ? qualifiedName(classData) : classData.getClassName())) {
+                result.putIfAbsent(file, classData);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private void index(final FileObject file, final ClassData classData) {
+        if (classData == null) {
+            return;
+        }
+        bySimpleName.computeIfAbsent(classData.getClassName(), k -> ConcurrentHashMap.newKeySet()).add(file);
+        byQualifiedName.computeIfAbsent(qualifiedName(classData), k -> ConcurrentHashMap.newKeySet()).add(file);
+        byPackage.computeIfAbsent(packageName(classData), k -> ConcurrentHashMap.newKeySet()).add(file);
+    }
+
+    private void unindex(final FileObject file, final ClassData classData) {
+        if (classData == null) {
+            return;
+        }
+        unindex(bySimpleName, classData.getClassName(), file);
+        unindex(byQualifiedName, qualifiedName(classData), file);
+        unindex(byPackage, packageName(classData), file);
+    }
+
+    private void unindex(final Map<String, Set<FileObject>> index, final String key, final FileObject file) {
+        index.computeIfPresent(key, (k, files) -> {
+            files.remove(file);
+            return files.isEmpty() ? null : files;
+        });
+    }
+
+    private Object stripe(final Object file) {
+        return stripes[(file.hashCode() & 0x7fffffff) % stripes.length];
+    }
+
+    private static String packageName(final ClassData classData) {
+        return (classData.getPackage() == null) ? "" : classData.getPackage();
+    }
+
+    private static String qualifiedName(final ClassData classData) {
+        final String packageName = packageName(classData);
+        return packageName.isEmpty() ? classData.getClassName() : packageName + '.' + classData.getClassName();
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import io.github.jeddict.ai.util.FileUtil;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On-disk cache of the class signatures of a project.
+ * <p>
+ * Each project has its own binary file under the Jeddict configuration folder,
+ * named after a hash of the project directory. Entries are keyed by the path
+ * of the source file relative to the project directory and carry the last
+ * modification time and size of the file when it was scanned, so that after a
+ * restart only the files whose stamp changed need to be parsed again. The
+ * file starts with a magic number and a format version; a file with a
+ * different version is ignored and rewritten.
+ */
+public class ClassDataStore {
+
+    private static final Logger LOG = Logger.getLogger(ClassDataStore.class.getName());
+
+    private static final int MAGIC = 0x4A434443; // JCDC
+    private static final int VERSION = 1;
+
+    /**
+     * Modification time and size of a source file.
+     */
+    public record Stamp(long lastModified, long size) {}
+
+    /**
+     * Cached signature of a source file.
+     */
+    public record Entry(Stamp stamp, ClassData classData) {}
+
+    private final Path file;
+
+    public ClassDataStore(final String projectDirectory) {
+        this(FileUtil.getConfigPath().resolve("cache").resolve("classdata"), projectDirectory);
+    }
+
+    ClassDataStore(final Path folder, final String projectDirectory) {
+        this.file = folder.resolve(hash(projectDirectory) + ".bin");
+    }
+
+    /**
+     * @return the cached entries keyed by relative path; empty if there is no
+     * cache or it can not be read
+     */
+    public Map<String, Entry> load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOG.finest(() -> "Ignoring class cache " + file + " of a different version");
+                return Collections.emptyMap();
+            }
+            final int count = in.readInt();
+            final Map<String, Entry> entries = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; ++i) {
+                final String path = readString(in);
+                final Stamp stamp = new Stamp(in.readLong(), in.readLong());
+                final ClassData classData = new ClassData(readString(in), readString(in), readString(in));
+                final int subtrees = in.readInt();
+                for (int j = 0; j < subtrees; ++j) {
+                    classData.addSubTree(readString(in));
+                }
+                entries.put(path, new Entry(stamp, classData));
+            }
+            LOG.finest(() -> "Loaded " + entries.size() + " classes from " + file);
+            return entries;
+        } catch (NoSuchFileException x) {
+            return Collections.emptyMap();
+        } catch (IOException | RuntimeException x) {
+            LOG.log(Level.FINE, "Unable to read class cache " + file, x);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Replaces the cache with the given entries. The file is written aside and
+     * moved in place so that a crash never leaves a truncated cache.
+     *
+     * @param entries the entries keyed by relative path
+     */
+    public void save(final Map<String, Entry> entries) {
+        try {
+            Files.createDirectories(file.getParent());
+            final Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(entries.size());
+                    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                        final Entry entry = e.getValue();
+                        final ClassData classData = entry.classData();
+                        writeString(out, e.getKey());
+                        out.writeLong(entry.stamp().lastModified());
+                        out.writeLong(entry.stamp().size());
+                        writeString(out, classData.getPackage());
+                        writeString(out, classData.getClassName());
+                        writeString(out, classData.getClassSignature());
+                        final Set<String> subtree = classData.getSubtree();
+                        out.writeInt(subtree == null ? 0 : subtree.size());
+                        if (subtree != null) {
+                            for (String s : subtree) {
+                                writeString(out, s);
+                            }
+                        }
+                    }
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            LOG.finest(() -> "Saved " + entries.size() + " classes to " + file);
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "Unable to write class cache " + file, x);
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    //
+    // Strings are length prefixed UTF-8: writeUTF is limited to 64K, which
+    // a class signature may exceed
+    //
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String hash(final String projectDirectory) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(projectDirectory.getBytes(StandardCharsets.UTF_8)), 0, 16);
+        } catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException(x);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Class signatures of a project, built incrementally in background.
+ * <p>
+ * The source folders are scanned package by package by a small pool of
+ * workers shared by all projects, while {@link #getClasses()} serves the
+ * classes indexed so far. The package of the file being edited can be moved
+ * ahead of the queue with {@link #prioritize(FileObject)} and modified files
+ * are rescanned with {@link #rescan(FileObject)} without blocking the caller.
+ * Progress of the initial indexing is shown through a {@link ProgressHandle}.
+ * <p>
+ * Signatures are persisted in a {@link ClassDataStore}: at startup the files
+ * whose modification time and size did not change are served from the cache
+ * and only the other ones are parsed. The cache is saved shortly after the
+ * indexing queue is drained.
+ */
+public class ProjectClassIndex {
+
+    private static final Logger LOG = Logger.getLogger(ProjectClassIndex.class.getName());
+
+    private static final int WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final RequestProcessor INDEXER = new RequestProcessor(ProjectClassIndex.class.getName(), WORKERS, true);
+
+    private static final int SAVE_DELAY = 10_000;
+
+    private final Project project;
+    private final ClassDataMap classes = new ClassDataMap();
+    private final Map<FileObject, ClassDataStore.Stamp> stamps = new ConcurrentHashMap<>();
+    private final ClassDataStore store;
+    private final RequestProcessor.Task saveTask = INDEXER.create(this::save);
+    private volatile boolean dirty;
+
+    //
+    // Work queues, guarded by this
+    //
+    private final Deque<FileObject> folders = new ArrayDeque<>();
+    private final Map<FileObject, List<FileObject>> stale = new HashMap<>();
+    private final LinkedHashSet<FileObject> files = new LinkedHashSet<>();
+    private int workers;
+    private boolean cancelled;
+
+    private ProgressHandle progress;
+    private int total, done;
+
+    public ProjectClassIndex(Project project) {
+        this.project = project;
+        this.store = new ClassDataStore(project.getProjectDirectory().getPath());
+    }
+
+    /**
+     * Starts indexing the project sources in background.
+     */
+    public void start() {
+        INDEXER.post(this::enumerate);
+    }
+
+    /**
+     * @return the classes indexed so far; they are updated while indexing
+     */
+    public ClassDataMap getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return true while files are waiting to be indexed or being indexed
+     */
+    public synchronized boolean isIndexing() {
+        return workers > 0 || !folders.isEmpty() || !files.isEmpty();
+    }
+
+    /**
+     * Moves the given package folder ahead of the indexing queue.
+     *
+     * @param folder the package folder
+     */
+    public synchronized void prioritize(FileObject folder) {
+        if (folder != null && folders.remove(folder)) {
+            LOG.finest(() -> "Prioritizing " + folder.getPath());
+            folders.addFirst(folder);
+        }
+    }
+
+    /**
+     * Schedules the given file to be indexed again.
+     *
+     * @param file the java file
+     */
+    public synchronized void rescan(FileObject file) {
+        if (!cancelled && files.add(file)) {
+            spawn();
+        }
+    }
+
+    /**
+     * Stops indexing; the classes indexed so far are kept.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        folders.clear();
+        stale.clear();
+        files.clear();
+    }
+
+    private void enumerate() {
+        final ProgressHandle handle = ProgressHandle.createHandle(
+                "Indexing classes of " + ProjectUtils.getInformation(project).getDisplayName());
+        handle.start();
+
+        final Map<String, ClassDataStore.Entry> cached = store.load();
+        final Map<FileObject, List<FileObject>> found = new LinkedHashMap<>();
+        int count = 0;
+        for (FileObject root : ProjectClassScanner.getSourceFolders(project)) {
+            count += enumerate(root, cached, found);
+        }
+        //
+        // deleted files are still in the cache
+        //
+        dirty |= cached.size() != stamps.size();
+        LOG.finest(() -> "Reusing " + stamps.size() + " cached classes of " + project.getProjectDirectory().getPath());
+
+        synchronized (this) {
+            if (cancelled || count == 0) {
+                handle.finish();
+                if (dirty) {
+                    saveTask.schedule(SAVE_DELAY);
+                }
+                return;
+            }
+            folders.addAll(found.keySet());
+            stale.putAll(found);
+            total += count;
+            progress = handle;
+            progress.switchToDeterminate(total);
+            spawn();
+        }
+        LOG.finest(() -> "Indexing " + found.size() + " packages of " + project.getProjectDirectory().getPath());
+    }
+
+    /**
+     * Collects the files of the given folder and its subfolders that are not
+     * up to date in the cache.
+     *
+     * @return the number of files to scan
+     */
+    private int enumerate(
+        FileObject folder, Map<String, ClassDataStore.Entry> cached, Map<FileObject, List<FileObject>> found
+    ) {
+        int count = 0;
+        final List<FileObject> outdated = new ArrayList<>();
+        for (FileObject child : folder.getChildren()) {
+            if (child.isFolder()) {
+                count += enumerate(child, cached, found);
+            } else if ("java".equals(child.getExt())) {
+                final ClassDataStore.Entry entry = cached.get(relativePath(child));
+                final ClassDataStore.Stamp stamp = stamp(child);
+                if (entry != null && entry.stamp().equals(stamp)) {
+                    classes.putIfAbsent(child, entry.classData());
+                    stamps.putIfAbsent(child, stamp);
+                } else {
+                    outdated.add(child);
+                }
+            }
+        }
+        if (!outdated.isEmpty()) {
+            found.put(folder, outdated);
+        }
+        return count + outdated.size();
+    }
+
+    private synchronized void spawn() {
+        while (workers < WORKERS && (!folders.isEmpty() || !files.isEmpty())) {
+            ++workers;
+            INDEXER.post(this::work);
+        }
+    }
+
+    private void work() {
+        while (true) {
+            final FileObject file;
+            final List<FileObject> folder;
+            synchronized (this) {
+                if (!files.isEmpty()) {
+                    file = files.iterator().next();
+                    files.remove(file);
+                    folder = null;
+                } else if (!folders.isEmpty()) {
+                    file = null;
+                    folder = stale.remove(folders.poll());
+                } else {
+                    --workers;
+                    if (workers == 0) {
+                        if (progress != null) {
+                            progress.finish();
+                            progress = null;
+                            LOG.finest(() -> "Indexed " + classes.size() + " classes of " + project.getProjectDirectory().getPath());
+                        }
+                        if (dirty) {
+                            saveTask.schedule(SAVE_DELAY);
+                        }
+                    }
+                    return;
+                }
+            }
+
+            if (file != null) {
+                scan(file);
+            } else if (folder != null) {
+                for (FileObject child : folder) {
+                    scan(child);
+                    progress();
+                }
+            }
+        }
+    }
+
+    private void scan(FileObject file) {
+        dirty = true;
+        if (!file.isValid()) {
+            classes.remove(file);
+            stamps.remove(file);
+            return;
+        }
+        try {
+            final ClassDataStore.Stamp stamp = stamp(file);
+            ProjectClassScanner.scanJavaFile(file, classes::put);
+            stamps.put(file, stamp);
+        } catch (IOException | RuntimeException x) {
+            LOG.log(Level.FINE, "Unable to index " + file.getPath(), x);
+        }
+    }
+
+    private void save() {
+        dirty = false;
+        final Map<String, ClassDataStore.Entry> entries = new HashMap<>();
+        classes.forEach((file, classData) -> {
+            final ClassDataStore.Stamp stamp = stamps.get(file);
+            if (stamp != null && file.isValid()) {
+                entries.put(relativePath(file), new ClassDataStore.Entry(stamp, classData));
+            }
+        });
+        store.save(entries);
+    }
+
+    private String relativePath(FileObject file) {
+        final String path = FileUtil.getRelativePath(project.getProjectDirectory(), file);
+        return (path != null) ? path : file.getPath();
+    }
+
+    private static ClassDataStore.Stamp stamp(FileObject file) {
+        return new ClassDataStore.Stamp(file.lastModified().getTime(), file.getSize());
+    }
+
+    private synchronized void progress() {
+        if (progress != null) {
+            progress.progress(Math.min(++done, total));
+        }
+    }
+}
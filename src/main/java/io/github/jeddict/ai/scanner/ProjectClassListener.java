@@ -15,13 +15,11 @@
  */
 package io.github.jeddict.ai.scanner;
 
-import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.event.ChangeListener;
 import org.netbeans.api.project.Project;
-import org.netbeans.api.project.ProjectUtils;
-import org.netbeans.api.project.SourceGroup;
-import org.netbeans.api.project.Sources;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
@@ -34,10 +32,15 @@ public class ProjectClassListener {
 
     private final Project project;
 
-    private final Map<FileObject, ClassData> classDatas;
-    private final Set<DataObject> pendingDO = new HashSet<>();
+    private final ClassDataMap classDatas;
+    //
+    // Filled by the registry listener and drained by the completion and hint
+    // threads
+    //
+    private final Set<DataObject> pendingDO = ConcurrentHashMap.newKeySet();
+    private ChangeListener listener;
 
-    public ProjectClassListener(Project project, Map<FileObject, ClassData> classDatas) {
+    public ProjectClassListener(Project project, ClassDataMap classDatas) {
         this.project = project;
         this.classDatas = classDatas;
     }
@@ -46,40 +49,38 @@ public class ProjectClassListener {
         return pendingDO;
     }
 
-    public void register() {
-        // Get source groups from the project (Java source folders)
-        Sources sources = ProjectUtils.getSources(project);
-        SourceGroup[] sourceGroups = sources.getSourceGroups(Sources.TYPE_GENERIC);
-
-        FileObject javaFolder = null;
-        for (SourceGroup group : sourceGroups) {
-            // Get the root folder of the source group
-            FileObject rootFolder = group.getRootFolder();
-
-            // Check if the root folder has a 'src/main/java' folder
-            FileObject srcFolder = rootFolder.getFileObject("src");
-            if (srcFolder != null) {
-                FileObject mainFolder = srcFolder.getFileObject("main");
-                if (mainFolder != null) {
-                    javaFolder = mainFolder.getFileObject("java");
-                }
-            }
+    public synchronized void register() {
+        if (listener != null) {
+            return;
         }
+        final List<FileObject> javaFolders = ProjectClassScanner.getSourceFolders(project);
 
-        FileObject javaFolder2 = javaFolder;
         // Listen for changes in the DataObject Registry
-        DataObject.Registry registry = DataObject.getRegistry();
-        registry.addChangeListener((e) -> {
+        final DataObject.Registry registry = DataObject.getRegistry();
+        listener = (e) -> {
             DataObject[] modifiedObjects = registry.getModified();
             for (DataObject dataObj : modifiedObjects) {
-                if (FileUtil.isParentOf(javaFolder2, dataObj.getPrimaryFile())) {
-                    pendingDO.add(dataObj);
-                    classDatas.remove(dataObj.getPrimaryFile());
-                } else {
-                    System.out.println("");
+                for (FileObject javaFolder : javaFolders) {
+                    if (FileUtil.isParentOf(javaFolder, dataObj.getPrimaryFile())) {
+                        pendingDO.add(dataObj);
+                        classDatas.remove(dataObj.getPrimaryFile());
+                        break;
+                    }
                 }
             }
-        });
+        };
+        registry.addChangeListener(listener);
+    }
+
+    /**
+     * Stops listening for modified files, e.g. when the project is closed.
+     */
+    public synchronized void unregister() {
+        if (listener != null) {
+            DataObject.getRegistry().removeChangeListener(listener);
+            listener = null;
+        }
+        pendingDO.clear();
     }
 
 }
@@ -22,16 +22,21 @@ import com.sun.source.tree.ModifiersTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import io.github.jeddict.ai.lang.JeddictBrain;
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.metrics.RequestMetrics.Metric;
+import io.github.jeddict.ai.metrics.RequestMetrics.Series;
 import io.github.jeddict.ai.settings.AIClassContext;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import static java.util.stream.Collectors.toList;
@@ -43,6 +48,7 @@ import javax.lang.model.element.TypeElement;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.netbeans.api.editor.EditorRegistry;
+import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.source.CompilationController;
 import org.netbeans.api.java.source.JavaSource;
 import org.netbeans.api.project.FileOwnerQuery;
@@ -50,15 +56,29 @@ import org.netbeans.api.project.Project;
 import org.netbeans.api.project.ProjectUtils;
 import org.netbeans.api.project.SourceGroup;
 import org.netbeans.api.project.Sources;
+import org.netbeans.api.project.ui.OpenProjects;
 import org.openide.filesystems.FileObject;
 import org.openide.loaders.DataObject;
-import org.openide.util.Exceptions;
 
 public class ProjectClassScanner {
 
     public static Map<FileObject, ClassData> scanProjectClasses(Project project) throws IOException {
         Map<FileObject, ClassData> classList = new HashMap<>();
 
+        for (FileObject javaFolder : getSourceFolders(project)) {
+            scanFolder(javaFolder, classList::put); // Scan the 'src/main/java' folder
+        }
+
+        return classList;
+    }
+
+    /**
+     * @param project the project
+     * @return the 'src/main/java' folders of the project source groups
+     */
+    public static List<FileObject> getSourceFolders(Project project) {
+        List<FileObject> folders = new ArrayList<>();
+
         if (project != null) {
             // Get source groups from the project (Java source folders)
             Sources sources = ProjectUtils.getSources(project);
@@ -74,19 +94,19 @@ public class ProjectClassScanner {
                     FileObject mainFolder = srcFolder.getFileObject("main");
                     if (mainFolder != null) {
                         FileObject javaFolder = mainFolder.getFileObject("java");
-                        if (javaFolder != null) {
-                            scanFolder(javaFolder, classList); // Scan the 'src/main/java' folder
+                        if (javaFolder != null && !folders.contains(javaFolder)) {
+                            folders.add(javaFolder);
                         }
                     }
                 }
             }
         }
 
-        return classList;
+        return folders;
     }
 
     // Recursively scan folders for .java files
-    private static void scanFolder(FileObject folder, Map<FileObject, ClassData> classList) throws IOException {
+    private static void scanFolder(FileObject folder, BiConsumer<FileObject, ClassData> classList) throws IOException {
         for (FileObject file : folder.getChildren()) {
             if (file.isFolder()) {
                 scanFolder(file, classList);
@@ -96,11 +116,11 @@ public class ProjectClassScanner {
         }
     }
 
-    public static void scanJavaFile(DataObject javaFile, Map<FileObject, ClassData> classList) throws IOException {
+    public static void scanJavaFile(DataObject javaFile, BiConsumer<FileObject, ClassData> classList) throws IOException {
         scanJavaFile(javaFile.getPrimaryFile(), classList);
     }
 
-    public static void scanJavaFile(FileObject javaFile, Map<FileObject, ClassData> classList) throws IOException {
+    public static void scanJavaFile(FileObject javaFile, BiConsumer<FileObject, ClassData> classList) throws IOException {
         JavaSource javaSource = JavaSource.forFileObject(javaFile);
 
         if (javaSource != null) {
@@ -123,7 +143,6 @@ public class ProjectClassScanner {
 
                         String classWithoutMethodsBody = removeMethodBodies(cc, classTree, packageName);
                         ClassData classData1 = new ClassData(packageName, classElement.getSimpleName().toString(), classWithoutMethodsBody);
-                        classList.put(javaFile, classData1);
                         List<Map<String, String>> attributes = new ArrayList<>();
                         for (Element element : classElement.getEnclosedElements()) {
                             if (element.getKind() == ElementKind.FIELD) {
@@ -136,6 +155,8 @@ public class ProjectClassScanner {
                                 classData1.addSubTree(type);
                             }
                         }
+                        // publish only once complete, readers may be iterating
+                        classList.accept(javaFile, classData1);
 
                     }
                 }
@@ -222,16 +243,57 @@ public class ProjectClassScanner {
                 .replace("\n\n", "\n");
     }
 
-    private static final Map<String, Map<FileObject, ClassData>> classData = new HashMap<>(); // project is key
-    private static final Map<String, ProjectClassListener> projectClassListeners = new HashMap<>(); // project is key
-    private static final Map<String, JeddictBrain> models = new HashMap<>(); // class file is key
+    //
+    // Accessed by the completion, hint and indexing threads and by the EDT:
+    // lookups never block, creation and removal are atomic per project
+    //
+    private static final Map<String, ProjectClassIndex> classData = new ConcurrentHashMap<>(); // project is key
+    private static final Map<String, ProjectClassListener> projectClassListeners = new ConcurrentHashMap<>(); // project is key
+    private static final Map<String, JeddictBrain> models = new ConcurrentHashMap<>(); // class file is key
+    private static final AtomicBoolean openProjectsListening = new AtomicBoolean();
 
     public static void clear() {
-        classData.clear();
-        projectClassListeners.clear();
+        for (String key : classData.keySet()) {
+            unregister(key);
+        }
         models.clear();
     }
 
+    private static void unregister(String key) {
+        ProjectClassIndex index = classData.remove(key);
+        if (index != null) {
+            index.cancel();
+        }
+        ProjectClassListener listener = projectClassListeners.remove(key);
+        if (listener != null) {
+            listener.unregister();
+        }
+    }
+
+    /**
+     * Drops the classes of the projects that are not open anymore.
+     */
+    private static void listenOpenProjects() {
+        if (openProjectsListening.compareAndSet(false, true)) {
+            OpenProjects.getDefault().addPropertyChangeListener((e) -> {
+                if (!OpenProjects.PROPERTY_OPEN_PROJECTS.equals(e.getPropertyName())) {
+                    return;
+                }
+                Set<String> open = new HashSet<>();
+                for (Project project : OpenProjects.getDefault().getOpenProjects()) {
+                    open.add(project.getProjectDirectory().toString());
+                }
+                for (String key : classData.keySet()) {
+                    if (!open.contains(key)) {
+                        Logger.getLogger(ProjectClassScanner.class.getCanonicalName())
+                              .finest(() -> "Unregistering closed project " + key);
+                        unregister(key);
+                    }
+                }
+            });
+        }
+    }
+
     public static FileObject getFileObjectFromEditor(Document document) {
         if (document == null) {
             JTextComponent editor = EditorRegistry.lastFocusedComponent();
@@ -250,6 +312,15 @@ public class ProjectClassScanner {
 
     public static List<ClassData> getClassData(
         final FileObject fileObject, final Set<String> findReferencedClasses, final AIClassContext classAnalysisContext
+    ) {
+        return RequestMetrics.getInstance().time(
+            Series.of(null, null, null, "classContext"), Metric.CONTEXT,
+            () -> collectClassData(fileObject, findReferencedClasses, classAnalysisContext)
+        );
+    }
+
+    private static List<ClassData> collectClassData(
+        final FileObject fileObject, final Set<String> findReferencedClasses, final AIClassContext classAnalysisContext
     ) {
         final Logger LOG = Logger.getLogger(ProjectClassScanner.class.getCanonicalName());
 
@@ -259,59 +330,79 @@ public class ProjectClassScanner {
         }
         Project project = FileOwnerQuery.getOwner(fileObject);
         if (project != null) {
-            try {
-                String key = project.getProjectDirectory().toString();
-                if (classData.get(key) == null) {
-                    Map<FileObject, ClassData> classDataList = scanProjectClasses(project);
-                    classData.put(key, classDataList);
-                    ProjectClassListener projectClassListener = new ProjectClassListener(project, classDataList);
-                    projectClassListener.register();
-                    projectClassListeners.put(key, projectClassListener);
-                }
-                if (projectClassListeners.get(key) != null) {
-                    Iterator<DataObject> iterator = projectClassListeners.get(key).getPendingDataObject().iterator();
-                    while (iterator.hasNext()) {
-                        DataObject javaFile = iterator.next();
-                        if (javaFile.getPrimaryFile().equals(fileObject)) {
-                            // Ignore current editor
-                            LOG.finest(() -> "Ignoring " + fileObject.getName());
-                        } else {
-                            // Remove safely using the iterator
-                            iterator.remove();
-                            LOG.finest(() -> "Rescanning " + javaFile.getName());
-                            scanJavaFile(javaFile, classData.get(key));
-                        }
+            String key = project.getProjectDirectory().toString();
+            listenOpenProjects();
+            //
+            // Classes are indexed in background; until done the classes
+            // indexed so far are used
+            //
+            ProjectClassIndex index = classData.computeIfAbsent(key, (k) -> {
+                ProjectClassIndex projectIndex = new ProjectClassIndex(project);
+                ProjectClassListener projectClassListener = new ProjectClassListener(project, projectIndex.getClasses());
+                projectClassListener.register();
+                projectClassListeners.put(k, projectClassListener);
+                projectIndex.start();
+                return projectIndex;
+            });
+            index.prioritize(fileObject.getParent());
+            ProjectClassListener projectClassListener = projectClassListeners.get(key);
+            if (projectClassListener != null) {
+                Set<DataObject> pending = projectClassListener.getPendingDataObject();
+                for (DataObject javaFile : pending) {
+                    if (javaFile.getPrimaryFile().equals(fileObject)) {
+                        // Ignore current editor
+                        LOG.finest(() -> "Ignoring " + fileObject.getName());
+                    } else if (pending.remove(javaFile)) {
+                        // Only the thread that removed it from the pending
+                        // ones rescans it
+                        LOG.finest(() -> "Rescanning " + javaFile.getName());
+                        index.rescan(javaFile.getPrimaryFile());
                     }
                 }
+            }
 
-                if (classAnalysisContext == AIClassContext.REFERENCED_CLASSES) {
-                    return classData.get(key).entrySet().stream()
-                            .filter(entry -> !entry.getKey().equals(fileObject))
-                            .filter(entry -> findReferencedClasses != null && findReferencedClasses.contains(entry.getKey().getName()))
-                            .map(entry -> entry.getValue())
-                            .collect(toList());
-                } else if (classAnalysisContext == AIClassContext.CURRENT_PACKAGE) {
-                    return classData.get(key).entrySet().stream()
-                            .filter(entry -> !entry.getKey().equals(fileObject))
-                            .filter(entry
-                                    -> (findReferencedClasses != null && findReferencedClasses.contains(entry.getKey().getName()))
-                            || (entry.getKey().getParent().equals(fileObject.getParent()))
-                            )
-                            .map(entry -> entry.getValue())
-                            .collect(toList());
-                } else if (classAnalysisContext == AIClassContext.ENTIRE_PROJECT) {
-                    return classData.get(key).entrySet().stream()
-                            .filter(entry -> !entry.getKey().equals(fileObject))
-                            .map(entry -> entry.getValue())
-                            .collect(toList());
+            final ClassDataMap classes = index.getClasses();
+            final Map<FileObject, ClassData> context;
+            if (classAnalysisContext == AIClassContext.REFERENCED_CLASSES) {
+                context = classes.resolve(findReferencedClasses);
+            } else if (classAnalysisContext == AIClassContext.CURRENT_PACKAGE) {
+                context = classes.resolve(findReferencedClasses);
+                String packageName = getPackageName(fileObject, classes);
+                if (packageName != null) {
+                    context.putAll(classes.inPackage(packageName));
+                } else {
+                    classes.forEach((file, data) -> {
+                        if (file.getParent().equals(fileObject.getParent())) {
+                            context.put(file, data);
+                        }
+                    });
                 }
-            } catch (IOException ex) {
-                Exceptions.printStackTrace(ex);
+            } else if (classAnalysisContext == AIClassContext.ENTIRE_PROJECT) {
+                context = classes.asMap();
+            } else {
+                context = Collections.emptyMap();
             }
+            return context.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(fileObject))
+                    .map(entry -> entry.getValue())
+                    .collect(toList());
         }
         return Collections.emptyList();
     }
 
+    /**
+     * @return the package of the given file, from its indexed signature or
+     * from its source classpath, or null if it can not be determined
+     */
+    private static String getPackageName(FileObject fileObject, ClassDataMap classes) {
+        ClassData classData = classes.get(fileObject);
+        if (classData != null) {
+            return classData.getPackage();
+        }
+        ClassPath classPath = ClassPath.getClassPath(fileObject, ClassPath.SOURCE);
+        return (classPath != null) ? classPath.getResourceName(fileObject.getParent(), '.', false) : null;
+    }
+
     public static Set<String> getReferencedClasses(CompilationUnitTree compilationUnit) throws IOException {
         return findReferencedClasses(compilationUnit);
     }
@@ -16,24 +16,63 @@
 package io.github.jeddict.ai.settings;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.openide.util.RequestProcessor;
 
 /**
+ * JSON backed preferences.
+ * <p>
+ * Changes are applied in memory and written behind: the first change marks
+ * the preferences dirty and schedules a write after {@link #WRITE_DELAY}
+ * milliseconds, so that all the changes made in the meantime (e.g. by the
+ * settings panel or the token statistics) are saved with a single write. The
+ * file is written aside and moved in place, therefore it is never left
+ * truncated. Pending changes are written on IDE shutdown, or immediately
+ * with {@link #flush()}.
+ * <p>
+ * All the accesses to the JSON data hold the same lock, the writer included
+ * while it serializes them; child nodes are therefore handed out and taken
+ * in as copies, so that they can not be changed outside of the lock.
  *
  * @author Gaurav Gupta
  */
 public class FilePreferences {
 
+    private static final Logger LOG = Logger.getLogger(FilePreferences.class.getName());
+
+    public static final int WRITE_DELAY = 1000;
+
+    private static final RequestProcessor WRITER = new RequestProcessor(FilePreferences.class.getName(), 1);
+
+    private static final Set<FilePreferences> PENDING = ConcurrentHashMap.newKeySet();
+
     public final Path preferencesPath;
 
+    private final Object lock = new Object();
+
+    //
+    // guarded by lock
+    //
     private JSONObject data;
 
+    private final AtomicLong revision = new AtomicLong();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final RequestProcessor.Task writeTask = WRITER.create(this::flush);
+
     public FilePreferences(Path preferencesPath) {
         this.preferencesPath = preferencesPath;
         load();
@@ -41,28 +80,84 @@ public class FilePreferences {
 
     private void load() {
         try {
-            if (Files.exists(preferencesPath)) {
-                String content = Files.readString(preferencesPath);
-                data = new JSONObject(content);
-            } else {
-                data = new JSONObject();
+            final JSONObject loaded = Files.exists(preferencesPath)
+                                    ? new JSONObject(Files.readString(preferencesPath))
+                                    : new JSONObject();
+            synchronized (lock) {
+                data = loaded;
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to load preferences", e);
         }
     }
 
+    /**
+     * Returns a counter increased every time the preferences are saved, which
+     * allows caches derived from the preferences to cheaply detect changes.
+     *
+     * @return the current revision of the preferences
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Marks the preferences as changed; they are written to disk in
+     * background within {@link #WRITE_DELAY} milliseconds.
+     */
     public void save() {
+        revision.incrementAndGet();
+        if (dirty.compareAndSet(false, true)) {
+            PENDING.add(this);
+            writeTask.schedule(WRITE_DELAY);
+        }
+    }
+
+    /**
+     * Writes the pending changes, if any, to disk.
+     */
+    public synchronized void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        PENDING.remove(this);
+
+        final String content;
+        synchronized (lock) {
+            content = data.toString(2);
+        }
+
         try {
-            Files.createDirectories(preferencesPath.getParent());
-            Files.writeString(preferencesPath, data.toString(2));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to save preferences", e);
+            final Path folder = Files.createDirectories(preferencesPath.toAbsolutePath().getParent());
+            final Path tmp = Files.createTempFile(folder, preferencesPath.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(tmp, content);
+                try {
+                    Files.move(tmp, preferencesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException x) {
+                    Files.move(tmp, preferencesPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException x) {
+            LOG.log(Level.WARNING, "Failed to save preferences " + preferencesPath, x);
+        }
+    }
+
+    /**
+     * Writes the pending changes of all preferences, e.g. on shutdown.
+     */
+    public static void flushAll() {
+        for (FilePreferences preferences : PENDING) {
+            preferences.flush();
         }
     }
 
     public void remove(String key) {
-        data.remove(key);
+        synchronized (lock) {
+            data.remove(key);
+        }
         save();
     }
 
@@ -76,7 +171,11 @@ public class FilePreferences {
     public void exportPreferences(String filePath) throws IOException {
         Path exportPath = Paths.get(filePath);
         Files.createDirectories(exportPath.getParent());
-        Files.writeString(exportPath, data.toString(2));
+        final String content;
+        synchronized (lock) {
+            content = data.toString(2);
+        }
+        Files.writeString(exportPath, content);
     }
 
     /**
@@ -95,90 +194,121 @@ public class FilePreferences {
         JSONObject importedData = new JSONObject(content);
 
         // Overwrite the current data with imported data
-        this.data = importedData;
+        synchronized (lock) {
+            this.data = importedData;
+        }
         save();
+        flush();
     }
 
     public String get(String key, String def) {
-        return data.optString(key, def);
+        synchronized (lock) {
+            return data.optString(key, def);
+        }
     }
 
     public void put(String key, String value) {
-        data.put(key, value);
+        synchronized (lock) {
+            data.put(key, value);
+        }
         save();
     }
 
     public boolean getBoolean(String key, boolean def) {
-        return data.optBoolean(key, def);
+        synchronized (lock) {
+            return data.optBoolean(key, def);
+        }
     }
 
     public void putBoolean(String key, boolean value) {
-        data.put(key, value);
+        synchronized (lock) {
+            data.put(key, value);
+        }
         save();
     }
 
 // new int methods
     public int getInt(String key, int def) {
-        return data.optInt(key, def);
+        synchronized (lock) {
+            return data.optInt(key, def);
+        }
     }
 
     public void putInt(String key, int value) {
-        data.put(key, value);
+        synchronized (lock) {
+            data.put(key, value);
+        }
         save();
     }
 
 // new double methods
     public double getDouble(String key, double def) {
-        return data.optDouble(key, def);
+        synchronized (lock) {
+            return data.optDouble(key, def);
+        }
     }
 
     public void putDouble(String key, double value) {
-        data.put(key, value);
+        synchronized (lock) {
+            data.put(key, value);
+        }
         save();
     }
 
     public void putChild(String nodeKey, String key, String value) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if (node == null) {
-            node = new JSONObject();
-            data.put(nodeKey, node);
+        synchronized (lock) {
+            node(nodeKey).put(key, value);
         }
-        node.put(key, value);
         save();
     }
 
     public String getChild(String nodeKey, String key, String def) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if (node != null) {
-            return node.optString(key, def);
+        synchronized (lock) {
+            JSONObject node = data.optJSONObject(nodeKey);
+            if (node != null) {
+                return node.optString(key, def);
+            }
+            return def;
         }
-        return def;
     }
 
-     public JSONObject getChild(String nodeKey) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if(node == null) {
-            node = new JSONObject();
-            data.put(nodeKey, node);
+    /**
+     * @return a copy of the given child node; changes to it are saved with
+     * {@link #setChild(String, JSONObject)}
+     */
+    public JSONObject getChild(String nodeKey) {
+        synchronized (lock) {
+            JSONObject node = data.optJSONObject(nodeKey);
+            return (node == null) ? new JSONObject() : new JSONObject(node.toString());
         }
-        return node;
     }
 
     public void setChild(String nodeKey, JSONObject metadata) {
-        data.put(nodeKey, metadata);
+        final JSONObject node = new JSONObject(metadata.toString());
+        synchronized (lock) {
+            data.put(nodeKey, node);
+        }
         save();
     }
 
-     public JSONArray getChildArray(String nodeKey, List<String> defaultValues) {
-        JSONArray node = data.optJSONArray(nodeKey);
-        if(node == null) {
-            node = new JSONArray();
-            for (String value : defaultValues) {
-                node.put(value);
-            }
+    /**
+     * @return a copy of the given child array, or of the default values if
+     * there is none; changes to it are saved with
+     * {@link #setChildList(String, List)}
+     */
+    public JSONArray getChildArray(String nodeKey, List<String> defaultValues) {
+        synchronized (lock) {
+            JSONArray node = data.optJSONArray(nodeKey);
+            return (node == null) ? new JSONArray(defaultValues) : new JSONArray(node.toString());
+        }
+    }
+
+    public void setChildList(String nodeKey, List<String> values) {
+        final JSONArray node = new JSONArray(values);
+        synchronized (lock) {
             data.put(nodeKey, node);
         }
-        return node;
+        save();
     }
 
     public List<String> getChildList(String nodeKey, List<String> defaultValues) {
@@ -194,40 +324,50 @@ public class FilePreferences {
     }
 
     public void putChildBoolean(String nodeKey, String key, boolean value) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if (node == null) {
-            node = new JSONObject();
-            data.put(nodeKey, node);
+        synchronized (lock) {
+            node(nodeKey).put(key, value);
         }
-        node.put(key, value);
         save();
     }
 
     public boolean getChildBoolean(String nodeKey, String key, boolean def) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if (node != null) {
-            return node.optBoolean(key, def);
+        synchronized (lock) {
+            JSONObject node = data.optJSONObject(nodeKey);
+            if (node != null) {
+                return node.optBoolean(key, def);
+            }
+            return def;
         }
-        return def;
     }
 
     public void putChildInt(String nodeKey, String key, int value) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if (node == null) {
-            node = new JSONObject();
-            data.put(nodeKey, node);
+        synchronized (lock) {
+            node(nodeKey).put(key, value);
         }
-        node.put(key, value);
         save();
     }
 
     public int getChildInt(String nodeKey, String key, int def) {
-        JSONObject node = data.optJSONObject(nodeKey);
-        if (node != null) {
-            return node.optInt(key, def);
+        synchronized (lock) {
+            JSONObject node = data.optJSONObject(nodeKey);
+            if (node != null) {
+                return node.optInt(key, def);
+            }
+            return def;
         }
-        return def;
     }
 
+    /**
+     * @return the given child node, created if missing; to be called holding
+     * the lock
+     */
+    private JSONObject node(String nodeKey) {
+        JSONObject node = data.optJSONObject(nodeKey);
+        if (node == null) {
+            node = new JSONObject();
+            data.put(nodeKey, node);
+        }
+        return node;
+    }
 
 }
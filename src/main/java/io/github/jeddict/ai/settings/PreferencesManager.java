@@ -37,6 +37,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
@@ -95,6 +96,18 @@ public class PreferencesManager {
     private static final String MAX_RETRIES_PREFERENCE = "maxRetries";
     private static final String TOKEN_GRANULARITY_KEY = "tokenGranularity";
     private static final String LAST_BROWSE_DIRECTORY_PREFERENCE = "lastBrowseDirectory";
+    private static final String INLINE_HINT_DEBOUNCE_PREFERENCE = "inlineHintDebounce";
+    private static final String SUGGESTION_CACHE_SIZE_PREFERENCE = "suggestionCacheSize";
+    private static final String SUGGESTION_CACHE_TTL_PREFERENCE = "suggestionCacheTtl";
+    private static final String SUGGESTION_CACHE_MAX_CHARS_PREFERENCE = "suggestionCacheMaxChars";
+    private static final String COMPLETION_CONTEXT_TOKENS_PREFERENCE = "completionContextTokens";
+    private static final String COMPLETION_CONTEXT_LINES_PREFERENCE = "completionContextLines";
+    private static final String INLINE_HINT_STREAMING_PREFERENCE = "inlineHintStreaming";
+    private static final String INLINE_HINT_SPECULATION_PREFERENCE = "inlineHintSpeculation";
+    private static final String INLINE_HINT_SPECULATION_BUDGET_PREFERENCE = "inlineHintSpeculationBudget";
+    private static final String CONVERSATION_TOKEN_BUDGET_PREFERENCE = "conversationTokenBudget";
+    private static final String CONVERSATION_MAX_CHARS_PREFERENCE = "conversationMaxChars";
+    private static final String PROMPT_CACHING_PREFERENCE = "promptCaching";
 
     private final List<String> DEFAULT_ACCEPTED_EXTENSIONS = Arrays.asList(
             "java", "php", "jsf", "kt", "groovy", "scala", "xml", "json", "yaml", "yml",
@@ -171,12 +184,9 @@ public class PreferencesManager {
             "Jenkinsfile"
     );
     private static final String PROMPT_RESOURCE_PATH = "/templates/prompts/";
-    private List<String> acceptedExtensions = Collections.EMPTY_LIST;
-    private List<String> excludeDir = Collections.EMPTY_LIST;
-    private Map<String, String> userPrompts = new LinkedHashMap<>();
     private final Map<String, String> systemPrompts = new LinkedHashMap<>();
-    private Map<String, String> headerKeyValueMap = new HashMap<>();
-    private TokenGranularity tokenGranularity;
+
+    private volatile Snapshot snapshot;
 
     private PreferencesManager() {
         final Path configPath = FileUtil.getConfigPath();
@@ -199,6 +209,164 @@ public class PreferencesManager {
         return instance;
     }
 
+    /**
+     * @return the revision of the underlying preferences, changed on every save
+     */
+    public long getRevision() {
+        return preferences.getRevision();
+    }
+
+    /**
+     * Returns the snapshot of the current settings, rebuilding it if the
+     * preferences changed since it was taken.
+     */
+    private Snapshot snapshot() {
+        final long revision = preferences.getRevision();
+        Snapshot current = snapshot;
+        if (current == null || current.revision != revision) {
+            snapshot = current = new Snapshot(revision);
+        }
+        return current;
+    }
+
+    private AIClassContext readClassContext(String key, AIClassContext def) {
+        String classContext = preferences.get(key, null);
+        if (classContext != null) {
+            try {
+                return AIClassContext.valueOf(classContext);
+            } catch (IllegalArgumentException iae) {
+                // .. skip
+            }
+        }
+        return def;
+    }
+
+    private GenAIProvider readProvider() {
+        String providerName = preferences.get(PROVIDER_PREFERENCE, null);
+        if (providerName != null) {
+            try {
+                return GenAIProvider.valueOf(providerName);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown provider: " + providerName + ". Falling back to default.");
+            }
+        }
+        return GenAIProvider.OPEN_AI;
+    }
+
+    private Map<String, String> readPrompts() {
+        Map<String, String> prompts = new LinkedHashMap<>();
+        JSONObject prefPrompts = preferences.getChild("prompts");
+        for (String key : prefPrompts.keySet()) {
+            prompts.put(key, URLDecoder.decode(prefPrompts.getString(key), StandardCharsets.UTF_8));
+        }
+        for (Map.Entry<String, String> entry : getSystemPrompts().entrySet()) {
+            String key = entry.getKey();
+            if (!prompts.containsKey(key) || prompts.get(key).isBlank()) {
+                prompts.put(key, entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(prompts);
+    }
+
+    private Map<String, String> readCustomHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        JSONObject prefHeaders = preferences.getChild("customHeaders");
+        for (String key : prefHeaders.keySet()) {
+            headers.put(key, prefHeaders.getString(key));
+        }
+        return Collections.unmodifiableMap(headers);
+    }
+
+    private TokenGranularity readTokenGranularity() {
+        try {
+            return TokenGranularity.valueOf(preferences.get(TOKEN_GRANULARITY_KEY, TokenGranularity.DAY.name()));
+        } catch (IllegalArgumentException e) {
+            return TokenGranularity.DAY;
+        }
+    }
+
+    /**
+     * Immutable copy of the settings read on hot paths (code completion,
+     * hints, file context collection). It is published through a volatile
+     * reference and rebuilt only when the preferences change, so that those
+     * paths read plain final fields with no locking and no allocation.
+     */
+    private final class Snapshot {
+
+        final long revision;
+
+        final boolean aiAssistantActivated;
+        final boolean hintsEnabled;
+        final boolean smartCodeEnabled;
+        final boolean inlineHintEnabled;
+        final boolean inlinePromptHintEnabled;
+        final boolean inlineHintStreaming;
+        final boolean inlineHintSpeculation;
+        final boolean completionAllQueryType;
+        final boolean descriptionEnabled;
+        final boolean excludeJavadocEnabled;
+        final boolean streamEnabled;
+        final int inlineHintDebounce;
+        final int inlineHintSpeculationBudget;
+        final int suggestionCacheSize;
+        final int suggestionCacheTtl;
+        final int suggestionCacheMaxChars;
+        final int completionContextTokens;
+        final int completionContextLines;
+        final AIClassContext classContextInlineHint;
+        final AIClassContext classContext;
+        final AIClassContext varContext;
+        final GenAIProvider provider;
+        final String model;
+        final String chatModel;
+        final Double temperature;
+        final Double topP;
+        final Integer timeout;
+        final TokenGranularity tokenGranularity;
+        final List<String> fileExtensionsToInclude;
+        final Set<String> fileExtensionSetToInclude;
+        final List<String> excludeDirs;
+        final Map<String, String> customHeaders;
+        final Map<String, String> prompts;
+
+        Snapshot(long revision) {
+            this.revision = revision;
+            aiAssistantActivated = preferences.getBoolean("aiAssistantActivated", true);
+            hintsEnabled = preferences.getBoolean("enableHints", true);
+            smartCodeEnabled = preferences.getBoolean("enableSmartCode", true);
+            inlineHintEnabled = preferences.getBoolean("enableInlineHint", false);
+            inlinePromptHintEnabled = preferences.getBoolean("enableInlinePromptHint", false);
+            inlineHintStreaming = preferences.getBoolean(INLINE_HINT_STREAMING_PREFERENCE, true);
+            inlineHintSpeculation = preferences.getBoolean(INLINE_HINT_SPECULATION_PREFERENCE, false);
+            completionAllQueryType = preferences.getBoolean("enableCompletionAllQueryType", true);
+            descriptionEnabled = preferences.getBoolean("showDecription", true);
+            excludeJavadocEnabled = preferences.getBoolean("excludeJavadoc", true);
+            streamEnabled = preferences.getBoolean(STREAM_PREFERENCE, true);
+            inlineHintDebounce = preferences.getInt(INLINE_HINT_DEBOUNCE_PREFERENCE, 250);
+            inlineHintSpeculationBudget = preferences.getInt(INLINE_HINT_SPECULATION_BUDGET_PREFERENCE, 6);
+            suggestionCacheSize = preferences.getInt(SUGGESTION_CACHE_SIZE_PREFERENCE, 128);
+            suggestionCacheTtl = preferences.getInt(SUGGESTION_CACHE_TTL_PREFERENCE, 300);
+            suggestionCacheMaxChars = preferences.getInt(SUGGESTION_CACHE_MAX_CHARS_PREFERENCE, 1_000_000);
+            completionContextTokens = preferences.getInt(COMPLETION_CONTEXT_TOKENS_PREFERENCE, 4000);
+            completionContextLines = preferences.getInt(COMPLETION_CONTEXT_LINES_PREFERENCE, 40);
+            classContextInlineHint = readClassContext("classContextInlineHint", AIClassContext.REFERENCED_CLASSES);
+            classContext = readClassContext("classContext", AIClassContext.REFERENCED_CLASSES);
+            varContext = readClassContext("varContext", AIClassContext.CURRENT_CLASS);
+            provider = readProvider();
+            model = preferences.get(MODEL_PREFERENCE, DEFAULT_MODEL);
+            chatModel = preferences.get(CHAT_MODEL_PREFERENCE, model);
+            temperature = preferences.getDouble(TEMPERATURE_PREFERENCE, Double.MIN_VALUE);
+            topP = preferences.getDouble(TOP_P_PREFERENCE, Double.MIN_VALUE);
+            timeout = preferences.getInt(TIMEOUT_PREFERENCE, Integer.MIN_VALUE);
+            tokenGranularity = readTokenGranularity();
+            fileExtensionsToInclude = List.copyOf(preferences.getChildList("fileExtensionToInclude", DEFAULT_ACCEPTED_EXTENSIONS));
+            fileExtensionSetToInclude = Set.copyOf(fileExtensionsToInclude);
+            excludeDirs = List.copyOf(preferences.getChildList("excludeDirs", EXCLUDE_DIR_DEFAULT));
+            customHeaders = readCustomHeaders();
+            prompts = readPrompts();
+        }
+    }
+
     public void exportPreferences(String filePath) throws IOException {
             preferences.exportPreferences(filePath);
     }
@@ -292,7 +460,7 @@ public class PreferencesManager {
     }
 
     public boolean isAiAssistantActivated() {
-        return preferences.getBoolean("aiAssistantActivated", true);
+        return snapshot().aiAssistantActivated;
     }
 
     public void setAiAssistantActivated(boolean activated) {
@@ -300,15 +468,7 @@ public class PreferencesManager {
     }
 
     public AIClassContext getClassContextInlineHint() {
-        String classContext = preferences.get("classContextInlineHint", null);
-        if (classContext != null) {
-            try {
-                return AIClassContext.valueOf(classContext);
-            } catch (IllegalArgumentException iae) {
-                // .. skip
-            }
-        }
-        return AIClassContext.REFERENCED_CLASSES;
+        return snapshot().classContextInlineHint;
     }
 
     public void setClassContextInlineHint(AIClassContext context) {
@@ -316,15 +476,7 @@ public class PreferencesManager {
     }
 
     public AIClassContext getClassContext() {
-        String classContext = preferences.get("classContext", null);
-        if (classContext != null) {
-            try {
-                return AIClassContext.valueOf(classContext);
-            } catch (IllegalArgumentException iae) {
-                // .. skip
-            }
-        }
-        return AIClassContext.REFERENCED_CLASSES;
+        return snapshot().classContext;
     }
 
     public void setClassContext(AIClassContext context) {
@@ -332,15 +484,7 @@ public class PreferencesManager {
     }
 
     public AIClassContext getVarContext() {
-        String classContext = preferences.get("varContext", null);
-        if (classContext != null) {
-            try {
-                return AIClassContext.valueOf(classContext);
-            } catch (IllegalArgumentException iae) {
-                // .. skip
-            }
-        }
-        return AIClassContext.CURRENT_CLASS;
+        return snapshot().varContext;
     }
 
     public void setVarContext(AIClassContext context) {
@@ -348,7 +492,7 @@ public class PreferencesManager {
     }
 
     public String getModel() {
-        return preferences.get(MODEL_PREFERENCE, DEFAULT_MODEL);
+        return snapshot().model;
     }
 
     public void setModel(String model) {
@@ -442,7 +586,7 @@ public class PreferencesManager {
     }
 
     public String getChatModel() {
-        return preferences.get(CHAT_MODEL_PREFERENCE, getModel());
+        return snapshot().chatModel;
     }
 
     public void setChatModel(String model) {
@@ -456,19 +600,11 @@ public class PreferencesManager {
     }
 
     public GenAIProvider getProvider() {
-        String providerName = preferences.get(PROVIDER_PREFERENCE, null);
-        if (providerName != null) {
-            try {
-                return GenAIProvider.valueOf(providerName);
-            } catch (IllegalArgumentException e) {
-                System.err.println("Unknown provider: " + providerName + ". Falling back to default.");
-            }
-        }
-        return GenAIProvider.OPEN_AI;
+        return snapshot().provider;
     }
 
     public boolean isInlineHintEnabled() {
-        return preferences.getBoolean("enableInlineHint", false);
+        return snapshot().inlineHintEnabled;
     }
 
     public void setInlineHintEnabled(boolean enabled) {
@@ -477,7 +613,7 @@ public class PreferencesManager {
     }
 
     public boolean isInlinePromptHintEnabled() {
-        return preferences.getBoolean("enableInlinePromptHint", false);
+        return snapshot().inlinePromptHintEnabled;
     }
 
     public void setInlinePromptHintEnabled(boolean enabled) {
@@ -485,6 +621,113 @@ public class PreferencesManager {
         setInlineHintsEnabled(isInlineHintEnabled() || isInlinePromptHintEnabled());
     }
 
+    /**
+     * @return the time in milliseconds the typing must pause before an inline
+     * hint is requested
+     */
+    public int getInlineHintDebounce() {
+        return snapshot().inlineHintDebounce;
+    }
+
+    public void setInlineHintDebounce(int millis) {
+        preferences.putInt(INLINE_HINT_DEBOUNCE_PREFERENCE, millis);
+    }
+
+    /**
+     * @return the maximum number of cached completion suggestions (0 disables
+     * the cache)
+     */
+    public int getSuggestionCacheSize() {
+        return snapshot().suggestionCacheSize;
+    }
+
+    public void setSuggestionCacheSize(int size) {
+        preferences.putInt(SUGGESTION_CACHE_SIZE_PREFERENCE, size);
+    }
+
+    /**
+     * @return the time to live of cached completion suggestions in seconds
+     */
+    public int getSuggestionCacheTtl() {
+        return snapshot().suggestionCacheTtl;
+    }
+
+    public void setSuggestionCacheTtl(int seconds) {
+        preferences.putInt(SUGGESTION_CACHE_TTL_PREFERENCE, seconds);
+    }
+
+    /**
+     * @return the maximum number of characters retained by the cached
+     * completion suggestions
+     */
+    public int getSuggestionCacheMaxChars() {
+        return snapshot().suggestionCacheMaxChars;
+    }
+
+    public void setSuggestionCacheMaxChars(int maxChars) {
+        preferences.putInt(SUGGESTION_CACHE_MAX_CHARS_PREFERENCE, maxChars);
+    }
+
+    /**
+     * @return the maximum number of tokens of source code sent as context of
+     * a completion request (0 sends the whole document)
+     */
+    public int getCompletionContextTokens() {
+        return snapshot().completionContextTokens;
+    }
+
+    public void setCompletionContextTokens(int tokens) {
+        preferences.putInt(COMPLETION_CONTEXT_TOKENS_PREFERENCE, tokens);
+    }
+
+    /**
+     * @return the number of lines before and after the caret always kept in
+     * the context of a completion request
+     */
+    public int getCompletionContextLines() {
+        return snapshot().completionContextLines;
+    }
+
+    public void setCompletionContextLines(int lines) {
+        preferences.putInt(COMPLETION_CONTEXT_LINES_PREFERENCE, lines);
+    }
+
+    /**
+     * @return true if inline hints are painted while the suggestion is
+     * streamed by the model
+     */
+    public boolean isInlineHintStreamingEnabled() {
+        return snapshot().inlineHintStreaming;
+    }
+
+    public void setInlineHintStreamingEnabled(boolean enabled) {
+        preferences.putBoolean(INLINE_HINT_STREAMING_PREFERENCE, enabled);
+    }
+
+    /**
+     * @return true if the next line suggestion is requested in the background
+     * as soon as the caret line looks complete, before Enter is pressed
+     */
+    public boolean isInlineHintSpeculationEnabled() {
+        return snapshot().inlineHintSpeculation;
+    }
+
+    public void setInlineHintSpeculationEnabled(boolean enabled) {
+        preferences.putBoolean(INLINE_HINT_SPECULATION_PREFERENCE, enabled);
+    }
+
+    /**
+     * @return the maximum number of speculative inline hint requests per
+     * minute that may go unused
+     */
+    public int getInlineHintSpeculationBudget() {
+        return snapshot().inlineHintSpeculationBudget;
+    }
+
+    public void setInlineHintSpeculationBudget(int requests) {
+        preferences.putInt(INLINE_HINT_SPECULATION_BUDGET_PREFERENCE, requests);
+    }
+
     private static final String JAVA_INLINE_HINTS_KEY = "enable.inline.hints";
 
     public static boolean isInlineHintsEnabled() {
@@ -498,7 +741,7 @@ public class PreferencesManager {
     }
 
     public boolean isHintsEnabled() {
-        return preferences.getBoolean("enableHints", true);
+        return snapshot().hintsEnabled;
     }
 
     public void setHintsEnabled(boolean enabled) {
@@ -506,7 +749,7 @@ public class PreferencesManager {
     }
 
     public boolean isSmartCodeEnabled() {
-        return preferences.getBoolean("enableSmartCode", true);
+        return snapshot().smartCodeEnabled;
     }
 
     public void setSmartCodeEnabled(boolean enabled) {
@@ -514,7 +757,7 @@ public class PreferencesManager {
     }
 
     public boolean isCompletionAllQueryType() {
-        return preferences.getBoolean("enableCompletionAllQueryType", true);
+        return snapshot().completionAllQueryType;
     }
 
     public void setCompletionAllQueryType(boolean enabled) {
@@ -522,7 +765,7 @@ public class PreferencesManager {
     }
 
     public boolean isDescriptionEnabled() {
-        return preferences.getBoolean("showDecription", true);
+        return snapshot().descriptionEnabled;
     }
 
     public void setDescriptionEnabled(boolean enabled) {
@@ -530,7 +773,7 @@ public class PreferencesManager {
     }
 
     public boolean isExcludeJavadocEnabled() {
-        return preferences.getBoolean("excludeJavadoc", true);
+        return snapshot().excludeJavadocEnabled;
     }
 
     public void setExcludeJavadocEnabled(boolean enabled) {
@@ -564,57 +807,63 @@ public class PreferencesManager {
         preferences.putInt("conversationContext", contextValue);
     }
 
+    /**
+     * @return the maximum number of tokens of conversation history sent with
+     * a chat request (0 for no limit)
+     */
+    public int getConversationTokenBudget() {
+        return preferences.getInt(CONVERSATION_TOKEN_BUDGET_PREFERENCE, 8000);
+    }
+
+    public void setConversationTokenBudget(int tokens) {
+        preferences.putInt(CONVERSATION_TOKEN_BUDGET_PREFERENCE, tokens);
+    }
+
+    /**
+     * @return the maximum number of characters of history retained by a chat
+     * before its oldest replies are compacted (0 for no limit)
+     */
+    public int getConversationMaxChars() {
+        return preferences.getInt(CONVERSATION_MAX_CHARS_PREFERENCE, 1_000_000);
+    }
+
+    public void setConversationMaxChars(int maxChars) {
+        preferences.putInt(CONVERSATION_MAX_CHARS_PREFERENCE, maxChars);
+    }
+
     public void setFileExtensionToInclude(String exts) {
         if (exts != null) {
             String[] fileExtensionToInclude = exts.split("\\s*,\\s*");
-            JSONArray array = preferences.getChildArray("fileExtensionToInclude", DEFAULT_ACCEPTED_EXTENSIONS);
-            array.clear();
-            for (String ext : fileExtensionToInclude) {
-                array.put(ext);
-            }
-            acceptedExtensions = Arrays.asList(fileExtensionToInclude);
+            preferences.setChildList("fileExtensionToInclude", List.of(fileExtensionToInclude));
         }
     }
 
     public List<String> getFileExtensionListToInclude() {
-        if (acceptedExtensions.isEmpty()) {
-            acceptedExtensions = preferences.getChildList("fileExtensionToInclude", DEFAULT_ACCEPTED_EXTENSIONS);
-        }
-        return acceptedExtensions;
+        return snapshot().fileExtensionsToInclude;
+    }
+
+    /**
+     * @return the extensions of the files included in the context, for fast
+     * lookups
+     */
+    public Set<String> getFileExtensionSetToInclude() {
+        return snapshot().fileExtensionSetToInclude;
     }
 
     public void setExcludeDirs(String dirs) {
         if (dirs != null) {
             String[] excludeDirs = dirs.split("\\s*,\\s*");
-            JSONArray array = preferences.getChildArray("excludeDirs", EXCLUDE_DIR_DEFAULT);
-            array.clear();
-            for (String dir : excludeDirs) {
-                array.put(dir);
-            }
-            excludeDir = Arrays.asList(excludeDirs);
+            preferences.setChildList("excludeDirs", List.of(excludeDirs));
         }
     }
 
     public List<String> getExcludeDirs() {
-        if (excludeDir.isEmpty()) {
-            excludeDir = preferences.getChildList("excludeDirs", EXCLUDE_DIR_DEFAULT);
-        }
-        return excludeDir;
+        return snapshot().excludeDirs;
     }
 
 
-    public synchronized Map<String, String> getCustomHeaders() {
-        String nodeKey = "customHeaders";
-        if (headerKeyValueMap.isEmpty()) {
-            JSONObject prefPrompts = preferences.getChild(nodeKey);
-            if (!prefPrompts.isEmpty()) {
-                for (String key : prefPrompts.keySet()) {
-                    String value = prefPrompts.getString(key);
-                    headerKeyValueMap.put(key, value);
-                }
-            }
-        }
-        return headerKeyValueMap;
+    public Map<String, String> getCustomHeaders() {
+        return snapshot().customHeaders;
     }
 
     public void setCustomHeaders(Map<String, String> map) {
@@ -623,8 +872,7 @@ public class PreferencesManager {
         for (Map.Entry<String, String> entry : map.entrySet()) {
             prefPrompts.put(entry.getKey(), entry.getValue());
         }
-        preferences.save();
-        headerKeyValueMap = map;
+        preferences.setChild(nodeKey, prefPrompts);
     }
 
 
@@ -632,7 +880,7 @@ public class PreferencesManager {
      * Loads all default prompts from resource files in /prompts/
      * Make sure you have these files in src/main/resources/prompts/
      */
-    public Map<String, String> getSystemPrompts() {
+    public synchronized Map<String, String> getSystemPrompts() {
         if(!systemPrompts.isEmpty()) {
             return systemPrompts;
         }
@@ -664,36 +912,10 @@ public class PreferencesManager {
 
     /**
      * Returns the prompts map, merged from user preferences and restored
-     * defaults if deleted. Saves merged prompts back to preferences if
-     * restoration happened.
+     * defaults if deleted.
      */
-    public synchronized Map<String, String> getPrompts() {
-        String nodeKey = "prompts";
-        if (userPrompts.isEmpty()) {
-            // Load existing prompts from the preferences
-            JSONObject prefPrompts = preferences.getChild(nodeKey);
-            if (!prefPrompts.isEmpty()) {
-                for (String key : prefPrompts.keySet()) {
-                    String value = prefPrompts.getString(key);
-                    userPrompts.put(key, URLDecoder.decode(value, StandardCharsets.UTF_8));
-                }
-            }
-        }
-
-        // Check if system prompts need to be added
-        boolean changed = false;
-        for (Map.Entry<String, String> entry : getSystemPrompts().entrySet()) {
-            String key = entry.getKey();
-            if (!userPrompts.containsKey(key) || userPrompts.get(key).isBlank()) {
-                preferences.putChild(nodeKey, key, entry.getValue());
-                changed = true;
-            }
-        }
-
-        if(changed) {
-            preferences.save();
-        }
-        return userPrompts;
+    public Map<String, String> getPrompts() {
+        return snapshot().prompts;
     }
 
     public void setPrompts(Map<String, String> map) {
@@ -702,8 +924,7 @@ public class PreferencesManager {
         for (Map.Entry<String, String> entry : map.entrySet()) {
             prefPrompts.put(entry.getKey(), URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
         }
-        preferences.save();
-        userPrompts = map;
+        preferences.setChild(nodeKey, prefPrompts);
     }
 
     //
@@ -843,7 +1064,7 @@ public class PreferencesManager {
     }
 
     public boolean isStreamEnabled() {
-        return preferences.getBoolean(STREAM_PREFERENCE, true); // Default value
+        return snapshot().streamEnabled;
     }
 
     public void setStreamEnabled(boolean enabled) {
@@ -851,7 +1072,7 @@ public class PreferencesManager {
     }
 
     public Double getTemperature() {
-        return preferences.getDouble(TEMPERATURE_PREFERENCE, Double.MIN_VALUE);
+        return snapshot().temperature;
     }
 
     public void setTemperature(Double temperature) {
@@ -859,7 +1080,7 @@ public class PreferencesManager {
     }
 
     public Double getTopP() {
-        return preferences.getDouble(TOP_P_PREFERENCE, Double.MIN_VALUE);
+        return snapshot().topP;
     }
 
     public void setTopP(Double topP) {
@@ -867,7 +1088,7 @@ public class PreferencesManager {
     }
 
     public Integer getTimeout() {
-        return preferences.getInt(TIMEOUT_PREFERENCE, Integer.MIN_VALUE);
+        return snapshot().timeout;
     }
 
     public void setTimeout(Integer timeout) {
@@ -970,6 +1191,18 @@ public class PreferencesManager {
         preferences.putBoolean(ALLOW_CODE_EXECUTION_PREFERENCE, allowCodeExecution);
     }
 
+    /**
+     * @return true if the stable prefix of the prompts is marked as cacheable
+     * for the providers requiring explicit cache breakpoints
+     */
+    public boolean isPromptCachingEnabled() {
+        return preferences.getBoolean(PROMPT_CACHING_PREFERENCE, true);
+    }
+
+    public void setPromptCachingEnabled(boolean promptCaching) {
+        preferences.putBoolean(PROMPT_CACHING_PREFERENCE, promptCaching);
+    }
+
     public boolean isIncludeCodeExecutionOutput() {
         return preferences.getBoolean(INCLUDE_CODE_EXECUTION_OUTPUT_PREFERENCE, false);
     }
@@ -987,15 +1220,10 @@ public class PreferencesManager {
     }
 
     public TokenGranularity getTokenGranularity() {
-        if (tokenGranularity != null) {
-            return tokenGranularity;
-        }
-        tokenGranularity = TokenGranularity.valueOf(preferences.get(TOKEN_GRANULARITY_KEY, TokenGranularity.DAY.name()));
-        return tokenGranularity;
+        return snapshot().tokenGranularity;
     }
 
     public void setTokenGranularity(TokenGranularity granularity) {
-        this.tokenGranularity = granularity;
         preferences.put(TOKEN_GRANULARITY_KEY, granularity.name());
     }
 
@@ -15,7 +15,12 @@
  */
 package io.github.jeddict.ai.settings;
 
+import io.github.jeddict.ai.response.TokenUsageLog;
 import io.github.jeddict.ai.util.FileUtil;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
 import org.json.JSONObject;
 
 /**
@@ -27,11 +32,13 @@ public class ReportManager {
     public static final String JEDDICT_STATS = "jeddict-stats.json";
     public static final String DAILY_INPUT_TOKEN_STATS_KEY = "dailyInputTokenStats";
     public static final String DAILY_OUTPUT_TOKEN_STATS_KEY = "dailyOutputTokenStats";
+    public static final String JEDDICT_USAGE = "jeddict-usage.bin";
 
     private final FilePreferences stats;
     private static ReportManager instance;
     private JSONObject dailyInputTokenStats;
     private JSONObject dailyOutputTokenStats;
+    private TokenUsageLog tokenUsageLog;
 
     private ReportManager() {
         stats = new FilePreferences(FileUtil.getConfigPath().resolve(JEDDICT_STATS));
@@ -70,4 +77,53 @@ public class ReportManager {
     public void setDailyOutputTokenStats(JSONObject usage) {
         stats.setChild(DAILY_OUTPUT_TOKEN_STATS_KEY, usage);
     }
+
+    /**
+     * Returns the log of the token usage of each request. The first time the
+     * log is created, the usage of the previous versions kept in the daily
+     * statistics is imported at the current granularity.
+     *
+     * @return the token usage log
+     */
+    public synchronized TokenUsageLog getTokenUsageLog() {
+        if (tokenUsageLog == null) {
+            final Path logPath = FileUtil.getConfigPath().resolve(JEDDICT_USAGE);
+            final boolean exists = Files.exists(logPath);
+            tokenUsageLog = new TokenUsageLog(logPath);
+            if (!exists) {
+                importDailyTokenStats(tokenUsageLog);
+            }
+        }
+        return tokenUsageLog;
+    }
+
+    private void importDailyTokenStats(TokenUsageLog log) {
+        final JSONObject input = getDailyInputTokenStats();
+        final JSONObject output = getDailyOutputTokenStats();
+        final TreeSet<Long> buckets = new TreeSet<>();
+        for (String key : input.keySet()) {
+            parseBucket(key, buckets);
+        }
+        for (String key : output.keySet()) {
+            parseBucket(key, buckets);
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+        final long interval = PreferencesManager.getInstance().getTokenGranularity().intervalMillis;
+        for (long bucket : buckets) {
+            final String key = String.valueOf(bucket);
+            log.append(bucket * interval, TokenUsageLog.UNKNOWN_MODEL, input.optInt(key, 0), 0, output.optInt(key, 0), 0);
+        }
+        stats.remove(DAILY_INPUT_TOKEN_STATS_KEY);
+        stats.remove(DAILY_OUTPUT_TOKEN_STATS_KEY);
+        dailyInputTokenStats = dailyOutputTokenStats = null;
+    }
+
+    private static void parseBucket(String key, Set<Long> buckets) {
+        try {
+            buckets.add(Long.parseLong(key));
+        } catch (NumberFormatException ignored) {
+        }
+    }
 }
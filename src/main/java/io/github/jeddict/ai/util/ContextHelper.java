@@ -15,6 +15,9 @@
  */
 package io.github.jeddict.ai.util;
 
+import io.github.jeddict.ai.metrics.RequestMetrics;
+import io.github.jeddict.ai.metrics.RequestMetrics.Metric;
+import io.github.jeddict.ai.metrics.RequestMetrics.Series;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import static io.github.jeddict.ai.util.FileUtil.getLatestContent;
 import static io.github.jeddict.ai.util.SourceUtil.removeJavadoc;
@@ -40,6 +43,13 @@ public class ContextHelper {
     private final static PreferencesManager pm = PreferencesManager.getInstance();
 
     public static String getProjectContext(Set<FileObject> projectContext, Project project, boolean agentEnabled) {
+        return RequestMetrics.getInstance().time(
+            Series.of(null, null, null, "projectContext"), Metric.CONTEXT,
+            () -> buildProjectContext(projectContext, project, agentEnabled)
+        );
+    }
+
+    private static String buildProjectContext(Set<FileObject> projectContext, Project project, boolean agentEnabled) {
         String projectDir = project.getProjectDirectory().getPath();
         Path projectPath = Paths.get(projectDir).toAbsolutePath().normalize();
 
@@ -83,6 +93,13 @@ public class ContextHelper {
         if (project == null) {
             return "";
         }
+        return RequestMetrics.getInstance().time(
+            Series.of(null, null, null, "filesContext"), Metric.CONTEXT,
+            () -> buildTextFilesContext(scope, project, agentEnabled)
+        );
+    }
+
+    private static String buildTextFilesContext(Set<FileObject> scope, Project project, boolean agentEnabled) {
         String projectDir = project.getProjectDirectory().getPath();
         StringBuilder inputForAI = new StringBuilder();
 
@@ -155,7 +172,7 @@ public class ContextHelper {
             for (FileObject selectedFile : scope) {
                 if (selectedFile.isFolder()) {
                     collectNestedFiles(selectedFile, sourceFiles);
-                } else if (selectedFile.isData() && pm.getFileExtensionListToInclude().contains(selectedFile.getExt())) {
+                } else if (selectedFile.isData() && pm.getFileExtensionSetToInclude().contains(selectedFile.getExt())) {
                     sourceFiles.add(selectedFile);
                 }
             }
@@ -165,12 +182,12 @@ public class ContextHelper {
                     .filter(FileObject::isFolder)
                     .flatMap(packageFolder -> Arrays.stream(packageFolder.getChildren())
                     .filter(FileObject::isData)
-                    .filter(file -> pm.getFileExtensionListToInclude().contains(file.getExt())))
+                    .filter(file -> pm.getFileExtensionSetToInclude().contains(file.getExt())))
                     .collect(Collectors.toSet()));
 
             sourceFiles.addAll(scope.stream()
                     .filter(FileObject::isData)
-                    .filter(file -> pm.getFileExtensionListToInclude().contains(file.getExt()))
+                    .filter(file -> pm.getFileExtensionSetToInclude().contains(file.getExt()))
                     .collect(Collectors.toSet()));
         }
 
@@ -181,7 +198,7 @@ public class ContextHelper {
         // Collect immediate data files
         Arrays.stream(folder.getChildren())
                 .filter(FileObject::isData)
-                .filter(file -> pm.getFileExtensionListToInclude().contains(file.getExt()))
+                .filter(file -> pm.getFileExtensionSetToInclude().contains(file.getExt()))
                 .forEach(sourceFiles::add);
 
         // Recursively collect from subfolders
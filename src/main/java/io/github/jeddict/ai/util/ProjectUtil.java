@@ -50,7 +50,7 @@ public class ProjectUtil {
     public static Set<FileObject> getSourceFiles(Project project) {
         Set<FileObject> sourceFiles = new HashSet<>();
         collectFiles(project.getProjectDirectory(), project.getProjectDirectory(), sourceFiles,
-                new HashSet<>(PreferencesManager.getInstance().getFileExtensionListToInclude()),
+                PreferencesManager.getInstance().getFileExtensionSetToInclude(),
                 new HashSet<>(PreferencesManager.getInstance().getExcludeDirs()));
         return sourceFiles;
     }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Trees;
+import java.net.URI;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class CodeContextWindowTest {
+
+    private static final String P = "${SUGGESTION}";
+
+    private static final String CODE = """
+        package test;
+
+        import java.util.List;
+
+        public class Hello {
+            private int count;
+
+            public void first() {
+                System.out.println("this is the body of the first method");
+                System.out.println("this is the body of the first method");
+                System.out.println("this is the body of the first method");
+                System.out.println("this is the body of the first method");
+                System.out.println("this is the body of the first method");
+                System.out.println("this is the body of the first method");
+            }
+
+            public void current() {
+                int a = 1;
+                // caret
+            }
+
+            public void last() {
+                System.out.println("this is the body of the last method");
+                System.out.println("this is the body of the last method");
+                System.out.println("this is the body of the last method");
+                System.out.println("this is the body of the last method");
+                System.out.println("this is the body of the last method");
+                System.out.println("this is the body of the last method");
+            }
+        }
+        """;
+
+    @Test
+    public void whole_document_when_within_budget() {
+        final int caret = CODE.indexOf("// caret");
+
+        then(CodeContextWindow.build(CODE, caret, P, null, null, 10_000, 2))
+            .isEqualTo(CODE.substring(0, caret) + P + CODE.substring(caret));
+        then(CodeContextWindow.build(CODE, caret, P, null, null, 0, 2))
+            .isEqualTo(CODE.substring(0, caret) + P + CODE.substring(caret));
+    }
+
+    @Test
+    public void far_method_bodies_are_elided() throws Exception {
+        final int caret = CODE.indexOf("// caret");
+        final JavacTask task = task(CODE);
+        final CompilationUnitTree unit = task.parse().iterator().next();
+
+        final String context = CodeContextWindow.build(
+            CODE, caret, P, unit, Trees.instance(task).getSourcePositions(), 150, 1
+        );
+
+        then(context)
+            .contains("package test;", "import java.util.List;", "private int count;")
+            .contains("public void first() { ... }", "public void last() { ... }")
+            .contains("int a = 1;\n        " + P + "// caret")
+            .doesNotContain("this is the body");
+    }
+
+    @Test
+    public void lines_around_the_caret_within_budget() {
+        final int caret = CODE.indexOf("// caret");
+
+        final String context = CodeContextWindow.build(CODE, caret, P, null, null, 40, 1);
+
+        then(context).isEqualTo("        int a = 1;\n        " + P + "// caret\n    }\n");
+
+        then(CodeContextWindow.build(CODE, caret, P, null, null, 1, 5))
+            .isEqualTo("        " + P + "// caret\n");
+    }
+
+    @Test
+    public void special_tokens_are_counted_as_text() {
+        final String code = CODE.replace("int a = 1;", "String end = \"<|endoftext|>\";");
+        final int caret = code.indexOf("// caret");
+
+        then(CodeContextWindow.build(code, caret, P, null, null, 10_000, 2))
+            .isEqualTo(code.substring(0, caret) + P + code.substring(caret));
+        then(CodeContextWindow.build(code, caret, P, null, null, 40, 1))
+            .startsWith("        String end = \"<|endoftext|>\";\n");
+    }
+
+    private JavacTask task(final String source) {
+        final JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Hello.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        return (JavacTask) ToolProvider.getSystemJavaCompiler().getTask(null, null, null, null, null, List.of(file));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import io.github.jeddict.ai.lang.Snippet;
+import java.util.List;
+import java.util.Set;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class SnippetRankerTest {
+
+    private final JavaParser parser = new JavaParser(new ParserConfiguration()
+            .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21));
+
+    @Test
+    public void code_fragments_parse_in_context() {
+        then(SnippetRanker.parses(parser, "return name;", "")).isTrue();
+        then(SnippetRanker.parses(parser, "public void greet() {\n}", "")).isTrue();
+        then(SnippetRanker.parses(parser, "@Entity\n@Table(name = \"users\")", "")).isTrue();
+        then(SnippetRanker.parses(parser, "import java.util.List;", "")).isTrue();
+        then(SnippetRanker.parses(parser, "for (int i = 0; i < n; i++) {", "")).isTrue();
+        then(SnippetRanker.parses(parser, "} catch (Exception e) {", "")).isTrue();
+        then(SnippetRanker.parses(parser, "case 1 -> x;", "")).isTrue();
+        then(SnippetRanker.parses(parser, "x > 0) {", "if (")).isTrue();
+        then(SnippetRanker.parses(parser, "getName();", "user.")).isTrue();
+
+        then(SnippetRanker.parses(parser, "return x +;", "")).isFalse();
+        then(SnippetRanker.parses(parser, "Here is the code", "")).isFalse();
+    }
+
+    @Test
+    public void brackets_are_balanced_outside_strings_and_comments() {
+        then(SnippetRanker.balance("a(b)")).isEqualTo("a(b)");
+        then(SnippetRanker.balance("if (x) {")).isEqualTo("if (x) {\n}");
+        then(SnippetRanker.balance("} else {")).isEqualTo("{} else {\n}");
+        then(SnippetRanker.balance("a(\"(\" // {")).isEqualTo("a(\"(\" // {\n)");
+    }
+
+    @Test
+    public void imports_resolve_to_types_on_the_classpath() {
+        final Set<String> resources = Set.of("java/util/Map.class", "java/util", "com/acme/User.java");
+
+        then(SnippetRanker.resolves("java.util.Map", resources::contains)).isTrue();
+        then(SnippetRanker.resolves("import java.util.Map.Entry;", resources::contains)).isTrue();
+        then(SnippetRanker.resolves("import static java.util.Map.entry;", resources::contains)).isTrue();
+        then(SnippetRanker.resolves("java.util.*", resources::contains)).isTrue();
+        then(SnippetRanker.resolves("com.acme.User", resources::contains)).isTrue();
+        then(SnippetRanker.resolves("com.acme.Order", resources::contains)).isFalse();
+
+        then(SnippetRanker.importScore(List.of("java.util.Map", "com.acme.Order"), resources::contains)).isEqualTo(0.5);
+        then(SnippetRanker.importScore(List.of("com.acme.Order"), null)).isEqualTo(1);
+    }
+
+    @Test
+    public void invalid_candidates_are_dropped_and_the_others_ranked() {
+        final SnippetRanker ranker = new SnippetRanker();
+        final Snippet log = new Snippet("LOG.info(name);");
+        final Snippet invalid = new Snippet("return name +;");
+        final Snippet print = new Snippet("System.out.println(name);");
+        final Snippet unresolved = new Snippet("Order order = new Order();", List.of("com.acme.Order"));
+
+        then(ranker.rank(List.of(log, invalid, print), true, "", null)).containsExactly(log, print);
+        then(ranker.rank(List.of(log, invalid, print), false, "", null)).containsExactly(log, invalid, print);
+        then(ranker.rank(List.of(unresolved, log), true, "", resource -> false)).containsExactly(log, unresolved);
+        then(ranker.rank(List.of(log, print), true, "    Sys", null)).containsExactly(print, log);
+
+        ranker.accepted("System.out.println(1);");
+        then(ranker.rank(List.of(log, print), true, "", null)).containsExactly(print, log);
+        then(ranker.rank(null, true, "", null)).isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import io.github.jeddict.ai.lang.Snippet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.PlainDocument;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class SpeculativeHintPrefetcherTest {
+
+    private static final String CODE = """
+        class Hello {
+            void greet() {
+                String name = "world";
+            }
+        }
+        """;
+
+    private static final int STATEMENT_END = CODE.indexOf(';') + 1;
+    private static final int METHOD_START = CODE.indexOf("{", CODE.indexOf("greet")) + 1;
+
+    @Test
+    public void complete_lines_end_with_a_semicolon_or_a_brace() {
+        then(SpeculativeHintPrefetcher.isLineComplete(CODE, STATEMENT_END)).isTrue();
+        then(SpeculativeHintPrefetcher.isLineComplete(CODE, METHOD_START)).isTrue();
+        then(SpeculativeHintPrefetcher.isLineComplete(CODE, STATEMENT_END - 1)).isFalse();
+        then(SpeculativeHintPrefetcher.isLineComplete(CODE, CODE.indexOf("name"))).isFalse();
+        then(SpeculativeHintPrefetcher.isLineComplete("// done;", 8)).isFalse();
+        then(SpeculativeHintPrefetcher.isLineComplete("", 0)).isFalse();
+    }
+
+    @Test
+    public void enter_keeps_the_indentation() {
+        then(SpeculativeHintPrefetcher.enter(CODE, STATEMENT_END)).isEqualTo("\n        ");
+        then(SpeculativeHintPrefetcher.enter(CODE, METHOD_START)).isEqualTo("\n        ");
+        then(SpeculativeHintPrefetcher.enter("x;", 2)).isEqualTo("\n");
+    }
+
+    @Test
+    public void only_enter_on_the_speculated_text_matches() {
+        final String entered = CODE.substring(0, STATEMENT_END) + "\n        " + CODE.substring(STATEMENT_END);
+        final int caret = STATEMENT_END + 9;
+
+        then(SpeculativeHintPrefetcher.matches(CODE, STATEMENT_END, entered, caret)).isTrue();
+        then(SpeculativeHintPrefetcher.matches(CODE, STATEMENT_END, entered, caret - 4)).isTrue();
+        then(SpeculativeHintPrefetcher.matches(CODE, STATEMENT_END, CODE, STATEMENT_END)).isFalse();
+        then(SpeculativeHintPrefetcher.matches(CODE, STATEMENT_END, entered.replace("world", "there"), caret)).isFalse();
+        then(SpeculativeHintPrefetcher.matches(CODE, STATEMENT_END, entered.replace("}\n}", "} }"), caret)).isFalse();
+        then(SpeculativeHintPrefetcher.matches(CODE, STATEMENT_END, entered.replace(";\n", ";\n\n"), caret + 1)).isFalse();
+    }
+
+    @Test
+    public void speculation_is_taken_over_by_enter() throws Exception {
+        final PlainDocument doc = new PlainDocument();
+        doc.insertString(0, CODE, null);
+        final SpeculativeHintPrefetcher prefetcher = new SpeculativeHintPrefetcher();
+
+        then(prefetcher.speculate(doc, STATEMENT_END, 0, 1, (copy, offset, discarded) -> {
+            then(copy.getText(0, copy.getLength())).startsWith(CODE.substring(0, STATEMENT_END) + "\n        \n");
+            then(offset).isEqualTo(STATEMENT_END + 9);
+            return new Snippet("greet(name);");
+        })).isTrue();
+        awaitStarted(prefetcher, 1);
+
+        doc.insertString(STATEMENT_END, "\n        ", null);
+        final CompletableFuture<Snippet> speculated = prefetcher.take(doc, STATEMENT_END + 9);
+        then(speculated).isNotNull();
+        then(speculated.get(5, TimeUnit.SECONDS).getSnippet()).isEqualTo("greet(name);");
+        then(prefetcher.take(doc, STATEMENT_END + 9)).isNull();
+        then(prefetcher.getStats()).isEqualTo(new SpeculativeHintPrefetcher.Stats(1, 1, 0, 0));
+    }
+
+    @Test
+    public void wasted_speculations_are_capped_per_minute() throws Exception {
+        final PlainDocument doc = new PlainDocument();
+        doc.insertString(0, CODE, null);
+        final SpeculativeHintPrefetcher prefetcher = new SpeculativeHintPrefetcher();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        then(prefetcher.speculate(doc, STATEMENT_END, 0, 1, (copy, offset, discarded) -> {
+            release.await();
+            return null;
+        })).isTrue();
+        awaitStarted(prefetcher, 1);
+
+        then(prefetcher.speculate(doc, METHOD_START, 0, 1, (copy, offset, discarded) -> null)).isFalse();
+        then(prefetcher.getStats()).isEqualTo(new SpeculativeHintPrefetcher.Stats(1, 0, 1, 1));
+        release.countDown();
+    }
+
+    private static void awaitStarted(final SpeculativeHintPrefetcher prefetcher, final long started) throws InterruptedException {
+        for (int i = 0; i < 500 && prefetcher.getStats().started() < started; ++i) {
+            Thread.sleep(10);
+        }
+        then(prefetcher.getStats().started()).isEqualTo(started);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class StreamingSnippetParserTest {
+
+    private static final String RESPONSE = """
+        ```json
+        {"imports": ["java.util.List"], "snippet": "List<String> s = \\"a\\\\b\\";\\n\\u0041 end"}
+        ```
+        """;
+
+    private static final String SNIPPET = "List<String> s = \"a\\b\";\nA end";
+
+    @Test
+    public void snippet_grows_while_streaming() {
+        final StreamingSnippetParser parser = new StreamingSnippetParser();
+
+        then(parser.append("{\"imports\": [], \"sni")).isFalse();
+        then(parser.append("ppet\": \"int")).isTrue();
+        then(parser.getSnippet()).isEqualTo("int");
+        then(parser.append(" a = 1;")).isTrue();
+        then(parser.getSnippet()).isEqualTo("int a = 1;");
+        then(parser.isComplete()).isFalse();
+        then(parser.append("\"}")).isFalse();
+        then(parser.isComplete()).isTrue();
+        then(parser.append("garbage \"snippet\": \"x\"")).isFalse();
+        then(parser.getSnippet()).isEqualTo("int a = 1;");
+    }
+
+    @Test
+    public void same_result_for_any_chunking() {
+        for (int size = 1; size <= RESPONSE.length(); ++size) {
+            final StreamingSnippetParser parser = new StreamingSnippetParser();
+            for (int i = 0; i < RESPONSE.length(); i += size) {
+                parser.append(RESPONSE.substring(i, Math.min(RESPONSE.length(), i + size)));
+            }
+            then(parser.getSnippet()).as("chunk size %d", size).isEqualTo(SNIPPET);
+            then(parser.isComplete()).isTrue();
+        }
+    }
+
+    @Test
+    public void snippet_as_value_is_not_a_key() {
+        final StreamingSnippetParser parser = new StreamingSnippetParser();
+
+        parser.append("{\"description\": \"snippet\", \"snippet\": \"ok\"}");
+
+        then(parser.getSnippet()).isEqualTo("ok");
+    }
+}
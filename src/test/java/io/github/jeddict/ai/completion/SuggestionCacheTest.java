@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import io.github.jeddict.ai.lang.Snippet;
+import static io.github.jeddict.ai.models.registry.GenAIProvider.OLLAMA;
+import static io.github.jeddict.ai.models.registry.GenAIProvider.OPEN_AI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class SuggestionCacheTest {
+
+    private static final String CODE = "class A {\n    ${SUGGESTION}\n}";
+
+    @Test
+    public void cache_hits_on_same_normalized_context() {
+        final SuggestionCache cache = new SuggestionCache(10, 60_000, 10_000);
+        final AtomicInteger calls = new AtomicInteger();
+
+        final List<Snippet> S1 = cache.get("op", OPEN_AI, "model", "", CODE, "  int a;", null, () -> {
+            calls.incrementAndGet(); return List.of(new Snippet("int b;"));
+        });
+        final List<Snippet> S2 = cache.get("op", OPEN_AI, "model", "", "class A {  ${SUGGESTION} }", "int a;  ", null, () -> {
+            calls.incrementAndGet(); return List.of(new Snippet("int c;"));
+        });
+
+        then(calls).hasValue(1);
+        then(S2).isEqualTo(S1);
+        then(cache.getStats().hits()).isEqualTo(1);
+        then(cache.getStats().misses()).isEqualTo(1);
+        then(cache.getStats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void different_inputs_do_not_share_entries() {
+        final SuggestionCache cache = new SuggestionCache(10, 60_000, 10_000);
+        final AtomicInteger calls = new AtomicInteger();
+
+        cache.get("op", OPEN_AI, "model", "", CODE, "", null, () -> List.of("a" + calls.incrementAndGet()));
+        cache.get("op", OPEN_AI, "model2", "", CODE, "", null, () -> List.of("a" + calls.incrementAndGet()));
+        cache.get("op", OLLAMA, "model", "", CODE, "", null, () -> List.of("a" + calls.incrementAndGet()));
+        cache.get("op", OPEN_AI, "model", "", CODE, "", "hint", () -> List.of("a" + calls.incrementAndGet()));
+        cache.get("op2", OPEN_AI, "model", "", CODE, "", null, () -> List.of("a" + calls.incrementAndGet()));
+
+        then(calls).hasValue(5);
+    }
+
+    @Test
+    public void empty_results_are_not_cached() {
+        final SuggestionCache cache = new SuggestionCache(10, 60_000, 10_000);
+        final AtomicInteger calls = new AtomicInteger();
+
+        cache.get("op", OPEN_AI, "model", "", CODE, "", null, () -> { calls.incrementAndGet(); return List.of(); });
+        cache.get("op", OPEN_AI, "model", "", CODE, "", null, () -> { calls.incrementAndGet(); return List.of(); });
+
+        then(calls).hasValue(2);
+        then(cache.getStats().size()).isZero();
+    }
+
+    @Test
+    public void least_recently_used_entries_are_evicted() {
+        final SuggestionCache cache = new SuggestionCache(2, 60_000, 10_000);
+
+        cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("one"));
+        cache.get("2", OPEN_AI, "model", "", CODE, "", null, () -> List.of("two"));
+        cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("none"));
+        cache.get("3", OPEN_AI, "model", "", CODE, "", null, () -> List.of("three"));
+
+        then(cache.getStats().size()).isEqualTo(2);
+        then(cache.getStats().evictions()).isEqualTo(1);
+        then(cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("none"))).containsExactly("one");
+        then(cache.get("2", OPEN_AI, "model", "", CODE, "", null, () -> List.of("new"))).containsExactly("new");
+    }
+
+    @Test
+    public void retained_characters_are_bounded() {
+        final SuggestionCache cache = new SuggestionCache(10, 60_000, 8);
+
+        cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("12345"));
+        cache.get("2", OPEN_AI, "model", "", CODE, "", null, () -> List.of("12345"));
+
+        then(cache.getStats().size()).isEqualTo(1);
+        then(cache.getStats().retainedChars()).isEqualTo(5);
+    }
+
+    @Test
+    public void expired_entries_are_reloaded() {
+        final SuggestionCache cache = new SuggestionCache(10, 0, 10_000);
+
+        cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("old"));
+
+        then(cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("new"))).containsExactly("new");
+    }
+
+    @Test
+    public void disabled_cache_always_loads() {
+        final SuggestionCache cache = new SuggestionCache(0, 60_000, 10_000);
+        final AtomicInteger calls = new AtomicInteger();
+
+        cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("v" + calls.incrementAndGet()));
+        cache.get("1", OPEN_AI, "model", "", CODE, "", null, () -> List.of("v" + calls.incrementAndGet()));
+
+        then(calls).hasValue(2);
+    }
+}
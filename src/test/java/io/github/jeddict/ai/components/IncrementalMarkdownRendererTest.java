@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalMarkdownRendererTest {
+
+    private static final String MARKDOWN = """
+        # Title
+
+        First paragraph
+        on two lines
+
+        - one
+
+          continued
+        - two
+
+        ```java
+        int a;
+
+        int b;
+        ```
+
+        The end
+        """;
+
+    @Test
+    public void documents_are_split_at_top_level_blank_lines() {
+        then(IncrementalMarkdownRenderer.split(MARKDOWN)).containsExactly(
+            "# Title",
+            "First paragraph\non two lines",
+            "- one\n\n  continued\n- two",
+            "```java\nint a;\n\nint b;\n```",
+            "The end"
+        );
+        then(IncrementalMarkdownRenderer.split("See [docs]\n\n[docs]: https://jeddict.github.io")).hasSize(1);
+        then(IncrementalMarkdownRenderer.split(" \n")).isEmpty();
+    }
+
+    @Test
+    public void only_changed_blocks_are_rendered_again() {
+        final List<String> rendered = new ArrayList<>();
+        final IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer(markdown -> {
+            rendered.add(markdown);
+            return "<p>" + markdown + "</p>";
+        });
+
+        IncrementalMarkdownRenderer.Update update = renderer.update(MARKDOWN);
+        then(rendered).hasSize(5);
+        then(update.changed()).containsExactly(0, 1, 2, 3, 4);
+        then(update.sameStructure()).isFalse();
+
+        update = renderer.update(MARKDOWN.replace("First", "Second"));
+        then(rendered).hasSize(6).last().isEqualTo("Second paragraph\non two lines");
+        then(update.changed()).containsExactly(1);
+        then(update.sameStructure()).isTrue();
+        then(update.html().get(1)).isEqualTo("<p>Second paragraph\non two lines</p>");
+
+        then(renderer.update(MARKDOWN.replace("First", "Second")).isUnchanged()).isTrue();
+
+        update = renderer.update(MARKDOWN.replace("First paragraph", "First\n\nparagraph"));
+        then(update.sameStructure()).isFalse();
+        then(rendered).hasSize(8);
+    }
+
+    @Test
+    public void body_wraps_each_block() {
+        then(IncrementalMarkdownRenderer.body(List.of("<p>a</p>", "<p>b</p>")))
+            .isEqualTo("<div id=\"md-0\"><p>a</p></div>\n<div id=\"md-1\"><p>b</p></div>\n");
+    }
+}
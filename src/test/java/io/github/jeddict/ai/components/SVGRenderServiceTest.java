@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class SVGRenderServiceTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final SVGRenderService service = new SVGRenderService(1, 2, source -> {
+        renders.incrementAndGet();
+        return source.isEmpty() ? null : new SVGRenderService.Rendering("<svg>" + source + "</svg>", null);
+    });
+
+    @Test
+    public void renderings_are_cached_by_source() throws Exception {
+        then(render("A").svg()).isEqualTo("<svg>A</svg>");
+        then(render("A").svg()).isEqualTo("<svg>A</svg>");
+        then(renders).hasValue(1);
+
+        render("B");
+        render("C");
+        render("A");
+        then(renders).hasValue(4);
+        then(service.getStats()).isEqualTo(new SVGRenderService.Stats(1, 4, 2));
+    }
+
+    @Test
+    public void cancelled_requests_do_not_call_back() throws Exception {
+        final List<String> rendered = new CopyOnWriteArrayList<>();
+        final SVGRenderService.Request stale = service.render("A", 200, r -> rendered.add(r.svg()));
+        stale.cancel();
+        then(stale.isCancelled()).isTrue();
+
+        then(render("B").svg()).isEqualTo("<svg>B</svg>");
+        Thread.sleep(300);
+        SwingUtilities.invokeAndWait(() -> {});
+        then(rendered).isEmpty();
+        then(renders).hasValue(1);
+    }
+
+    @Test
+    public void failed_renderings_are_not_cached() throws Exception {
+        final CompletableFuture<SVGRenderService.Rendering> result = new CompletableFuture<>();
+        service.render("", 0, result::complete);
+        service.render("", 0, result::complete);
+        then(render("A")).isNotNull();
+        then(result).isNotDone();
+        then(renders).hasValue(3);
+        then(service.getStats().size()).isEqualTo(1);
+    }
+
+    private SVGRenderService.Rendering render(final String source) throws Exception {
+        final CompletableFuture<SVGRenderService.Rendering> result = new CompletableFuture<>();
+        service.render(source, 0, result::complete);
+        return result.get(5, TimeUnit.SECONDS);
+    }
+}
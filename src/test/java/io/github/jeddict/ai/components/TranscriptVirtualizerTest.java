@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import io.github.jeddict.ai.response.Block;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.BoxLayout;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class TranscriptVirtualizerTest {
+
+    @Test
+    public void estimated_height_follows_the_lines_within_bounds() {
+        then(TranscriptVirtualizer.estimateHeight(null, 10)).isEqualTo(120);
+        then(TranscriptVirtualizer.estimateHeight("a\nb\nc", 10)).isEqualTo(120);
+        then(TranscriptVirtualizer.estimateHeight("a\n".repeat(20), 10)).isEqualTo(230);
+        then(TranscriptVirtualizer.estimateHeight("a\n".repeat(1000), 10)).isEqualTo(800);
+    }
+
+    @Test
+    public void only_slots_near_the_visible_area_hold_a_pane() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            final JPanel transcript = new JPanel();
+            transcript.setLayout(new BoxLayout(transcript, BoxLayout.Y_AXIS));
+            final TranscriptVirtualizer virtualizer = new TranscriptVirtualizer(transcript);
+            final JScrollPane scrollPane = new JScrollPane(transcript);
+            final List<TranscriptVirtualizer.Slot> slots = new ArrayList<>();
+            final List<JComponent> released = new ArrayList<>();
+            for (int i = 0; i < 20; ++i) {
+                final TranscriptVirtualizer.Slot slot = virtualizer.slot(new Block("markdown", "block " + i), block -> {
+                    final JPanel pane = new JPanel();
+                    pane.setPreferredSize(new Dimension(100, 100));
+                    return pane;
+                }, released::add);
+                transcript.add(slot);
+                slots.add(slot);
+            }
+            scrollPane.setSize(300, 200);
+            layout(scrollPane);
+
+            virtualizer.update();
+            layout(scrollPane);
+            then(slots.subList(0, 4)).allMatch(TranscriptVirtualizer.Slot::isMaterialized);
+            then(slots.subList(4, 20)).noneMatch(TranscriptVirtualizer.Slot::isMaterialized);
+            then(slots.get(0).getHeight()).isEqualTo(100);
+
+            scrollPane.getViewport().setViewPosition(new Point(0, 1500));
+            virtualizer.update();
+            layout(scrollPane);
+            then(slots.subList(0, 4)).noneMatch(TranscriptVirtualizer.Slot::isMaterialized);
+            then(released).hasSize(4);
+            then(slots.get(0).getBlock().getContent()).isEqualTo("block 0");
+            then(slots.get(0).getPreferredSize().height).isEqualTo(100);
+            then(slots.subList(11, 17)).allMatch(TranscriptVirtualizer.Slot::isMaterialized);
+        });
+    }
+
+    @Test
+    public void slots_showing_more_than_their_pane_are_kept() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            final JPanel transcript = new JPanel();
+            transcript.setLayout(new BoxLayout(transcript, BoxLayout.Y_AXIS));
+            final TranscriptVirtualizer virtualizer = new TranscriptVirtualizer(transcript);
+            final JScrollPane scrollPane = new JScrollPane(transcript);
+            final List<TranscriptVirtualizer.Slot> slots = new ArrayList<>();
+            for (int i = 0; i < 20; ++i) {
+                final TranscriptVirtualizer.Slot slot = virtualizer.slot(new Block("java", "block " + i), block -> {
+                    final JPanel pane = new JPanel();
+                    pane.setPreferredSize(new Dimension(100, 100));
+                    return pane;
+                }, null);
+                transcript.add(slot);
+                slots.add(slot);
+            }
+            scrollPane.setSize(300, 200);
+            layout(scrollPane);
+            virtualizer.update();
+            layout(scrollPane);
+
+            final JPanel view = new JPanel();
+            slots.get(0).add(view);
+            scrollPane.getViewport().setViewPosition(new Point(0, 1500));
+            virtualizer.update();
+            layout(scrollPane);
+            then(slots.get(0).isMaterialized()).isTrue();
+            then(slots.subList(1, 4)).noneMatch(TranscriptVirtualizer.Slot::isMaterialized);
+
+            slots.get(0).remove(view);
+            layout(scrollPane);
+            then(slots.get(0).getPane().getHeight()).isEqualTo(100);
+            then(slots.get(0).getHeight()).isEqualTo(100);
+        });
+    }
+
+    /**
+     * Lays the given container out; the components are not displayable here,
+     * hence validate() would not do it.
+     */
+    private static void layout(final Container container) {
+        invalidate(container);
+        doLayout(container);
+    }
+
+    private static void invalidate(final Container container) {
+        container.invalidate();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container c) {
+                invalidate(c);
+            }
+        }
+    }
+
+    private static void doLayout(final Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container c) {
+                doLayout(c);
+            }
+        }
+    }
+}
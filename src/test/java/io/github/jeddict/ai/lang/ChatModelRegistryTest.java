@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import static io.github.jeddict.ai.agent.pair.PairProgrammer.Specialist.GHOSTWRITER;
+import io.github.jeddict.ai.agent.pair.Ghostwriter;
+import io.github.jeddict.ai.test.TestBase;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ChatModelRegistryTest extends TestBase {
+
+    private ChatModelRegistry registry;
+
+    @BeforeEach
+    @Override
+    public void beforeEach() throws Exception {
+        super.beforeEach();
+        registry = ChatModelRegistry.getInstance();
+        registry.clear();
+    }
+
+    @Test
+    public void models_are_shared_per_model_name() {
+        then(registry.chatModel("dummy")).isSameAs(registry.chatModel("dummy"));
+        then(registry.streamingChatModel("dummy")).isSameAs(registry.streamingChatModel("dummy"));
+        then(registry.chatModel("dummy")).isNotSameAs(registry.chatModel("dummy2"));
+    }
+
+    @Test
+    public void brains_share_the_pooled_model() {
+        final JeddictBrain brain1 = new JeddictBrain("dummy", false, List.of());
+        final JeddictBrain brain2 = new JeddictBrain("dummy", false, List.of());
+
+        then(brain1.chatModel.get()).isSameAs(brain2.chatModel.get());
+    }
+
+    @Test
+    public void pair_programmers_are_shared() {
+        final Ghostwriter pair1 = registry.pairProgrammer("dummy", GHOSTWRITER);
+        final Ghostwriter pair2 = registry.pairProgrammer("dummy", GHOSTWRITER);
+
+        then(pair1).isNotNull().isSameAs(pair2);
+    }
+
+    @Test
+    public void model_settings_change_flushes_the_pool() {
+        final Object model = registry.chatModel("dummy");
+        final Object pair = registry.pairProgrammer("dummy", GHOSTWRITER);
+
+        preferences.setChatPlacement("Left");  // not a model setting
+        then(registry.chatModel("dummy")).isSameAs(model);
+        then((Object) registry.pairProgrammer("dummy", GHOSTWRITER)).isSameAs(pair);
+
+        preferences.setTemperature(preferences.getTemperature() + 0.5);
+        then(registry.chatModel("dummy")).isNotSameAs(model);
+        then((Object) registry.pairProgrammer("dummy", GHOSTWRITER)).isNotSameAs(pair);
+    }
+
+    @Test
+    public void sanity_check() {
+        thenThrownBy(() -> registry.chatModel(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("modelName can not be null");
+    }
+}
@@ -17,8 +17,10 @@ package io.github.jeddict.ai.lang;
 
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
 import io.github.jeddict.ai.models.DummyChatModel;
 import io.github.jeddict.ai.settings.PreferencesManager;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -55,6 +57,14 @@ public class JeddictChatModelBuilder {
         this.modelName = modelName; // P2 - TODO: can this be null?
     }
 
+    /**
+     * Listeners are not attached to the dummy models, so that the tests do not
+     * log any token usage.
+     */
+    public JeddictChatModelBuilder listeners(final List<ChatModelListener> listeners) {
+        return this;
+    }
+
     public ChatModel build() {
         LOG.finest(() -> "Building testing dummy model instead of " + modelName);
 
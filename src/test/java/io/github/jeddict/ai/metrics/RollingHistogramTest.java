@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.metrics;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class RollingHistogramTest {
+
+    private static final long SLICE = 1000;
+    private static final long NOW = 1_000_000;
+
+    @Test
+    public void percentiles_within_bucket_precision() {
+        final RollingHistogram histogram = new RollingHistogram(4, SLICE);
+
+        for (long v = 1; v <= 1000; ++v) {
+            histogram.record(v, NOW);
+        }
+        histogram.record(-1, NOW);
+
+        final RollingHistogram.Snapshot values = histogram.snapshot(NOW);
+        then(values.count()).isEqualTo(1000);
+        then(values.max()).isEqualTo(1000);
+        then(values.mean()).isEqualTo(500.5);
+        then(values.percentile(0)).isEqualTo(1);
+        then(values.percentile(50)).isBetween(500L, 500L + 500 / RollingHistogram.SUB_BUCKETS);
+        then(values.percentile(99)).isBetween(990L, 990L + 990 / RollingHistogram.SUB_BUCKETS);
+        then(values.percentile(100)).isEqualTo(1000);
+    }
+
+    @Test
+    public void small_values_are_exact() {
+        for (int v = 0; v < 2 * RollingHistogram.SUB_BUCKETS; ++v) {
+            then(RollingHistogram.highestEquivalent(RollingHistogram.index(v))).isEqualTo(v);
+        }
+        then(RollingHistogram.index(RollingHistogram.MAX_VALUE)).isGreaterThan(RollingHistogram.index(1L << 39));
+    }
+
+    @Test
+    public void old_slices_expire() {
+        final RollingHistogram histogram = new RollingHistogram(2, SLICE);
+
+        histogram.record(10, NOW);
+        histogram.record(20, NOW + SLICE);
+        then(histogram.snapshot(NOW + SLICE).count()).isEqualTo(2);
+        then(histogram.snapshot(NOW + 2 * SLICE).count()).isEqualTo(1);
+
+        histogram.record(30, NOW + 2 * SLICE);
+        final RollingHistogram.Snapshot values = histogram.snapshot(NOW + 2 * SLICE);
+        then(values.count()).isEqualTo(2);
+        then(values.sum()).isEqualTo(50);
+        then(histogram.snapshot(NOW + 10 * SLICE).count()).isZero();
+        then(histogram.snapshot(NOW + 10 * SLICE).percentile(50)).isZero();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ConversationHistoryTest {
+
+    private static final String CODE = """
+        public class Hello {
+            private final String name;
+
+            public Hello(String name) {
+                this.name = name;
+            }
+
+            public String greet() {
+                if (name == null) {
+                    return "Hello";
+                }
+                return "Hello " + name;
+            }
+        }
+        """;
+
+    private final Encoding encoding = TokenCounter.getInstance().getEncoding(EncodingType.CL100K_BASE);
+
+    @Test
+    public void code_is_replaced_by_signatures() {
+        then(ConversationHistory.signatures(CODE)).isEqualTo("""
+            public class Hello
+                public Hello(String name)
+                public String greet()
+            ... 11 lines omitted
+            """);
+        then(ConversationHistory.signatures(ConversationHistory.signatures(CODE)))
+            .isEqualTo(ConversationHistory.signatures(CODE));
+        then(ConversationHistory.signatures("public void run()")).isEqualTo("public void run()");
+    }
+
+    @Test
+    public void recent_turns_are_verbatim_within_budget() {
+        final List<Response> history = history(5);
+
+        final List<Response> all = new ConversationHistory(0, 0).select(history, -1, encoding);
+        then(all).hasSize(5);
+        then(all.get(4)).isSameAs(history.get(4));
+        then(all.get(3)).isSameAs(history.get(3));
+        then(all.get(2).getQuery()).isEqualTo("question 2");
+        then(all.get(2).toString()).contains("public class Hello").contains("lines omitted").doesNotContain("return");
+
+        then(new ConversationHistory(0, 0).select(history, 3, encoding)).hasSize(3);
+        then(new ConversationHistory(0, 0).select(history, 0, encoding)).isEmpty();
+
+        final List<Response> budgeted = new ConversationHistory(150, 0).select(history, -1, encoding);
+        then(budgeted).isNotEmpty().hasSizeLessThan(5);
+        then(budgeted.get(budgeted.size() - 1).getQuery()).isEqualTo("question 4");
+    }
+
+    @Test
+    public void oldest_turns_are_evicted_behind_a_marker() {
+        final List<Response> history = history(4);
+        final Response second = history.get(1);
+        final int turn = history.get(0).toString().length() + "question 0".length();
+
+        then(new ConversationHistory(0, 7L * turn / 2).trim(history)).isEqualTo(0);
+
+        then(history).hasSize(4).element(0).isInstanceOf(ConversationHistory.EvictedTurns.class);
+        then(((ConversationHistory.EvictedTurns) history.get(0)).getCount()).isEqualTo(1);
+        then(history.get(0).toString()).contains("1 earlier turn was removed");
+        then(history.get(1)).isSameAs(second);
+        then(second.toString()).doesNotContain("lines omitted");
+
+        history.add(new Response("question 4", "Here it is:\n```java\n" + CODE + "```\n", null));
+        then(new ConversationHistory(0, 2L * turn).trim(history)).isEqualTo(2);
+
+        then(history).hasSize(3);
+        then(((ConversationHistory.EvictedTurns) history.get(0)).getCount()).isEqualTo(3);
+        then(history.get(2).getQuery()).isEqualTo("question 4");
+        then(history.get(2).toString()).contains("return \"Hello \" + name;");
+
+        final List<Response> replayed = new ConversationHistory(0, 0).select(history, -1, encoding);
+        then(replayed).hasSize(2).noneMatch(r -> r instanceof ConversationHistory.EvictedTurns);
+    }
+
+    private List<Response> history(final int turns) {
+        final List<Response> history = new ArrayList<>();
+        for (int i = 0; i < turns; ++i) {
+            history.add(new Response("question " + i, "Here it is:\n```java\n" + CODE + "```\n", null));
+        }
+        return history;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class TokenCounterTest {
+
+    @Test
+    public void encoding_by_model() {
+        then(TokenCounter.encodingType(GenAIProvider.OPEN_AI, "gpt-4o-mini")).isEqualTo(EncodingType.O200K_BASE);
+        then(TokenCounter.encodingType(GenAIProvider.OTHER, "openai/o3-mini")).isEqualTo(EncodingType.O200K_BASE);
+        then(TokenCounter.encodingType(GenAIProvider.OPEN_AI, "gpt-4-turbo")).isEqualTo(EncodingType.CL100K_BASE);
+        then(TokenCounter.encodingType(GenAIProvider.ANTHROPIC, "claude-sonnet-4")).isEqualTo(EncodingType.CL100K_BASE);
+        then(TokenCounter.encodingType(null, "llama3")).isEqualTo(EncodingType.CL100K_BASE);
+    }
+
+    @Test
+    public void encodings_are_shared() {
+        final TokenCounter counter = TokenCounter.getInstance();
+
+        then(counter.getEncoding(GenAIProvider.OPEN_AI, "gpt-4o"))
+            .isSameAs(counter.getEncoding(EncodingType.O200K_BASE));
+        then(counter.getEncoding(null, null)).isSameAs(counter.getEncoding(EncodingType.CL100K_BASE));
+    }
+
+    @Test
+    public void count_messages_one_by_one() {
+        final TokenCounter counter = TokenCounter.getInstance();
+        final Encoding encoding = counter.getEncoding(EncodingType.CL100K_BASE);
+
+        final List<ChatMessage> messages = List.of(
+            SystemMessage.from("You are a helpful assistant"),
+            UserMessage.from("Write a hello world in Java"),
+            AiMessage.from("System.out.println(\"Hello world\");")
+        );
+        final int text = counter.count("You are a helpful assistant", encoding)
+                       + counter.count("Write a hello world in Java", encoding)
+                       + counter.count("System.out.println(\"Hello world\");", encoding);
+
+        then(counter.count(messages, encoding)).isGreaterThan(text).isLessThan(text + 3 * 8);
+        then(counter.count(List.of(), encoding)).isZero();
+        then(counter.count((String) null, encoding)).isZero();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TokenUsageLogTest {
+
+    private static final long HOUR = TokenGranularity.HOUR.intervalMillis;
+    private static final long NOW = 1000 * TokenGranularity.MONTH.intervalMillis + 2 * TokenGranularity.DAY.intervalMillis;
+
+    @TempDir
+    private Path HOME;
+
+    @Test
+    public void roll_up_at_any_granularity() {
+        final TokenUsageLog log = new TokenUsageLog(HOME.resolve("usage.bin"));
+
+        log.append(NOW - 50 * HOUR, "OPEN_AI/gpt-4o", 1, 0, 1, 100);
+        log.append(NOW - 2 * HOUR, "OPEN_AI/gpt-4o", 100, 0, 10, 100);
+        log.append(NOW - HOUR, "ANTHROPIC/claude", 200, 0, 20, 200);
+        log.append(NOW, "OPEN_AI/gpt-4o", 300, 0, 30, 300);
+
+        final TokenUsageLog.Rollup hours = log.rollUp(TokenGranularity.HOUR, 3, NOW);
+        then(hours.firstBucket()).isEqualTo(NOW / HOUR - 2);
+        then(hours.input()).containsExactly(100, 200, 300);
+        then(hours.output()).containsExactly(10, 20, 30);
+        then(hours.requests()).containsExactly(1, 1, 1);
+
+        final TokenUsageLog.Rollup months = log.rollUp(TokenGranularity.MONTH, 2, NOW);
+        then(months.input()).containsExactly(1, 600);
+        then(months.totalOutput()).isEqualTo(61);
+
+        then(log.totalsByModel(NOW - 3 * HOUR)).containsExactly(
+            Map.entry("OPEN_AI/gpt-4o", new TokenUsageLog.Totals(400, 40, 2, 400, 0)),
+            Map.entry("ANTHROPIC/claude", new TokenUsageLog.Totals(200, 20, 1, 200, 0))
+        );
+    }
+
+    @Test
+    public void reload_from_disk_dropping_truncated_records() throws Exception {
+        final Path file = HOME.resolve("usage.bin");
+        final TokenUsageLog log = new TokenUsageLog(file);
+        log.append(NOW - HOUR, "OPEN_AI/gpt-4o", 100, 0, 10, 100);
+        log.append(NOW, "OLLAMA/llama3", 200, 0, 20, 200);
+        final long size = Files.size(file);
+
+        Files.write(file, new byte[] {2, 0, 0, 1}, StandardOpenOption.APPEND);
+
+        final TokenUsageLog reloaded = new TokenUsageLog(file);
+        then(reloaded.size()).isEqualTo(2);
+        then(Files.size(file)).isEqualTo(size);
+        then(reloaded.rollUp(TokenGranularity.HOUR, 2, NOW).input()).containsExactly(100, 200);
+
+        reloaded.append(NOW, "OLLAMA/llama3", 300, 0, 30, 300);
+        then(new TokenUsageLog(file).totalsByModel(0)).containsKeys("OPEN_AI/gpt-4o", "OLLAMA/llama3").hasSize(2);
+    }
+
+    @Test
+    public void cached_input_is_recorded() {
+        final Path file = HOME.resolve("usage.bin");
+        final TokenUsageLog log = new TokenUsageLog(file);
+        log.append(NOW - HOUR, "ANTHROPIC/claude", 1000, 0, 50, 100);
+        log.append(NOW, "ANTHROPIC/claude", 1000, 900, 40, 100);
+
+        then(log.totalsByModel(0).get("ANTHROPIC/claude")).isEqualTo(new TokenUsageLog.Totals(2000, 90, 2, 200, 900));
+        then(new TokenUsageLog(file).totalsByModel(0).get("ANTHROPIC/claude").cachedInput()).isEqualTo(900);
+    }
+
+    @Test
+    public void ring_buffer_keeps_the_most_recent_records() {
+        final TokenUsageLog log = new TokenUsageLog(HOME.resolve("usage.bin"), 4);
+
+        for (int i = 0; i < 10; ++i) {
+            log.append(NOW - (9 - i) * HOUR, null, i, 0, 0, 0);
+        }
+
+        then(log.size()).isEqualTo(4);
+        then(log.rollUp(TokenGranularity.HOUR, 10, NOW).input()).containsExactly(0, 0, 0, 0, 0, 0, 6, 7, 8, 9);
+        then(log.totalsByModel(0)).containsOnlyKeys(TokenUsageLog.UNKNOWN_MODEL);
+        then(new TokenUsageLog(HOME.resolve("usage.bin"), 4).size()).isEqualTo(4);
+    }
+
+    @Test
+    public void log_is_compacted_once_well_past_capacity() throws Exception {
+        final Path file = HOME.resolve("usage.bin");
+        final TokenUsageLog log = new TokenUsageLog(file, 4);
+        for (int i = 0; i < 8; ++i) {
+            log.append(NOW - (9 - i) * HOUR, "OPEN_AI/gpt-4o", i, 0, 0, 0);
+        }
+        final long size = Files.size(file);
+
+        then(new TokenUsageLog(file, 4).size()).isEqualTo(4);
+        then(Files.size(file)).isEqualTo(size);
+
+        log.append(NOW - HOUR, "OLLAMA/llama3", 8, 0, 0, 0);
+        log.append(NOW, "OLLAMA/llama3", 9, 0, 0, 0);
+
+        final TokenUsageLog compacted = new TokenUsageLog(file, 4);
+        then(Files.size(file)).isLessThan(size);
+        then(compacted.rollUp(TokenGranularity.HOUR, 4, NOW).input()).containsExactly(6, 7, 8, 9);
+
+        compacted.append(NOW, "OLLAMA/llama3", 10, 0, 0, 0);
+        then(new TokenUsageLog(file, 4).totalsByModel(0)).containsOnlyKeys("OPEN_AI/gpt-4o", "OLLAMA/llama3");
+        then(new TokenUsageLog(file, 4).rollUp(TokenGranularity.HOUR, 2, NOW).input()).containsExactly(8, 19);
+    }
+}
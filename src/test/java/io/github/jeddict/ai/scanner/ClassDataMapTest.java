@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+public class ClassDataMapTest {
+
+    private FileObject root;
+
+    @BeforeEach
+    public void before() throws Exception {
+        root = FileUtil.createMemoryFileSystem().getRoot();
+    }
+
+    @Test
+    public void type_names_of_type_references() {
+        then(ClassDataMap.typeNames("Map<String, List<Foo.Bar>>"))
+            .containsExactly("Map", "String", "List", "Foo.Bar");
+        then(ClassDataMap.typeNames("List<? extends Foo>")).containsExactly("List", "Foo");
+        then(ClassDataMap.typeNames("Comparator<? super a.b.Foo>")).containsExactly("Comparator", "a.b.Foo");
+        then(ClassDataMap.typeNames("@NonNull Foo[]")).containsExactly("Foo");
+        then(ClassDataMap.typeNames(null)).isEmpty();
+    }
+
+    @Test
+    public void resolve_by_simple_qualified_and_nested_names() throws Exception {
+        final ClassDataMap classes = new ClassDataMap();
+        final FileObject foo = root.createData("Foo.java");
+        final FileObject bar = root.createData("Bar.java");
+        final FileObject other = root.createData("Other.java");
+        final ClassData fooData = new ClassData("a.b", "Foo", "class Foo {}");
+        final ClassData barData = new ClassData("c", "Bar", "class Bar {}");
+        classes.put(foo, fooData);
+        classes.put(bar, barData);
+        classes.put(other, new ClassData("c", "Other", "class Other {}"));
+
+        then(classes.resolve(List.of("List<Foo>"))).containsOnlyKeys(foo);
+        then(classes.resolve(List.of("a.b.Foo"))).containsOnlyKeys(foo);
+        then(classes.resolve(List.of("Foo.Inner", "Map<String, c.Bar>"))).containsOnlyKeys(foo, bar);
+        then(classes.resolve(List.of("String", "x.y.Foo.Bar"))).containsOnlyKeys(foo);
+        then(classes.resolve(List.of("c.Other.Bar"))).containsOnlyKeys(other);
+        then(classes.inPackage("c")).containsOnlyKeys(bar, other);
+        then(classes.inPackage("a")).isEmpty();
+    }
+
+    @Test
+    public void qualified_matches_are_not_widened_by_simple_names() throws Exception {
+        final ClassDataMap classes = new ClassDataMap();
+        final FileObject foo = root.createData("Foo.java");
+        final FileObject otherFoo = root.createData("OtherFoo.java");
+        classes.put(foo, new ClassData("a.b", "Foo", "class Foo {}"));
+        classes.put(otherFoo, new ClassData("c", "Foo", "class Foo {}"));
+
+        then(classes.resolve(List.of("a.b.Foo"))).containsOnlyKeys(foo);
+        then(classes.resolve(List.of("Foo"))).containsOnlyKeys(foo, otherFoo);
+        then(classes.resolve(List.of("x.Foo"))).containsOnlyKeys(foo, otherFoo);
+        then(ClassDataMap.outermostType("a.b.Foo.Bar")).isEqualTo("Foo");
+        then(ClassDataMap.outermostType("a.b.foo")).isEqualTo("foo");
+    }
+
+    @Test
+    public void indexes_follow_updates() throws Exception {
+        final ClassDataMap classes = new ClassDataMap();
+        final FileObject file = root.createData("Foo.java");
+
+        classes.put(file, new ClassData("a", "Foo", "class Foo {}"));
+        classes.put(file, new ClassData("b", "Renamed", "class Renamed {}"));
+
+        then(classes.resolve(List.of("Foo"))).isEmpty();
+        then(classes.inPackage("a")).isEmpty();
+        then(classes.resolve(List.of("Renamed"))).containsOnlyKeys(file);
+        then(classes.inPackage("b")).containsOnlyKeys(file);
+
+        classes.remove(file);
+
+        then(classes.resolve(List.of("Renamed"))).isEmpty();
+        then(classes.inPackage("b")).isEmpty();
+        then(classes.putIfAbsent(file, new ClassData("", "Foo", "class Foo {}"))).isNull();
+        then(classes.inPackage(null)).containsOnlyKeys(file);
+        then(classes.asMap()).containsOnlyKeys(file);
+        then(classes.size()).isEqualTo(1);
+    }
+}
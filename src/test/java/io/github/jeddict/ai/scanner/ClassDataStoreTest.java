@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import io.github.jeddict.ai.test.TestBase;
+import java.nio.file.Files;
+import java.util.Map;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ClassDataStoreTest extends TestBase {
+
+    @Test
+    public void save_and_load_entries() throws Exception {
+        final ClassDataStore store = new ClassDataStore(HOME.resolve("cache"), projectDir);
+
+        final ClassData hello = new ClassData("test", "Hello", "public class Hello {\n" + "x".repeat(70_000) + "}");
+        hello.addSubTree("java.lang.String");
+        hello.addSubTree("int");
+        final ClassData empty = new ClassData("", "Empty", "public class Empty {}");
+
+        store.save(Map.of(
+            "src/main/java/test/Hello.java", new ClassDataStore.Entry(new ClassDataStore.Stamp(10, 20), hello),
+            "src/main/java/Empty.java", new ClassDataStore.Entry(new ClassDataStore.Stamp(30, 40), empty)
+        ));
+
+        final Map<String, ClassDataStore.Entry> entries = new ClassDataStore(HOME.resolve("cache"), projectDir).load();
+
+        then(entries).containsOnlyKeys("src/main/java/test/Hello.java", "src/main/java/Empty.java");
+        final ClassDataStore.Entry entry = entries.get("src/main/java/test/Hello.java");
+        then(entry.stamp()).isEqualTo(new ClassDataStore.Stamp(10, 20));
+        then(entry.classData().getPackage()).isEqualTo("test");
+        then(entry.classData().getClassName()).isEqualTo("Hello");
+        then(entry.classData().getClassSignature()).isEqualTo(hello.getClassSignature());
+        then(entry.classData().getSubtree()).containsExactlyInAnyOrder("java.lang.String", "int");
+        then(entries.get("src/main/java/Empty.java").classData().getSubtree()).isNull();
+    }
+
+    @Test
+    public void one_file_per_project() {
+        then(new ClassDataStore(HOME, "/project1").getFile())
+            .isNotEqualTo(new ClassDataStore(HOME, "/project2").getFile())
+            .isEqualTo(new ClassDataStore(HOME, "/project1").getFile());
+    }
+
+    @Test
+    public void missing_or_invalid_cache_is_empty() throws Exception {
+        final ClassDataStore store = new ClassDataStore(HOME.resolve("cache"), projectDir);
+
+        then(store.load()).isEmpty();
+
+        Files.createDirectories(store.getFile().getParent());
+        Files.writeString(store.getFile(), "not a cache");
+        then(store.load()).isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FilePreferencesTest {
+
+    @TempDir
+    private Path HOME;
+
+    @Test
+    public void changes_are_written_behind() throws Exception {
+        final Path file = HOME.resolve("config").resolve("prefs.json");
+        final FilePreferences prefs = new FilePreferences(file);
+        final long revision = prefs.getRevision();
+
+        prefs.put("key", "value");
+        prefs.putInt("int", 10);
+        prefs.putChildBoolean("node", "flag", true);
+
+        then(prefs.getRevision()).isEqualTo(revision + 3);
+        then(prefs.get("key", null)).isEqualTo("value");
+
+        prefs.flush();
+
+        final FilePreferences reloaded = new FilePreferences(file);
+        then(reloaded.get("key", null)).isEqualTo("value");
+        then(reloaded.getInt("int", 0)).isEqualTo(10);
+        then(reloaded.getChildBoolean("node", "flag", false)).isTrue();
+        try (var files = Files.list(file.getParent())) {
+            then(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    public void pending_changes_are_written_in_background() throws Exception {
+        final Path file = HOME.resolve("prefs.json");
+        final FilePreferences prefs = new FilePreferences(file);
+
+        prefs.put("key", "value");
+
+        final long timeout = System.currentTimeMillis() + 10 * FilePreferences.WRITE_DELAY;
+        while (!Files.exists(file) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        then(new FilePreferences(file).get("key", null)).isEqualTo("value");
+    }
+
+    @Test
+    public void children_are_handed_out_as_copies() throws Exception {
+        final FilePreferences prefs = new FilePreferences(HOME.resolve("prefs.json"));
+
+        prefs.putChild("node", "key", "value");
+        final JSONObject node = prefs.getChild("node");
+        node.put("key", "changed");
+        then(prefs.getChild("node", "key", null)).isEqualTo("value");
+
+        prefs.setChild("node", node);
+        node.put("key", "changed again");
+        then(prefs.getChild("node", "key", null)).isEqualTo("changed");
+
+        then(prefs.getChildList("list", List.of("a", "b"))).containsExactly("a", "b");
+        prefs.getChildArray("list", List.of("a")).put("c");
+        prefs.setChildList("list", List.of("d"));
+        then(prefs.getChildList("list", List.of("a"))).containsExactly("d");
+    }
+
+    @Test
+    public void changes_made_while_writing_are_not_lost() throws Exception {
+        final Path file = HOME.resolve("prefs.json");
+        final FilePreferences prefs = new FilePreferences(file);
+        final Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200; ++i) {
+                prefs.putChildInt("node", "key" + i, i);
+            }
+        });
+
+        writer.start();
+        while (writer.isAlive()) {
+            prefs.flush();
+        }
+        prefs.flush();
+
+        then(new FilePreferences(file).getChildInt("node", "key199", 0)).isEqualTo(199);
+    }
+
+    @Test
+    public void flush_all_writes_pending_changes() throws Exception {
+        final Path file1 = HOME.resolve("prefs1.json");
+        final Path file2 = HOME.resolve("prefs2.json");
+        final FilePreferences prefs1 = new FilePreferences(file1);
+        final FilePreferences prefs2 = new FilePreferences(file2);
+
+        prefs1.put("key", "one");
+        prefs2.put("key", "two");
+        FilePreferences.flushAll();
+
+        then(new FilePreferences(file1).get("key", null)).isEqualTo("one");
+        then(new FilePreferences(file2).get("key", null)).isEqualTo("two");
+    }
+}
@@ -22,6 +22,7 @@ import io.github.jeddict.ai.util.FileUtil;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import static org.assertj.core.api.BDDAssertions.then;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -96,4 +97,28 @@ public class PreferencesManagerTest extends TestBase {
             then(filePreferences.preferencesPath).isEqualTo(expectedPath);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void snapshot_follows_changes() throws Exception {
+        SystemLambda.restoreSystemProperties(() -> {
+            System.setProperty("os.name", LINUX);
+            System.setProperty("user.name", USER);
+            System.setProperty("user.home", HOME.resolve(USER).toString());
+
+            PreferencesManager manager = PreferencesManager.getInstance();
+
+            then(manager.isSmartCodeEnabled()).isTrue();
+            then(manager.getFileExtensionSetToInclude()).contains("java");
+            then(manager.getCustomHeaders()).isSameAs(manager.getCustomHeaders());
+
+            manager.setSmartCodeEnabled(false);
+            manager.setFileExtensionToInclude("java, kt");
+            manager.setCustomHeaders(Map.of("X-Test", "1"));
+
+            then(manager.isSmartCodeEnabled()).isFalse();
+            then(manager.getFileExtensionSetToInclude()).containsExactlyInAnyOrder("java", "kt");
+            then(manager.getFileExtensionListToInclude()).containsExactly("java", "kt");
+            then(manager.getCustomHeaders()).containsEntry("X-Test", "1");
+        });
+    }
+}